@@ -0,0 +1,28 @@
+package com.chatmessage.chat.jmh;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.chatmessage.chat.ChatApplication;
+
+/**
+ * Starts the chat application against a private in-memory H2 database, on a
+ * random port and without the startup seed data
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String name) {
+        // Passed as arguments so they override application.properties
+        return new SpringApplicationBuilder(ChatApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:jmh-" + name + ";DB_CLOSE_DELAY=-1",
+                        "--file.upload-dir=./target/jmh-uploads",
+                        "--message.search.rebuild-on-startup=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.chatmessage.chat=WARN");
+    }
+}
@@ -0,0 +1,80 @@
+package com.chatmessage.chat.jmh;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageService;
+
+/**
+ * {@link MessageService#getMessagesByRoomId} for the full history and for
+ * one page from the middle of a room holding {@code messages} messages
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageHistoryBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "100000"})
+    private int messages;
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("history-" + messages);
+        context.getBean(RoomRepository.class).save(new Room("history-room", "History", List.of("reader")));
+
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        List<Object[]> rows = new ArrayList<>(messages);
+        for (int i = 1; i <= messages; i++) {
+            rows.add(new Object[] { "history-" + i, "reader", "history-room", "Message number " + i,
+                    Timestamp.valueOf(start.plusNanos(i * 1000L)), i });
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO messages (message_id, sender_id, room_id, content, timestamp, sequence) VALUES (?, ?, ?, ?, ?, ?)",
+                rows);
+        messageService = context.getBean(MessageService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Message> fullHistory() {
+        return messageService.getMessagesByRoomId("reader", "history-room");
+    }
+
+    @Benchmark
+    public List<Message> page() {
+        return messageService.getMessagesByRoomId("reader", "history-room", messages / 2, PAGE_SIZE);
+    }
+}
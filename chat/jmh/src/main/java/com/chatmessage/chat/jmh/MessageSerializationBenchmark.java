@@ -0,0 +1,72 @@
+package com.chatmessage.chat.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.chatmessage.chat.model.Message;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson serialization of {@link Message} with the object mapper
+ * configuration Spring MVC uses, for a single message and a page of 50
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Message message;
+    private List<Message> page;
+    private String messageJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        message = message(1);
+        page = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            page.add(message(i));
+        }
+        messageJson = objectMapper.writeValueAsString(message);
+    }
+
+    private static Message message(long sequence) {
+        Message message = new Message("message-" + sequence, "sender", "room",
+                "A typical chat message of a few dozen characters", sequence % 10 == 0 ? "/uploads/image.png" : null);
+        message.setSequence(sequence);
+        return message;
+    }
+
+    @Benchmark
+    public byte[] serializeMessage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public Message deserializeMessage() throws JsonProcessingException {
+        return objectMapper.readValue(messageJson, Message.class);
+    }
+}
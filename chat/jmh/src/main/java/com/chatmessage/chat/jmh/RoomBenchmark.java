@@ -0,0 +1,58 @@
+package com.chatmessage.chat.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chatmessage.chat.model.Room;
+
+/**
+ * {@link Room#isMember} at different member counts, for the last member
+ * (the worst case for a list scan) and for a non-member
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int members;
+
+    private Room room;
+    private String lastMember;
+
+    @Setup
+    public void setUp() {
+        List<String> userIds = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            userIds.add("user-" + i);
+        }
+        room = new Room("room", "Benchmark", userIds);
+        lastMember = "user-" + (members - 1);
+    }
+
+    @Benchmark
+    public boolean isMember_Member() {
+        return room.isMember(lastMember);
+    }
+
+    @Benchmark
+    public boolean isMember_NonMember() {
+        return room.isMember("outsider");
+    }
+}
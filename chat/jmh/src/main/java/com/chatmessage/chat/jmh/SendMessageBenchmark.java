@@ -0,0 +1,57 @@
+package com.chatmessage.chat.jmh;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageService;
+
+/**
+ * {@link MessageService#sendMessage} of a text message, through the whole
+ * service (membership check, store, search index, room activity) on an
+ * in-memory H2 database
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SendMessageBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("send");
+        context.getBean(RoomRepository.class).save(new Room("send-room", "Send", List.of("sender")));
+        messageService = context.getBean(MessageService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Message sendMessage() throws IOException {
+        return messageService.sendMessage("sender", "send-room", "Hello from the benchmark", null);
+    }
+}
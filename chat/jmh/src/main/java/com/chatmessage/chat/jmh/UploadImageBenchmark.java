@@ -0,0 +1,74 @@
+package com.chatmessage.chat.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.chatmessage.chat.service.FileSystemStorageService;
+
+/**
+ * {@link FileSystemStorageService#uploadImage} of an image of {@code size}
+ * bytes. Stored files are deleted after each iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UploadImageBenchmark {
+
+    private static final Path UPLOAD_DIR = Paths.get("target", "jmh-uploads", "images");
+
+    @Param({"16384", "1048576"})
+    private int size;
+
+    private FileSystemStorageService storageService;
+    private MockMultipartFile image;
+
+    @Setup
+    public void setUp() {
+        storageService = new FileSystemStorageService();
+        ReflectionTestUtils.setField(storageService, "uploadDir", UPLOAD_DIR.toString());
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        image = new MockMultipartFile("image", "photo.png", "image/png", bytes);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteUploads() throws IOException {
+        if (!Files.isDirectory(UPLOAD_DIR)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(UPLOAD_DIR)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public String uploadImage() throws IOException {
+        return storageService.uploadImage(image);
+    }
+}
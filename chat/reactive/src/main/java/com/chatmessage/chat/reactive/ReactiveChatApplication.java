@@ -0,0 +1,17 @@
+package com.chatmessage.chat.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Non-blocking edition of the messaging API: the send and history endpoints
+ * of the main application on WebFlux and R2DBC, with the same HTTP contract
+ * and the same {@code messages} and {@code rooms} tables.
+ */
+@SpringBootApplication
+public class ReactiveChatApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveChatApplication.class, args);
+    }
+}
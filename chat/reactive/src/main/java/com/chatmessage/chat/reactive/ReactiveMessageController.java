@@ -0,0 +1,107 @@
+package com.chatmessage.chat.reactive;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.FormFieldPart;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.chatmessage.chat.model.Message;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The send and history endpoints of the main application's
+ * {@code MessageController}, with the same paths, parameters, status codes
+ * and error bodies. New messages are not broadcast over WebSocket.
+ */
+@RestController
+@RequestMapping("/api")
+public class ReactiveMessageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveMessageController.class);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private final ReactiveMessageService messageService;
+
+    public ReactiveMessageController(ReactiveMessageService messageService) {
+        this.messageService = messageService;
+    }
+
+    /**
+     * Endpoint to send a new message with optional image attachment. As in
+     * the main application, {@code userId}, {@code roomId} and
+     * {@code content} may be sent as query parameters or form fields.
+     */
+    @PostMapping(value = "/messages", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<Object>> sendMessage(ServerWebExchange exchange) {
+        return exchange.getMultipartData().flatMap(parts -> {
+            String userId = field(exchange, parts, "userId");
+            String roomId = field(exchange, parts, "roomId");
+            String content = field(exchange, parts, "content");
+            FilePart image = parts.getFirst("image") instanceof FilePart file && !file.filename().isEmpty() ? file : null;
+
+            if (roomId == null) {
+                return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "roomId is required")));
+            }
+            if ((content == null || content.trim().isEmpty()) && image == null) {
+                logger.warn("Both content and image are empty");
+                return Mono.just(ResponseEntity.badRequest().body(Map.of("error",
+                        "Either message content or image must be provided")));
+            }
+
+            return messageService.sendMessage(userId != null ? userId : "default-user", roomId, content, image)
+                    .map(message -> ResponseEntity.status(HttpStatus.CREATED).body(message));
+        });
+    }
+
+    /**
+     * Endpoint to retrieve messages for a specific room, streamed as they are
+     * read. Without paging parameters the full history is returned; with
+     * {@code afterSequence} and/or {@code limit} one page in sequence order
+     * is returned.
+     */
+    @GetMapping(value = "/rooms/{roomId}/messages", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Message> getRoomMessages(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @PathVariable("roomId") String roomId,
+            @RequestParam(value = "afterSequence", required = false) Long afterSequence,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        logger.info("Getting messages for room {} for user {}", roomId, userId);
+        if (afterSequence == null && limit == null) {
+            return messageService.getMessagesByRoomId(userId, roomId);
+        }
+        int pageSize = Math.min(Math.max(limit != null ? limit : DEFAULT_PAGE_SIZE, 1), MAX_PAGE_SIZE);
+        return messageService.getMessagesByRoomId(userId, roomId, afterSequence != null ? afterSequence : 0, pageSize);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(IllegalArgumentException e) {
+        logger.error("Bad request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    }
+
+    private static String field(ServerWebExchange exchange, MultiValueMap<String, Part> parts, String name) {
+        String value = exchange.getRequest().getQueryParams().getFirst(name);
+        if (value != null) {
+            return value;
+        }
+        return parts.getFirst(name) instanceof FormFieldPart field ? field.value() : null;
+    }
+}
@@ -0,0 +1,200 @@
+package com.chatmessage.chat.reactive;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.chatmessage.chat.model.Message;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Sends and reads messages without blocking: database access goes through
+ * R2DBC and uploads are written with non-blocking file transfers.
+ *
+ * Sequence numbers are handed out per room like the main application's
+ * sequencer, seeded from the highest sequence in the table or the archive
+ * directory. The two editions must not write to the same database at the
+ * same time, since each keeps its own counters. Archived messages are not
+ * served here; history starts at the oldest message still in the table.
+ */
+@Service
+public class ReactiveMessageService {
+
+    private static final String MEMBER_SQL = "SELECT COUNT(*) FROM room_members WHERE room_id = :roomId AND user_id = :userId";
+    private static final String ROOM_EXISTS_SQL = "SELECT COUNT(*) FROM rooms WHERE room_id = :roomId";
+    private static final String MAX_SEQUENCE_SQL = "SELECT COALESCE(MAX(sequence), 0) FROM messages WHERE room_id = :roomId";
+    private static final String INSERT_SQL = "INSERT INTO messages (message_id, sender_id, room_id, content, image_url, timestamp, sequence)"
+            + " VALUES (:messageId, :senderId, :roomId, :content, :imageUrl, :timestamp, :sequence)";
+    private static final String COLUMNS = "SELECT message_id, sender_id, room_id, content, image_url, timestamp, sequence FROM messages";
+    // Legacy rows without a sequence predate every sequenced one
+    private static final String HISTORY_SQL = COLUMNS
+            + " WHERE room_id = :roomId ORDER BY sequence NULLS FIRST, timestamp";
+    private static final String PAGE_SQL = COLUMNS
+            + " WHERE room_id = :roomId AND sequence > :afterSequence ORDER BY sequence LIMIT :limit";
+
+    private final DatabaseClient databaseClient;
+    private final Path uploadDir;
+    private final Path archiveDir;
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public ReactiveMessageService(DatabaseClient databaseClient,
+            @Value("${file.upload-dir}") String uploadDir,
+            @Value("${message.archive.dir:./data/archive}") String archiveDir) {
+        this.databaseClient = databaseClient;
+        this.uploadDir = Paths.get(uploadDir);
+        this.archiveDir = Paths.get(archiveDir);
+    }
+
+    /**
+     * Send a message with optional text content and/or image
+     *
+     * @return The stored message, or an {@link IllegalArgumentException} if
+     * the room doesn't exist or the sender is not a member
+     */
+    public Mono<Message> sendMessage(String senderId, String roomId, String content, FilePart image) {
+        Mono<String> imageUrl = image != null ? uploadImage(image) : Mono.just("");
+        return validateMembership(senderId, roomId)
+                .then(imageUrl)
+                .flatMap(url -> nextSequence(roomId).flatMap(sequence -> {
+                    Message message = new Message(UUID.randomUUID().toString(), senderId, roomId,
+                            content != null ? content : "", url.isEmpty() ? null : url);
+                    message.setSequence(sequence);
+                    return insert(message).thenReturn(message);
+                }));
+    }
+
+    /**
+     * The full history of a room in sequence order, the order in which it was
+     * stored, streamed from the database. Imported messages keep their
+     * original timestamps, so timestamps need not rise with sequences.
+     */
+    public Flux<Message> getMessagesByRoomId(String userId, String roomId) {
+        return validateMembership(userId, roomId)
+                .thenMany(databaseClient.sql(HISTORY_SQL)
+                        .bind("roomId", roomId)
+                        .map(ReactiveMessageService::mapRow)
+                        .all());
+    }
+
+    /**
+     * One page of a room's history in sequence order
+     *
+     * @param afterSequence Only messages with a greater sequence are returned (0 for the start)
+     * @param limit Maximum number of messages to return
+     */
+    public Flux<Message> getMessagesByRoomId(String userId, String roomId, long afterSequence, int limit) {
+        return validateMembership(userId, roomId)
+                .thenMany(databaseClient.sql(PAGE_SQL)
+                        .bind("roomId", roomId)
+                        .bind("afterSequence", afterSequence)
+                        .bind("limit", limit)
+                        .map(ReactiveMessageService::mapRow)
+                        .all());
+    }
+
+    private Mono<Void> validateMembership(String userId, String roomId) {
+        return count(databaseClient.sql(MEMBER_SQL).bind("roomId", roomId).bind("userId", userId))
+                .flatMap(members -> {
+                    if (members > 0) {
+                        return Mono.<Void>empty();
+                    }
+                    return count(databaseClient.sql(ROOM_EXISTS_SQL).bind("roomId", roomId))
+                            .flatMap(rooms -> Mono.<Void>error(new IllegalArgumentException(rooms > 0
+                                    ? "User is not a member of this room" : "Room not found")));
+                });
+    }
+
+    private static Mono<Long> count(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.map(row -> row.get(0, Long.class)).one().defaultIfEmpty(0L);
+    }
+
+    /**
+     * Store the image under a unique name in the upload directory
+     *
+     * @return The URL under which the main application serves the image
+     */
+    private Mono<String> uploadImage(FilePart image) {
+        String filename = UUID.randomUUID() + "-" + StringUtils.cleanPath(image.filename());
+        Path destination = uploadDir.resolve(filename).normalize().toAbsolutePath();
+        return Mono.fromCallable(() -> Files.createDirectories(uploadDir))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(image.transferTo(destination))
+                .thenReturn("/uploads/" + filename);
+    }
+
+    private Mono<Long> nextSequence(String roomId) {
+        AtomicLong counter = counters.get(roomId);
+        if (counter != null) {
+            return Mono.just(counter.incrementAndGet());
+        }
+        Mono<Long> maxInTable = databaseClient.sql(MAX_SEQUENCE_SQL)
+                .bind("roomId", roomId)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .defaultIfEmpty(0L);
+        Mono<Long> maxInArchive = Mono.fromCallable(() -> maxArchivedSequence(roomId))
+                .subscribeOn(Schedulers.boundedElastic());
+        // Concurrent first sends may both seed; the first counter stored wins
+        return Mono.zip(maxInTable, maxInArchive, Math::max)
+                .map(max -> counters.computeIfAbsent(roomId, id -> new AtomicLong(max)).incrementAndGet());
+    }
+
+    /**
+     * The last sequence of the room's newest archive segment, read from the
+     * segment file names ({@code <first>-<last>.seg})
+     */
+    private long maxArchivedSequence(String roomId) throws IOException {
+        Path roomDir = archiveDir.resolve(URLEncoder.encode(roomId, StandardCharsets.UTF_8));
+        if (!Files.isDirectory(roomDir)) {
+            return 0;
+        }
+        try (Stream<Path> segments = Files.list(roomDir)) {
+            return segments.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".seg"))
+                    .mapToLong(name -> Long.parseLong(name.substring(name.indexOf('-') + 1, name.length() - 4)))
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    private Mono<Void> insert(Message message) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(INSERT_SQL)
+                .bind("messageId", message.getMessageId())
+                .bind("senderId", message.getSenderId())
+                .bind("roomId", message.getRoomId())
+                .bind("content", message.getContent())
+                .bind("timestamp", message.getTimestamp())
+                .bind("sequence", message.getSequence());
+        spec = message.getImageUrl() != null
+                ? spec.bind("imageUrl", message.getImageUrl())
+                : spec.bindNull("imageUrl", String.class);
+        return spec.then();
+    }
+
+    private static Message mapRow(Readable row) {
+        Message message = new Message(row.get("message_id", String.class), row.get("sender_id", String.class),
+                row.get("room_id", String.class), row.get("content", String.class), row.get("image_url", String.class));
+        message.setTimestamp(row.get("timestamp", LocalDateTime.class));
+        message.setSequence(row.get("sequence", Long.class));
+        return message;
+    }
+}
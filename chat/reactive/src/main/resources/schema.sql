@@ -0,0 +1,26 @@
+-- The subset of the main application's schema used by the reactive edition,
+-- matching the tables Hibernate creates from the model classes
+CREATE TABLE IF NOT EXISTS rooms (
+    room_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    room_name VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS room_members (
+    room_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_room_members_user ON room_members (user_id);
+
+CREATE TABLE IF NOT EXISTS messages (
+    message_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    sender_id VARCHAR(255) NOT NULL,
+    room_id VARCHAR(255) NOT NULL,
+    content CHARACTER LARGE OBJECT,
+    image_url VARCHAR(255),
+    timestamp TIMESTAMP(6) NOT NULL,
+    sequence BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_messages_room_sequence ON messages (room_id, sequence);
+CREATE INDEX IF NOT EXISTS idx_messages_timestamp ON messages (timestamp);
@@ -0,0 +1,165 @@
+package com.chatmessage.chat.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import com.chatmessage.chat.model.Message;
+
+@SpringBootTest(properties = {
+    "spring.r2dbc.url=r2dbc:h2:mem:///reactive-test;DB_CLOSE_DELAY=-1",
+    "file.upload-dir=./target/reactive-test-uploads",
+    "message.archive.dir=./target/reactive-test-archive"
+})
+@AutoConfigureWebTestClient
+class ReactiveMessageControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final String roomId = "reactive-room-" + System.nanoTime();
+
+    @BeforeEach
+    void setUp() {
+        databaseClient.sql("INSERT INTO rooms (room_id, room_name) VALUES (:roomId, 'Reactive')")
+                .bind("roomId", roomId).then().block();
+        databaseClient.sql("INSERT INTO room_members (room_id, user_id) VALUES (:roomId, 'user-1')")
+                .bind("roomId", roomId).then().block();
+    }
+
+    @Test
+    void sendMessage_ShouldCreateMessage_WithTextOnly() {
+        // When & Then
+        webTestClient.post().uri("/api/messages?userId=user-1&roomId={roomId}", roomId)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData("content", "Hello"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.content").isEqualTo("Hello")
+                .jsonPath("$.senderId").isEqualTo("user-1")
+                .jsonPath("$.sequence").isEqualTo(1)
+                .jsonPath("$.imageUrl").doesNotExist();
+    }
+
+    @Test
+    void sendMessage_ShouldStoreImage_WhenImageProvided() {
+        // Given
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("userId", "user-1");
+        body.part("roomId", roomId);
+        body.part("image", new ByteArrayResource(new byte[] { 1, 2, 3 }) {
+            @Override
+            public String getFilename() {
+                return "photo.png";
+            }
+        }).contentType(MediaType.IMAGE_PNG);
+
+        // When & Then
+        webTestClient.post().uri("/api/messages")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(body.build()))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.imageUrl").value(url -> assertThat((String) url).startsWith("/uploads/").endsWith("-photo.png"));
+    }
+
+    @Test
+    void sendMessage_ShouldReturnBadRequest_WhenNoContentOrImage() {
+        // When & Then
+        webTestClient.post().uri("/api/messages?userId=user-1&roomId={roomId}", roomId)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData("content", " "))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Either message content or image must be provided");
+    }
+
+    @Test
+    void sendMessage_ShouldReturnBadRequest_WhenUserNotInRoom() {
+        // When & Then
+        webTestClient.post().uri("/api/messages?userId=outsider&roomId={roomId}", roomId)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData("content", "Hello"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("User is not a member of this room");
+    }
+
+    @Test
+    void getRoomMessages_ShouldReturnPageInSequenceOrder() {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            webTestClient.post().uri("/api/messages?userId=user-1&roomId={roomId}", roomId)
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(BodyInserters.fromMultipartData("content", "message " + i))
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+
+        // When & Then
+        webTestClient.get().uri("/api/rooms/{roomId}/messages?userId=user-1&afterSequence=1&limit=10", roomId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Message.class)
+                .value(messages -> assertThat(messages).extracting("sequence").containsExactly(2L, 3L));
+
+        webTestClient.get().uri("/api/rooms/{roomId}/messages?userId=user-1", roomId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Message.class)
+                .value(messages -> assertThat(messages).extracting("content")
+                        .containsExactly("message 1", "message 2", "message 3"));
+    }
+
+    @Test
+    void getRoomMessages_ShouldReturnFullHistoryInSequenceOrder_WhenTimestampsDisagree() {
+        // Given: an imported message older than the one before it, and a legacy row without a sequence
+        insert("imported", 2L, "2020-01-01 00:00:00");
+        insert("sent", 1L, "2024-01-01 00:00:00");
+        insert("legacy", null, "2024-06-01 00:00:00");
+
+        // When & Then
+        webTestClient.get().uri("/api/rooms/{roomId}/messages?userId=user-1", roomId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Message.class)
+                .value(messages -> assertThat(messages).extracting("content")
+                        .containsExactly("legacy", "sent", "imported"));
+    }
+
+    @Test
+    void getRoomMessages_ShouldReturnBadRequest_WhenRoomNotFound() {
+        // When & Then
+        webTestClient.get().uri("/api/rooms/missing-room/messages?userId=user-1")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Room not found");
+    }
+
+    private void insert(String content, Long sequence, String timestamp) {
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("INSERT INTO messages"
+                + " (message_id, sender_id, room_id, content, timestamp, sequence)"
+                + " VALUES (:messageId, 'user-1', :roomId, :content, TIMESTAMP '" + timestamp + "', :sequence)")
+                .bind("messageId", roomId + "-" + content)
+                .bind("roomId", roomId)
+                .bind("content", content);
+        (sequence != null ? insert.bind("sequence", sequence) : insert.bindNull("sequence", Long.class)).then().block();
+    }
+}
@@ -2,6 +2,8 @@ package com.chatmessage.chat.config;
 
 import java.util.Arrays;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,15 +15,17 @@ import com.chatmessage.chat.service.RoomService;
 import com.chatmessage.chat.service.UserService;
 
 @Configuration
-@Profile("!test")
+@Profile("!test & !generate")
 public class DataInitializer {
 
+    private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
+
     @Bean
     public CommandLineRunner initData(UserService userService, RoomService roomService) {
         return args -> {
             // Check if data already exists to avoid duplicate creation
-            if (!userService.getAllUsers().isEmpty()) {
-                System.out.println("Data already exists, skipping initialization.");
+            if (userService.hasUsers()) {
+                logger.info("Data already exists, skipping initialization.");
                 return;
             }
 
@@ -39,14 +43,14 @@ public class DataInitializer {
             defaultUser.setUsername("Default Test User");
             userService.saveUser(defaultUser);
 
-            System.out.println("Created users:");
-            System.out.println("User 1: " + user1.getUserId() + " - " + user1.getUsername());
-            System.out.println("User 2: " + user2.getUserId() + " - " + user2.getUsername());
-            System.out.println("User 3: " + user3.getUserId() + " - " + user3.getUsername());
-            System.out.println("User 4: " + user4.getUserId() + " - " + user4.getUsername());
-            System.out.println("User 5: " + user5.getUserId() + " - " + user5.getUsername());
-            System.out.println("User 6: " + user6.getUserId() + " - " + user6.getUsername());
-            System.out.println("Default User: " + defaultUser.getUserId() + " - " + defaultUser.getUsername());
+            logger.info("Created users:");
+            logger.info("User 1: {} - {}", user1.getUserId(), user1.getUsername());
+            logger.info("User 2: {} - {}", user2.getUserId(), user2.getUsername());
+            logger.info("User 3: {} - {}", user3.getUserId(), user3.getUsername());
+            logger.info("User 4: {} - {}", user4.getUserId(), user4.getUsername());
+            logger.info("User 5: {} - {}", user5.getUserId(), user5.getUsername());
+            logger.info("User 6: {} - {}", user6.getUserId(), user6.getUsername());
+            logger.info("Default User: {} - {}", defaultUser.getUserId(), defaultUser.getUsername());
 
             // Create rooms with different member combinations
             // Room 1: General Chat - Most users + default user (main discussion room)
@@ -78,31 +82,24 @@ public class DataInitializer {
             Room room7 = roomService.createRoom("Management",
                     Arrays.asList(user2.getUserId(), user5.getUserId(), user6.getUserId()));
 
-            System.out.println("\nCreated rooms with memberships:");
-            System.out.println("Room 1: " + room1.getRoomId() + " - " + room1.getRoomName()
-                    + " (Members: " + room1.getMembers().size() + ")");
-            System.out.println("Room 2: " + room2.getRoomId() + " - " + room2.getRoomName()
-                    + " (Members: " + room2.getMembers().size() + ")");
-            System.out.println("Room 3: " + room3.getRoomId() + " - " + room3.getRoomName()
-                    + " (Members: " + room3.getMembers().size() + ")");
-            System.out.println("Room 4: " + room4.getRoomId() + " - " + room4.getRoomName()
-                    + " (Members: " + room4.getMembers().size() + ")");
-            System.out.println("Room 5: " + room5.getRoomId() + " - " + room5.getRoomName()
-                    + " (Members: " + room5.getMembers().size() + ")");
-            System.out.println("Room 6: " + room6.getRoomId() + " - " + room6.getRoomName()
-                    + " (Members: " + room6.getMembers().size() + ")");
-            System.out.println("Room 7: " + room7.getRoomId() + " - " + room7.getRoomName()
-                    + " (Members: " + room7.getMembers().size() + ")");
+            logger.info("Created rooms with memberships:");
+            logger.info("Room 1: {} - {} (Members: {})", room1.getRoomId(), room1.getRoomName(), room1.getMembers().size());
+            logger.info("Room 2: {} - {} (Members: {})", room2.getRoomId(), room2.getRoomName(), room2.getMembers().size());
+            logger.info("Room 3: {} - {} (Members: {})", room3.getRoomId(), room3.getRoomName(), room3.getMembers().size());
+            logger.info("Room 4: {} - {} (Members: {})", room4.getRoomId(), room4.getRoomName(), room4.getMembers().size());
+            logger.info("Room 5: {} - {} (Members: {})", room5.getRoomId(), room5.getRoomName(), room5.getMembers().size());
+            logger.info("Room 6: {} - {} (Members: {})", room6.getRoomId(), room6.getRoomName(), room6.getMembers().size());
+            logger.info("Room 7: {} - {} (Members: {})", room7.getRoomId(), room7.getRoomName(), room7.getMembers().size());
 
             // Print membership summary
-            System.out.println("\nMembership Summary:");
-            System.out.println("john (" + user1.getUserId() + ") is in: General Chat, Dev Team, Project Alpha");
-            System.out.println("alice (" + user2.getUserId() + ") is in: General Chat, Marketing Team, Project Alpha, Management");
-            System.out.println("bob (" + user3.getUserId() + ") is in: General Chat, Dev Team, Random Chat");
-            System.out.println("emma (" + user4.getUserId() + ") is in: General Chat, Marketing Team, Random Chat");
-            System.out.println("david (" + user5.getUserId() + ") is in: General Chat, Dev Team, Random Chat, Management");
-            System.out.println("sarah (" + user6.getUserId() + ") is in: Marketing Team, Project Alpha, Management");
-            System.out.println("default-user is in: General Chat, Dev Team, Project Alpha, Test Room");
+            logger.info("Membership Summary:");
+            logger.info("john ({}) is in: General Chat, Dev Team, Project Alpha", user1.getUserId());
+            logger.info("alice ({}) is in: General Chat, Marketing Team, Project Alpha, Management", user2.getUserId());
+            logger.info("bob ({}) is in: General Chat, Dev Team, Random Chat", user3.getUserId());
+            logger.info("emma ({}) is in: General Chat, Marketing Team, Random Chat", user4.getUserId());
+            logger.info("david ({}) is in: General Chat, Dev Team, Random Chat, Management", user5.getUserId());
+            logger.info("sarah ({}) is in: Marketing Team, Project Alpha, Management", user6.getUserId());
+            logger.info("default-user is in: General Chat, Dev Team, Project Alpha, Test Room");
         };
     }
 }
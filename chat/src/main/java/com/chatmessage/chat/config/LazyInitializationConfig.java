@@ -0,0 +1,40 @@
+package com.chatmessage.chat.config;
+
+import java.lang.reflect.Method;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import jakarta.annotation.PreDestroy;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    /**
+     * With {@code spring.main.lazy-initialization=true} a bean is only
+     * created when first used. Beans that do background work must still be
+     * created at startup: a lazy bean's {@code @Scheduled} jobs and startup
+     * event listeners would never run, and its {@code @PreDestroy} flush
+     * would be skipped if no request touched it.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter backgroundWorkExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> hasBackgroundWork(beanType);
+    }
+
+    private static boolean hasBackgroundWork(Class<?> beanType) {
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(beanType, ReflectionUtils.USER_DECLARED_METHODS)) {
+            if (AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                    || AnnotatedElementUtils.hasAnnotation(method, EventListener.class)
+                    || method.isAnnotationPresent(PreDestroy.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package com.chatmessage.chat.config;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.chatmessage.chat.service.QueryCapture;
+import com.chatmessage.chat.service.QueryStats;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Routes the DataSource through a JDBC proxy that reports every statement
+ * and every row read to {@link QueryStats}, and captures the statements of
+ * each {@code /api} request. Disable with {@code query-stats.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatsConfig {
+
+    private static final String START_NANOS = "queryStats.start";
+
+    @Bean
+    public static BeanPostProcessor queryStatsDataSourceProxy(ObjectProvider<QueryStats> queryStats) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(new StatementListener(queryStats))
+                        .methodListener(new RowListener(queryStats))
+                        .proxyResultSet()
+                        .build();
+            }
+        };
+    }
+
+    @Bean
+    public OncePerRequestFilter queryStatsFilter(QueryStats queryStats) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return !request.getRequestURI().startsWith("/api/");
+            }
+
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                    FilterChain filterChain) throws ServletException, IOException {
+                try (QueryCapture capture = queryStats.capture(request.getMethod() + " " + request.getRequestURI())) {
+                    filterChain.doFilter(request, response);
+                    // Raw URIs of unmatched requests would give every probed path its own entry
+                    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    queryStats.recordRequest(request.getMethod() + " "
+                            + (pattern != null ? pattern : QueryStats.UNMATCHED_ENDPOINT), capture);
+                }
+            }
+        };
+    }
+
+    private record StatementListener(ObjectProvider<QueryStats> queryStats) implements QueryExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            execInfo.addCustomValue(START_NANOS, System.nanoTime());
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+            long elapsed = start != null ? System.nanoTime() - start : 0;
+            QueryStats stats = queryStats.getObject();
+            for (QueryInfo query : queryInfoList) {
+                stats.recordStatement(query.getQuery(), elapsed / queryInfoList.size(),
+                        rowsUpdated(execInfo.getResult()) / queryInfoList.size());
+            }
+        }
+
+        private static long rowsUpdated(Object result) {
+            if (result instanceof Integer count) {
+                return Math.max(count, 0);
+            }
+            if (result instanceof int[] counts) {
+                return IntStream.of(counts).filter(count -> count > 0).asLongStream().sum();
+            }
+            return 0;
+        }
+    }
+
+    private record RowListener(ObjectProvider<QueryStats> queryStats) implements MethodExecutionListener {
+
+        @Override
+        public void beforeMethod(MethodExecutionContext executionContext) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext executionContext) {
+            if (executionContext.getTarget() instanceof ResultSet
+                    && "next".equals(executionContext.getMethod().getName())
+                    && Boolean.TRUE.equals(executionContext.getResult())) {
+                queryStats.getObject().recordRowsRead(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.chatmessage.chat.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Enables @Scheduled background jobs (e.g. pack file compaction). They share the
+    // spring.task.scheduling.pool.size threads, so a long archival run does not delay the
+    // others; the retention purge hands its batches and pauses to a thread of its own
+}
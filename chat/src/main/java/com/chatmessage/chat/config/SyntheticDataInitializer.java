@@ -0,0 +1,79 @@
+package com.chatmessage.chat.config;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.chatmessage.chat.service.SyntheticDataGenerator;
+import com.chatmessage.chat.service.VersionStamps;
+
+/**
+ * Seeds the database with a generated dataset instead of the fixed
+ * {@link DataInitializer} data: run with {@code --spring.profiles.active=generate}
+ * and size it with the {@code generator.*} properties. A seed whose data is
+ * already present is not generated again.
+ */
+@Configuration
+@Profile("generate")
+public class SyntheticDataInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataInitializer.class);
+
+    @Bean
+    public SyntheticDataGenerator.Settings generatorSettings(
+            @Value("${generator.seed:42}") long seed,
+            @Value("${generator.users:10000}") int users,
+            @Value("${generator.rooms:1000}") int rooms,
+            @Value("${generator.messages:1000000}") long messages,
+            @Value("${generator.memberships-per-user:5}") double membershipsPerUser,
+            @Value("${generator.room-zipf-exponent:1.1}") double roomExponent,
+            @Value("${generator.sender-zipf-exponent:0.8}") double senderExponent,
+            @Value("${generator.image-ratio:0.08}") double imageRatio,
+            @Value("${generator.image-only-ratio:0.5}") double imageOnlyRatio,
+            @Value("${generator.image-pool-size:64}") int imagePoolSize,
+            @Value("${generator.median-content-length:40}") int medianContentLength,
+            @Value("${generator.batch-size:2000}") int batchSize,
+            @Value("${generator.writer-threads:4}") int writerThreads,
+            @Value("${generator.end-time:2026-01-01T00:00:00}") String endTime,
+            @Value("${generator.days:90}") int days) {
+        return new SyntheticDataGenerator.Settings(seed, users, rooms, messages, membershipsPerUser, roomExponent,
+                senderExponent, imageRatio, imageOnlyRatio, imagePoolSize, medianContentLength, batchSize,
+                writerThreads, LocalDateTime.parse(endTime), days);
+    }
+
+    @Bean
+    public CommandLineRunner generateData(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            SyntheticDataGenerator.Settings settings, VersionStamps versionStamps,
+            @Value("${message.store:jpa}") String messageStore,
+            @Value("${file.upload-dir}") String uploadDir) {
+        return args -> {
+            if (!"jpa".equals(messageStore)) {
+                throw new IllegalArgumentException("The data generator writes the messages table; it needs message.store=jpa");
+            }
+            SyntheticDataGenerator generator = new SyntheticDataGenerator(jdbcTemplate, transactionManager,
+                    Paths.get(uploadDir), settings);
+            if (generator.isGenerated()) {
+                logger.info("Data of generator seed {} already exists, skipping generation", settings.seed());
+                return;
+            }
+            if (generator.hasPartialData()) {
+                throw new IllegalStateException("Data of generator seed " + settings.seed()
+                        + " is incomplete after an interrupted run; delete the database and start again");
+            }
+            logger.info("Generating {} users, {} rooms and {} messages from seed {}", settings.users(),
+                    settings.rooms(), settings.messages(), settings.seed());
+            generator.generate();
+            // Rows were written with JDBC batches; responses served meanwhile must not stay valid
+            versionStamps.invalidateAll();
+        };
+    }
+}
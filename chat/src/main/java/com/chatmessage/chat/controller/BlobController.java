@@ -0,0 +1,54 @@
+package com.chatmessage.chat.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.chatmessage.chat.service.PackFileStorageService;
+
+@RestController
+@RequestMapping("/blobs")
+@ConditionalOnProperty(name = "file.storage-type", havingValue = "pack")
+public class BlobController {
+
+    private final PackFileStorageService storageService;
+
+    public BlobController(PackFileStorageService storageService) {
+        this.storageService = storageService;
+    }
+
+    /**
+     * Endpoint to serve an uploaded image straight from its memory-mapped pack segment
+     */
+    @GetMapping("/{name}")
+    public ResponseEntity<StreamingResponseBody> getBlob(@PathVariable("name") String name) throws IOException {
+        ByteBuffer blob = storageService.readBlob(name);
+        if (blob == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        MediaType mediaType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        StreamingResponseBody body = outputStream -> {
+            WritableByteChannel channel = Channels.newChannel(outputStream);
+            while (blob.hasRemaining()) {
+                channel.write(blob);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .contentLength(blob.remaining())
+                .body(body);
+    }
+}
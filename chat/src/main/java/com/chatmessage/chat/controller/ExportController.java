@@ -0,0 +1,103 @@
+package com.chatmessage.chat.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.chatmessage.chat.service.MessageExportService;
+import com.chatmessage.chat.service.RoomService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+    private static final MediaType NDJSON = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+    private static final MediaType GZIP = new MediaType("application", "gzip");
+
+    private final MessageExportService exportService;
+    private final RoomService roomService;
+    private final ObjectMapper objectMapper;
+
+    public ExportController(MessageExportService exportService, RoomService roomService, ObjectMapper objectMapper) {
+        this.exportService = exportService;
+        this.roomService = roomService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Endpoint to export a room's history as newline-delimited JSON. Pass the
+     * last received sequence as {@code afterSequence} to resume.
+     */
+    @GetMapping("/rooms/{roomId}/messages")
+    public ResponseEntity<StreamingResponseBody> exportRoomMessages(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @PathVariable("roomId") String roomId,
+            @RequestParam(value = "afterSequence", defaultValue = "0") long afterSequence,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+
+        try {
+            roomService.getRoomById(userId, roomId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON)
+                    .body(outputStream -> objectMapper.writeValue(outputStream, Map.of("error", e.getMessage())));
+        }
+
+        logger.info("Exporting messages of room {} after sequence {} for user {}", roomId, afterSequence, userId);
+        return attachment("room-" + roomId, gzip, outputStream -> {
+            try (OutputStream out = openBody(outputStream, gzip)) {
+                long written = exportService.exportRoom(roomId, afterSequence, out);
+                logger.info("Exported {} messages of room {}", written, roomId);
+            }
+        });
+    }
+
+    /**
+     * Debug endpoint to export every message in the system as newline-delimited
+     * JSON, ordered by room and sequence. Pass the last received room id and
+     * sequence as {@code afterRoomId} and {@code afterSequence} to resume.
+     */
+    @GetMapping("/messages")
+    public ResponseEntity<StreamingResponseBody> exportAllMessages(
+            @RequestParam(value = "afterRoomId", required = false) String afterRoomId,
+            @RequestParam(value = "afterSequence", defaultValue = "0") long afterSequence,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+
+        logger.info("Exporting all messages after room {} sequence {}", afterRoomId, afterSequence);
+        return attachment("messages", gzip, outputStream -> {
+            try (OutputStream out = openBody(outputStream, gzip)) {
+                long written = exportService.exportAll(afterRoomId, afterSequence, out);
+                logger.info("Exported {} messages", written);
+            }
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String filename, boolean gzip, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename + (gzip ? ".ndjson.gz" : ".ndjson")).build().toString())
+                .body(body);
+    }
+
+    private static OutputStream openBody(OutputStream outputStream, boolean gzip) throws IOException {
+        return gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+    }
+}
@@ -0,0 +1,80 @@
+package com.chatmessage.chat.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.chatmessage.chat.service.FlightRecorderService;
+
+@RestController
+@RequestMapping("/api/flight-recorder")
+public class FlightRecorderController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderController.class);
+    private final FlightRecorderService flightRecorder;
+
+    public FlightRecorderController(FlightRecorderService flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+
+    /**
+     * Admin endpoint to get the state of the continuous recording and the
+     * saved dumps, newest first
+     */
+    @GetMapping
+    public ResponseEntity<FlightRecorderService.Status> getStatus() throws IOException {
+        return ResponseEntity.ok(flightRecorder.getStatus());
+    }
+
+    /**
+     * Admin endpoint to save the last {@code minutes} of the recording and
+     * download it as a {@code .jfr} file for JDK Mission Control
+     */
+    @PostMapping("/dumps")
+    public ResponseEntity<?> dump(@RequestParam(value = "minutes", defaultValue = "5") long minutes) throws IOException {
+        try {
+            FlightRecorderService.Dump dump = flightRecorder.dump(minutes, "manual");
+            logger.info("Saved flight recording {} ({} bytes)", dump.name(), dump.bytes());
+            return download(flightRecorder.getDumpFile(dump.name()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Admin endpoint to download a saved dump, e.g. one taken after an SLO breach
+     */
+    @GetMapping("/dumps/{name}")
+    public ResponseEntity<?> getDump(@PathVariable("name") String name) throws IOException {
+        try {
+            return download(flightRecorder.getDumpFile(name));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static ResponseEntity<FileSystemResource> download(Path file) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+}
@@ -0,0 +1,63 @@
+package com.chatmessage.chat.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.chatmessage.chat.service.MessageImportService;
+import com.chatmessage.chat.service.MessageImportService.ImportResult;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportController.class);
+
+    private final MessageImportService importService;
+
+    public ImportController(MessageImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Endpoint to bulk-import messages into existing rooms from a
+     * newline-delimited JSON body, one message per line. The body is read as
+     * a stream, so it can be arbitrarily large.
+     *
+     * @param gzip Whether the body is gzip-compressed
+     * @return The number of imported and rejected lines with per-line errors
+     */
+    @PostMapping("/messages")
+    public ResponseEntity<?> importMessages(
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+
+        try (InputStream in = gzip ? new GZIPInputStream(request.getInputStream(), 64 * 1024) : request.getInputStream()) {
+            long start = System.nanoTime();
+            ImportResult result = importService.importMessages(in);
+            logger.info("Bulk import finished in {} ms: {} imported, {} rejected",
+                    (System.nanoTime() - start) / 1_000_000, result.getImported(), result.getFailed());
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            logger.error("Failed to read import body", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error",
+                    "Failed to read import body: " + e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Bulk import aborted", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error",
+                    "Import aborted: " + e.getMessage()));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -16,22 +17,35 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.RoomChanges;
+import com.chatmessage.chat.service.ChatEventLog;
 import com.chatmessage.chat.service.MessageService;
+import com.chatmessage.chat.service.MessageTrace;
+import com.chatmessage.chat.service.MessageTracer;
 
 @RestController
 @RequestMapping("/api")
 public class MessageController {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageController.class);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_LIMIT = 100;
     private final MessageService messageService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final MessageTracer messageTracer;
+    private final ChatEventLog eventLog;
 
-    public MessageController(MessageService messageService, SimpMessagingTemplate messagingTemplate) {
+    public MessageController(MessageService messageService, SimpMessagingTemplate messagingTemplate,
+            MessageTracer messageTracer, ChatEventLog eventLog) {
         this.messageService = messageService;
         this.messagingTemplate = messagingTemplate;
+        this.messageTracer = messageTracer;
+        this.eventLog = eventLog;
     }
 
     /**
@@ -63,12 +77,11 @@ public class MessageController {
             )
             @RequestPart(value = "image", required = false) MultipartFile image) {
 
+        MessageTrace trace = new MessageTrace();
         try {
-            logger.info("Received message request - userId: {}, roomId: {}, content: {}, image: {}",
-                    userId, roomId, content, (image != null ? image.getOriginalFilename() : "null"));
-
             if ((content == null || content.trim().isEmpty()) && (image == null || image.isEmpty())) {
-                logger.warn("Both content and image are empty");
+                eventLog.log("message.rejected", "userId", userId, "roomId", roomId,
+                        "reason", "Both content and image are empty");
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error",
                         "Either message content or image must be provided"));
             }
@@ -76,17 +89,25 @@ public class MessageController {
             // Use empty string if content is null
             String messageContent = (content != null) ? content : "";
 
-            logger.info("Sending message from user {} to room {}", userId, roomId);
-
-            Message message = messageService.sendMessage(userId, roomId, messageContent, image);
+            Message message = messageService.sendMessage(userId, roomId, messageContent, image, trace);
 
             // Broadcast the new message to all subscribers of this room via WebSocket
-            messagingTemplate.convertAndSend("/topic/room/" + roomId, message);
-            logger.info("Message broadcasted to WebSocket subscribers for room {}", roomId);
+            Map<String, Object> headers = messageTracer.stompHeaders(trace);
+            if (headers.isEmpty()) {
+                messagingTemplate.convertAndSend("/topic/room/" + roomId, message);
+            } else {
+                messagingTemplate.convertAndSend("/topic/room/" + roomId, message, headers);
+            }
+            trace.markBroadcast();
+            messageTracer.complete(message, trace);
+            eventLog.log("message.sent", "userId", userId, "roomId", roomId, "messageId", message.getMessageId(),
+                    "sequence", message.getSequence(), "content", messageContent,
+                    "image", image != null ? image.getOriginalFilename() : null,
+                    "totalUs", trace.totalNanos() / 1000);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(message);
         } catch (IllegalArgumentException e) {
-            logger.error("Bad request: {}", e.getMessage());
+            eventLog.log("message.rejected", "userId", userId, "roomId", roomId, "reason", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             logger.error("Failed to process image: {}", e.getMessage());
@@ -98,18 +119,98 @@ public class MessageController {
     }
 
     /**
-     * Endpoint to retrieve all messages for a specific room
+     * Endpoint to retrieve messages for a specific room. Without paging
+     * parameters the full history is returned; with {@code afterSequence}
+     * and/or {@code limit} one page in sequence order is returned. With
+     * {@code includeSenders} the messages are wrapped together with a map of
+     * their senders' profiles. Responses carry a weak ETag of the room's
+     * history, and of the users collection with {@code includeSenders}; a matching {@code If-None-Match} gets a 304 without reading
+     * any message.
      */
     @GetMapping("/rooms/{roomId}/messages")
     public ResponseEntity<?> getRoomMessages(
             @RequestParam(value = "userId", defaultValue = "default-user") String userId,
-            @PathVariable("roomId") String roomId) {
+            @PathVariable("roomId") String roomId,
+            @RequestParam(value = "afterSequence", required = false) Long afterSequence,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "includeSenders", defaultValue = "false") boolean includeSenders,
+            WebRequest request) {
+
+        try {
+            String eTag = messageService.getHistoryETag(roomId, includeSenders);
+            // Only conditional requests pay for a separate membership check
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && messageService.isMember(userId, roomId)
+                    && request.checkNotModified(eTag)) {
+                return null;
+            }
+            List<Message> messages;
+            if (afterSequence == null && limit == null) {
+                messages = messageService.getMessagesByRoomId(userId, roomId);
+            } else {
+                int pageSize = Math.min(Math.max(limit != null ? limit : DEFAULT_PAGE_SIZE, 1), MAX_PAGE_SIZE);
+                messages = messageService.getMessagesByRoomId(userId, roomId,
+                        afterSequence != null ? afterSequence : 0, pageSize);
+            }
+            eventLog.log("history.read", "userId", userId, "roomId", roomId, "afterSequence", afterSequence,
+                    "rows", messages.size());
+            if (includeSenders) {
+                return ResponseEntity.ok().eTag(eTag).body(messageService.withSenders(messages));
+            }
+            return ResponseEntity.ok().eTag(eTag).body(messages);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint for polling clients to retrieve what changed in a room since
+     * a position: the new messages, the sequence through which older
+     * messages were deleted, and the position to poll from next. A reset
+     * response means the client must reload the room's history.
+     *
+     * @param since Position of the previous response, or the last sequence the client has
+     */
+    @GetMapping("/rooms/{roomId}/changes")
+    public ResponseEntity<?> getRoomChanges(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @PathVariable("roomId") String roomId,
+            @RequestParam("since") String since,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
 
         try {
-            logger.info("Getting messages for room {} for user {}", roomId, userId);
+            int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+            RoomChanges changes = messageService.getChanges(userId, roomId, since, pageSize);
+            eventLog.log("changes.read", "userId", userId, "roomId", roomId, "since", since,
+                    "rows", changes.messages().size());
+            return ResponseEntity.ok(changes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
 
-            List<Message> messages = messageService.getMessagesByRoomId(userId, roomId);
-            return ResponseEntity.ok(messages);
+    /**
+     * Endpoint to search message content in the rooms the user is a member
+     * of. All terms of the query must match; results are newest first.
+     */
+    @GetMapping("/messages/search")
+    public ResponseEntity<?> searchMessages(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @RequestParam("q") String query,
+            @RequestParam(value = "roomId", required = false) String roomId,
+            @RequestParam(value = "senderId", required = false) String senderId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+
+        try {
+            int maxResults = Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+            List<Message> results = messageService.searchMessages(userId, query, roomId, senderId, maxResults);
+            // The query is user text, so it is logged like message content
+            eventLog.log("messages.searched", "userId", userId, "roomId", roomId, "content", query,
+                    "results", results.size());
+            return ResponseEntity.ok(results);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
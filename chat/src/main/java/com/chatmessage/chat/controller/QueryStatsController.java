@@ -0,0 +1,40 @@
+package com.chatmessage.chat.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.chatmessage.chat.service.QueryStats;
+
+@RestController
+@RequestMapping("/api/query-stats")
+public class QueryStatsController {
+
+    private static final int MAX_TOP = 100;
+    private final QueryStats queryStats;
+
+    public QueryStatsController(QueryStats queryStats) {
+        this.queryStats = queryStats;
+    }
+
+    /**
+     * Endpoint to get the top statements by total time, the top endpoints by
+     * statements per request, N+1 suspects and the latest slow queries
+     */
+    @GetMapping
+    public ResponseEntity<QueryStats.Report> getReport(@RequestParam(value = "top", defaultValue = "20") int top) {
+        return ResponseEntity.ok(queryStats.getReport(Math.min(Math.max(top, 1), MAX_TOP)));
+    }
+
+    /**
+     * Endpoint to clear the collected statistics
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        queryStats.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.chatmessage.chat.controller;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.chatmessage.chat.service.ReadReceiptService;
+
+@RestController
+@RequestMapping("/api/rooms")
+public class ReadReceiptController {
+
+    private final ReadReceiptService readReceiptService;
+
+    public ReadReceiptController(ReadReceiptService readReceiptService) {
+        this.readReceiptService = readReceiptService;
+    }
+
+    /**
+     * Endpoint to mark a room as read up to and including a message sequence
+     */
+    @PostMapping("/{roomId}/read")
+    public ResponseEntity<?> markRead(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @PathVariable("roomId") String roomId,
+            @RequestParam("sequence") long sequence) {
+
+        try {
+            long lastReadSequence = readReceiptService.markRead(userId, roomId, sequence);
+            return ResponseEntity.ok(Map.of("roomId", roomId, "lastReadSequence", lastReadSequence));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint to get the unread message count of every room the user is a
+     * member of
+     */
+    @GetMapping("/unread-counts")
+    public ResponseEntity<?> getUnreadCounts(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId) {
+        return ResponseEntity.ok(readReceiptService.getUnreadCounts(userId));
+    }
+}
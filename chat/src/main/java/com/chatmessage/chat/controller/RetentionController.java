@@ -0,0 +1,74 @@
+package com.chatmessage.chat.controller;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.chatmessage.chat.service.RetentionPolicyService;
+
+@RestController
+@RequestMapping("/api/rooms")
+public class RetentionController {
+
+    private final RetentionPolicyService retentionPolicyService;
+
+    public RetentionController(RetentionPolicyService retentionPolicyService) {
+        this.retentionPolicyService = retentionPolicyService;
+    }
+
+    /**
+     * Endpoint to get the retention limits in force for a room
+     */
+    @GetMapping("/{roomId}/retention")
+    public ResponseEntity<?> getRetention(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @PathVariable("roomId") String roomId) {
+
+        try {
+            return ResponseEntity.ok(retentionPolicyService.getRetention(userId, roomId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint to set a room's own retention limits; an omitted limit falls
+     * back to the global default
+     */
+    @PutMapping("/{roomId}/retention")
+    public ResponseEntity<?> setRetention(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @PathVariable("roomId") String roomId,
+            @RequestParam(value = "maxAgeDays", required = false) Integer maxAgeDays,
+            @RequestParam(value = "maxMessages", required = false) Long maxMessages) {
+
+        try {
+            return ResponseEntity.ok(retentionPolicyService.setRetention(userId, roomId, maxAgeDays, maxMessages));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint to remove a room's own retention limits
+     */
+    @DeleteMapping("/{roomId}/retention")
+    public ResponseEntity<?> deleteRetention(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @PathVariable("roomId") String roomId) {
+
+        try {
+            return ResponseEntity.ok(retentionPolicyService.deleteRetention(userId, roomId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.chatmessage.chat.controller;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,19 +17,45 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.chatmessage.chat.model.InboxEntry;
 import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.model.RoomSummary;
+import com.chatmessage.chat.service.ChatEventLog;
+import com.chatmessage.chat.service.RoomActivityService;
 import com.chatmessage.chat.service.RoomService;
+import com.chatmessage.chat.service.VersionStamps;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Room endpoints. Rooms and their members do not change after creation, so
+ * the room GETs carry a weak ETag of the rooms collection; for a member, a
+ * matching {@code If-None-Match} gets a 304 without loading the room.
+ */
 @RestController
 @RequestMapping("/api/rooms")
 public class RoomController {
 
     private static final Logger logger = LoggerFactory.getLogger(RoomController.class);
+    private static final int MAX_INBOX_PAGE_SIZE = 100;
+    private static final int MAX_MEMBERS_PAGE_SIZE = 1000;
     private final RoomService roomService;
+    private final RoomActivityService roomActivityService;
+    private final ObjectMapper objectMapper;
+    private final ChatEventLog eventLog;
+    private final VersionStamps versionStamps;
 
-    public RoomController(RoomService roomService) {
+    public RoomController(RoomService roomService, RoomActivityService roomActivityService, ObjectMapper objectMapper,
+            ChatEventLog eventLog, VersionStamps versionStamps) {
         this.roomService = roomService;
+        this.roomActivityService = roomActivityService;
+        this.objectMapper = objectMapper;
+        this.eventLog = eventLog;
+        this.versionStamps = versionStamps;
     }
 
     /**
@@ -57,28 +86,35 @@ public class RoomController {
     @GetMapping("/{roomId}")
     public ResponseEntity<?> getRoom(
             @RequestParam(value = "userId", defaultValue = "default-user") String userId,
-            @PathVariable("roomId") String roomId) {
+            @PathVariable("roomId") String roomId,
+            WebRequest request) {
 
+        String eTag = versionStamps.collectionETag(VersionStamps.Collection.ROOMS);
+        if (isNotModified(userId, roomId, eTag, request)) {
+            return null;
+        }
         try {
             Room room = roomService.getRoomById(userId, roomId);
-            return ResponseEntity.ok(room);
+            return ResponseEntity.ok().eTag(eTag).body(room);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
         }
     }
 
     /**
-     * Endpoint to get all rooms for a user
+     * Endpoint to get all rooms for a user, without member lists
      */
     @GetMapping
     public ResponseEntity<?> getUserRooms(
-            @RequestParam(value = "userId", defaultValue = "default-user") String userId) {
-
-        logger.info("Received request to get user rooms for userId: {}", userId);
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            WebRequest request) {
 
+        if (request.checkNotModified(versionStamps.collectionETag(VersionStamps.Collection.ROOMS))) {
+            return null;
+        }
         try {
-            List<Room> rooms = roomService.getRoomsByUserId(userId);
-            logger.info("Found {} rooms for user {}", rooms.size(), userId);
+            List<RoomSummary> rooms = roomService.getRoomsByUserId(userId);
+            eventLog.log("rooms.listed", "userId", userId, "rooms", rooms.size());
             return ResponseEntity.ok(rooms);
         } catch (Exception e) {
             logger.error("Error getting rooms for user {}: {}", userId, e.getMessage());
@@ -87,14 +123,62 @@ public class RoomController {
     }
 
     /**
-     * Debug endpoint to get all rooms in the system
+     * Endpoint to get one page of a room's member ids
+     */
+    @GetMapping("/{roomId}/members")
+    public ResponseEntity<?> getRoomMembers(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @PathVariable("roomId") String roomId,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "100") int size,
+            WebRequest request) {
+
+        String eTag = versionStamps.collectionETag(VersionStamps.Collection.ROOMS);
+        if (isNotModified(userId, roomId, eTag, request)) {
+            return null;
+        }
+        try {
+            List<String> members = roomService.getRoomMembers(userId, roomId, Math.max(page, 0),
+                    Math.min(Math.max(size, 1), MAX_MEMBERS_PAGE_SIZE));
+            return ResponseEntity.ok().eTag(eTag).body(members);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint to get a user's inbox: their rooms, most recently active
+     * first, each with its member count, latest message preview and unread
+     * count
+     */
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(
+            @RequestParam(value = "userId", defaultValue = "default-user") String userId,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+
+        try {
+            List<InboxEntry> inbox = roomActivityService.getInbox(userId, Math.max(page, 0),
+                    Math.min(Math.max(size, 1), MAX_INBOX_PAGE_SIZE));
+            return ResponseEntity.ok(inbox);
+        } catch (Exception e) {
+            logger.error("Error getting inbox for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Debug endpoint to get all rooms in the system, without member lists
      */
     @GetMapping("/all")
-    public ResponseEntity<?> getAllRooms() {
+    public ResponseEntity<?> getAllRooms(WebRequest request) {
+        if (request.checkNotModified(versionStamps.collectionETag(VersionStamps.Collection.ROOMS))) {
+            return null;
+        }
         logger.info("Received request to get all rooms");
 
         try {
-            List<Room> rooms = roomService.getAllRooms();
+            List<RoomSummary> rooms = roomService.getAllRooms();
             logger.info("Found {} total rooms in the system", rooms.size());
             return ResponseEntity.ok(rooms);
         } catch (Exception e) {
@@ -104,34 +188,48 @@ public class RoomController {
     }
 
     /**
-     * Debug endpoint to get membership summary
+     * Debug endpoint to get membership summary. The JSON is written while the
+     * rooms are read, so only one room's members are held in memory.
      */
     @GetMapping("/membership-summary")
-    public ResponseEntity<?> getMembershipSummary() {
+    public void getMembershipSummary(HttpServletResponse response) throws IOException {
         logger.info("Received request to get membership summary");
 
-        try {
-            List<Room> rooms = roomService.getAllRooms();
-            Map<String, Object> summary = new HashMap<>();
-
-            // Create room summary
-            List<Map<String, Object>> roomSummary = new java.util.ArrayList<>();
-            for (Room room : rooms) {
-                Map<String, Object> roomInfo = new HashMap<>();
-                roomInfo.put("roomId", room.getRoomId());
-                roomInfo.put("roomName", room.getRoomName());
-                roomInfo.put("memberCount", room.getMembers().size());
-                roomInfo.put("members", room.getMembers());
-                roomSummary.add(roomInfo);
-            }
-
-            summary.put("rooms", roomSummary);
-            summary.put("totalRooms", rooms.size());
-
-            return ResponseEntity.ok(summary);
-        } catch (Exception e) {
-            logger.error("Error getting membership summary: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("rooms");
+            int[] totalRooms = {0};
+            roomService.streamRoomMembers(room -> {
+                try {
+                    json.writeStartObject();
+                    json.writeStringField("roomId", room.roomId());
+                    json.writeStringField("roomName", room.roomName());
+                    json.writeNumberField("memberCount", room.members().size());
+                    json.writeArrayFieldStart("members");
+                    for (String member : room.members()) {
+                        json.writeString(member);
+                    }
+                    json.writeEndArray();
+                    json.writeEndObject();
+                    totalRooms[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+            json.writeNumberField("totalRooms", totalRooms[0]);
+            json.writeEndObject();
         }
     }
+
+    /**
+     * Non-members are never answered with a 304, so they get the same errors
+     * as without a validator. Only conditional requests pay for the extra
+     * membership check.
+     */
+    private boolean isNotModified(String userId, String roomId, String eTag, WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && roomService.isUserInRoom(userId, roomId)
+                && request.checkNotModified(eTag);
+    }
 }
@@ -10,22 +10,33 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.chatmessage.chat.model.User;
 import com.chatmessage.chat.service.UserService;
+import com.chatmessage.chat.service.VersionStamps;
 
+/**
+ * User endpoints. The GETs carry a weak ETag of the users collection, and a
+ * matching {@code If-None-Match} gets a 304 without a lookup.
+ */
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final int MAX_LOOKUP_IDS = 500;
     private final UserService userService;
+    private final VersionStamps versionStamps;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, VersionStamps versionStamps) {
         this.userService = userService;
+        this.versionStamps = versionStamps;
     }
 
     /**
@@ -42,11 +53,46 @@ public class UserController {
         }
     }
 
+    /**
+     * Endpoint to create many users at once from a JSON array of usernames.
+     * Names that are empty, repeated or taken are reported without failing
+     * the others.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createUsers(@RequestBody List<String> usernames) {
+        if (usernames.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "At most " + MAX_BATCH_SIZE + " usernames per request"));
+        }
+        logger.info("Creating {} users", usernames.size());
+        UserService.BatchResult result = userService.createUsers(usernames);
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
+    /**
+     * Endpoint to get many users by ID in one request, e.g. to resolve the
+     * senders of a page of messages. Unknown IDs are left out.
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<?> getUsers(@RequestParam("ids") List<String> ids, WebRequest request) {
+        if (ids.size() > MAX_LOOKUP_IDS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "At most " + MAX_LOOKUP_IDS + " ids per request"));
+        }
+        if (request.checkNotModified(versionStamps.collectionETag(VersionStamps.Collection.USERS))) {
+            return null;
+        }
+        return ResponseEntity.ok(userService.getUsersByIds(ids).values());
+    }
+
     /**
      * Endpoint to get a specific user by ID
      */
     @GetMapping("/{userId}")
-    public ResponseEntity<?> getUser(@PathVariable("userId") String userId) {
+    public ResponseEntity<?> getUser(@PathVariable("userId") String userId, WebRequest request) {
+        if (request.checkNotModified(versionStamps.collectionETag(VersionStamps.Collection.USERS))) {
+            return null;
+        }
         try {
             logger.info("Getting user with ID: {}", userId);
             User user = userService.getUserById(userId);
@@ -60,7 +106,10 @@ public class UserController {
      * Endpoint to get all users
      */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
+    public ResponseEntity<List<User>> getAllUsers(WebRequest request) {
+        if (request.checkNotModified(versionStamps.collectionETag(VersionStamps.Collection.USERS))) {
+            return null;
+        }
         logger.info("Getting all users");
         List<User> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
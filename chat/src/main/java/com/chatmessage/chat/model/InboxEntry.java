@@ -0,0 +1,26 @@
+package com.chatmessage.chat.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One room in a user's inbox. The last message fields are null for a room
+ * without messages.
+ */
+public record InboxEntry(
+        String roomId,
+        String roomName,
+        int memberCount,
+        String lastSenderId,
+        String lastMessagePreview,
+        LocalDateTime lastMessageAt,
+        long lastSequence,
+        long unreadCount) {
+
+    /**
+     * @return A copy with the unread count computed from the user's read position
+     */
+    public InboxEntry withLastReadSequence(long lastReadSequence) {
+        return new InboxEntry(roomId, roomName, memberCount, lastSenderId, lastMessagePreview, lastMessageAt,
+                lastSequence, Math.max(0, lastSequence - lastReadSequence));
+    }
+}
@@ -5,10 +5,14 @@ import java.time.LocalDateTime;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+    @Index(name = "idx_messages_room_sequence", columnList = "roomId, sequence"),
+    @Index(name = "idx_messages_timestamp", columnList = "timestamp")
+})
 public class Message {
 
     @Id
@@ -28,6 +32,9 @@ public class Message {
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
+    // Per-room position, assigned in send order; null only for rows written before it existed
+    private Long sequence;
+
     public Message() {
         this.timestamp = LocalDateTime.now();
     }
@@ -89,4 +96,12 @@ public class Message {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
 }
@@ -0,0 +1,14 @@
+package com.chatmessage.chat.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of messages together with the profiles of their senders, so a
+ * client can render the page without looking up each sender
+ *
+ * @param senders Each distinct sender of the page by user id; senders
+ * without an account are left out
+ */
+public record MessageHistory(List<Message> messages, Map<String, User> senders) {
+}
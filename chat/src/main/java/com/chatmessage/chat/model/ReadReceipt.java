@@ -0,0 +1,74 @@
+package com.chatmessage.chat.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * How far a user has read in a room: the sequence of the last message they
+ * have seen
+ */
+@Entity
+@Table(name = "read_receipts")
+@IdClass(ReadReceiptId.class)
+public class ReadReceipt {
+
+    @Id
+    private String userId;
+
+    @Id
+    private String roomId;
+
+    @Column(nullable = false)
+    private long lastReadSequence;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public ReadReceipt() {
+    }
+
+    public ReadReceipt(String userId, String roomId, long lastReadSequence) {
+        this.userId = userId;
+        this.roomId = roomId;
+        this.lastReadSequence = lastReadSequence;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public long getLastReadSequence() {
+        return lastReadSequence;
+    }
+
+    public void setLastReadSequence(long lastReadSequence) {
+        this.lastReadSequence = lastReadSequence;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
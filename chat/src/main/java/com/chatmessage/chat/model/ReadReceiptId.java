@@ -0,0 +1,45 @@
+package com.chatmessage.chat.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Composite key of {@link ReadReceipt}
+ */
+public class ReadReceiptId implements Serializable {
+
+    private String userId;
+    private String roomId;
+
+    public ReadReceiptId() {
+    }
+
+    public ReadReceiptId(String userId, String roomId) {
+        this.userId = userId;
+        this.roomId = roomId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ReadReceiptId other)) {
+            return false;
+        }
+        return userId.equals(other.userId) && roomId.equals(other.roomId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, roomId);
+    }
+}
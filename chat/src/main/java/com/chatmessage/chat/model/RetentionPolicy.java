@@ -0,0 +1,57 @@
+package com.chatmessage.chat.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Retention limits of one room, overriding the global defaults. A null
+ * limit falls back to the global value.
+ */
+@Entity
+@Table(name = "retention_policies")
+public class RetentionPolicy {
+
+    @Id
+    private String roomId;
+
+    // Messages older than this many days are purged
+    private Integer maxAgeDays;
+
+    // Only the newest this many messages are kept
+    private Long maxMessages;
+
+    public RetentionPolicy() {
+    }
+
+    public RetentionPolicy(String roomId, Integer maxAgeDays, Long maxMessages) {
+        this.roomId = roomId;
+        this.maxAgeDays = maxAgeDays;
+        this.maxMessages = maxMessages;
+    }
+
+    // Getters and setters
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public Integer getMaxAgeDays() {
+        return maxAgeDays;
+    }
+
+    public void setMaxAgeDays(Integer maxAgeDays) {
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    public Long getMaxMessages() {
+        return maxMessages;
+    }
+
+    public void setMaxMessages(Long maxMessages) {
+        this.maxMessages = maxMessages;
+    }
+}
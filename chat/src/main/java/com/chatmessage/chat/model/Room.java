@@ -8,6 +8,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Table;
 
@@ -22,7 +23,8 @@ public class Room {
     private String roomName;
 
     @ElementCollection
-    @CollectionTable(name = "room_members", joinColumns = @JoinColumn(name = "room_id"))
+    @CollectionTable(name = "room_members", joinColumns = @JoinColumn(name = "room_id"),
+            indexes = @Index(name = "idx_room_members_user", columnList = "user_id"))
     @Column(name = "user_id")
     private List<String> members = new ArrayList<>();
 
@@ -0,0 +1,112 @@
+package com.chatmessage.chat.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Summary of the latest message in a room, maintained as messages are
+ * stored so the inbox can be listed without touching the messages table
+ */
+@Entity
+@Table(name = "room_activity", indexes = {
+    @Index(name = "idx_room_activity_last_message_at", columnList = "lastMessageAt")
+})
+public class RoomActivity {
+
+    public static final int PREVIEW_LENGTH = 100;
+
+    @Id
+    private String roomId;
+
+    @Column(nullable = false)
+    private String lastMessageId;
+
+    @Column(nullable = false)
+    private String lastSenderId;
+
+    @Column(length = PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    @Column(nullable = false)
+    private LocalDateTime lastMessageAt;
+
+    @Column(nullable = false)
+    private long lastSequence;
+
+    public RoomActivity() {
+    }
+
+    public RoomActivity(Message message) {
+        this.roomId = message.getRoomId();
+        this.lastMessageId = message.getMessageId();
+        this.lastSenderId = message.getSenderId();
+        this.lastMessagePreview = preview(message);
+        this.lastMessageAt = message.getTimestamp();
+        this.lastSequence = message.getSequence();
+    }
+
+    /**
+     * The start of the message's text, or "[image]" for an image-only message
+     */
+    public static String preview(Message message) {
+        String content = message.getContent();
+        if (content == null || content.isBlank()) {
+            return message.getImageUrl() != null ? "[image]" : "";
+        }
+        return content.length() <= PREVIEW_LENGTH ? content : content.substring(0, PREVIEW_LENGTH - 3) + "...";
+    }
+
+    // Getters and setters
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(String lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public String getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public void setLastSenderId(String lastSenderId) {
+        this.lastSenderId = lastSenderId;
+    }
+
+    public String getLastMessagePreview() {
+        return lastMessagePreview;
+    }
+
+    public void setLastMessagePreview(String lastMessagePreview) {
+        this.lastMessagePreview = lastMessagePreview;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public void setLastMessageAt(LocalDateTime lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
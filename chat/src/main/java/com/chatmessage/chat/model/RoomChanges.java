@@ -0,0 +1,19 @@
+package com.chatmessage.chat.model;
+
+import java.util.List;
+
+/**
+ * What changed in a room's history after a client's position, for clients
+ * that poll instead of subscribing
+ *
+ * @param position Token to pass as {@code since} in the next request
+ * @param messages New messages in sequence order
+ * @param deletedThroughSequence Messages with this sequence or lower have
+ * been deleted by retention; 0 if no deletion is known
+ * @param reset The position was issued before a server restart or is ahead
+ * of the room: reload the full history and continue from {@code position}
+ * @param hasMore More messages are ready; request again without waiting
+ */
+public record RoomChanges(String position, List<Message> messages, long deletedThroughSequence, boolean reset,
+        boolean hasMore) {
+}
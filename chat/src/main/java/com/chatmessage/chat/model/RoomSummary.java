@@ -0,0 +1,7 @@
+package com.chatmessage.chat.model;
+
+/**
+ * A room without its member list, for listings
+ */
+public record RoomSummary(String roomId, String roomName, int memberCount) {
+}
@@ -1,7 +1,9 @@
 package com.chatmessage.chat.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,4 +18,17 @@ public interface MessageRepository extends JpaRepository<Message, String> {
     List<Message> findByRoomIdOrderByTimestamp(@Param("roomId") String roomId);
 
     List<Message> findByRoomId(String roomId);
+
+    // Legacy rows without a sequence predate every sequenced one and sort first
+    @Query("SELECT m FROM Message m WHERE m.roomId = :roomId ORDER BY m.sequence ASC NULLS FIRST, m.timestamp ASC")
+    List<Message> findByRoomIdOrderBySequence(@Param("roomId") String roomId);
+
+    List<Message> findByRoomIdAndSequenceGreaterThanOrderBySequenceAsc(String roomId, long sequence, Pageable pageable);
+
+    List<Message> findByRoomIdAndSequenceIsNullOrderByTimestampAsc(String roomId);
+
+    List<Message> findByRoomIdAndSequenceIn(String roomId, Collection<Long> sequences);
+
+    @Query("SELECT MAX(m.sequence) FROM Message m WHERE m.roomId = :roomId")
+    Long findMaxSequenceByRoomId(@Param("roomId") String roomId);
 }
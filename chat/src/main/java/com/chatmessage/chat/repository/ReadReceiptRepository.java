@@ -0,0 +1,15 @@
+package com.chatmessage.chat.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.chatmessage.chat.model.ReadReceipt;
+import com.chatmessage.chat.model.ReadReceiptId;
+
+@Repository
+public interface ReadReceiptRepository extends JpaRepository<ReadReceipt, ReadReceiptId> {
+
+    List<ReadReceipt> findByUserId(String userId);
+}
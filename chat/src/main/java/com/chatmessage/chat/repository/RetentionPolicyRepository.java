@@ -0,0 +1,10 @@
+package com.chatmessage.chat.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.chatmessage.chat.model.RetentionPolicy;
+
+@Repository
+public interface RetentionPolicyRepository extends JpaRepository<RetentionPolicy, String> {
+}
@@ -0,0 +1,45 @@
+package com.chatmessage.chat.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.chatmessage.chat.model.InboxEntry;
+import com.chatmessage.chat.model.RoomActivity;
+
+@Repository
+public interface RoomActivityRepository extends JpaRepository<RoomActivity, String> {
+
+    /**
+     * The rooms of a user, most recently active first. Unread counts are
+     * returned as if nothing had been read.
+     */
+    @Query("SELECT new com.chatmessage.chat.model.InboxEntry(r.roomId, r.roomName, SIZE(r.members),"
+            + " a.lastSenderId, a.lastMessagePreview, a.lastMessageAt,"
+            + " COALESCE(a.lastSequence, 0L), COALESCE(a.lastSequence, 0L))"
+            + " FROM Room r JOIN r.members m LEFT JOIN RoomActivity a ON a.roomId = r.roomId"
+            + " WHERE m = :userId"
+            + " ORDER BY a.lastMessageAt DESC NULLS LAST, r.roomId ASC")
+    List<InboxEntry> findInbox(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Replace the summary unless it already describes a later message
+     *
+     * @return The number of updated rows; 0 if there is no summary yet or it is newer
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RoomActivity a SET a.lastMessageId = :messageId, a.lastSenderId = :senderId,"
+            + " a.lastMessagePreview = :preview, a.lastMessageAt = :timestamp, a.lastSequence = :sequence"
+            + " WHERE a.roomId = :roomId AND a.lastSequence < :sequence")
+    int updateIfNewer(@Param("roomId") String roomId, @Param("messageId") String messageId,
+            @Param("senderId") String senderId, @Param("preview") String preview,
+            @Param("timestamp") LocalDateTime timestamp, @Param("sequence") long sequence);
+}
@@ -2,16 +2,35 @@ package com.chatmessage.chat.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.model.RoomSummary;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, String> {
 
     @Query("SELECT r FROM Room r JOIN r.members m WHERE m = :userId")
     List<Room> findByMembersContaining(@Param("userId") String userId);
+
+    @Query("SELECT new com.chatmessage.chat.model.RoomSummary(r.roomId, r.roomName, SIZE(r.members))"
+            + " FROM Room r JOIN r.members m WHERE m = :userId ORDER BY r.roomName, r.roomId")
+    List<RoomSummary> findSummariesByMember(@Param("userId") String userId);
+
+    @Query("SELECT new com.chatmessage.chat.model.RoomSummary(r.roomId, r.roomName, SIZE(r.members))"
+            + " FROM Room r ORDER BY r.roomName, r.roomId")
+    List<RoomSummary> findAllSummaries();
+
+    @Query("SELECT r.roomId FROM Room r JOIN r.members m WHERE m = :userId")
+    List<String> findRoomIdsByMember(@Param("userId") String userId);
+
+    @Query("SELECT m FROM Room r JOIN r.members m WHERE r.roomId = :roomId ORDER BY m")
+    List<String> findMemberIds(@Param("roomId") String roomId, Pageable pageable);
+
+    @Query("SELECT COUNT(r) > 0 FROM Room r JOIN r.members m WHERE r.roomId = :roomId AND m = :userId")
+    boolean isMember(@Param("roomId") String roomId, @Param("userId") String userId);
 }
@@ -11,4 +11,7 @@ import com.chatmessage.chat.model.User;
 public interface UserRepository extends JpaRepository<User, String> {
 
     Optional<User> findByUsername(String username);
+
+    // Derived exists query without criteria: SELECT ... FETCH FIRST 1 ROWS ONLY
+    boolean existsBy();
 }
@@ -0,0 +1,123 @@
+package com.chatmessage.chat.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Gauges of the STOMP broker: open sessions, subscriptions to each room's
+ * topic (room tags limited as in {@link ChatMetrics}) and the number of
+ * messages queued for delivery to clients. Clients may subscribe to any
+ * destination, so subscriptions only reuse the tag of a room that has been
+ * sent to or read; others count under {@value ChatMetrics#OTHER_ROOM}.
+ */
+@Component
+public class BrokerMetrics {
+
+    private static final String ROOM_TOPIC_PREFIX = "/topic/room/";
+
+    private final MeterRegistry registry;
+    private final ChatMetrics chatMetrics;
+    // Session id -> subscription id -> room tag of each room subscription
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> roomSubscriptions = new ConcurrentHashMap<>();
+
+    public BrokerMetrics(MeterRegistry registry, ChatMetrics chatMetrics,
+            @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+            @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor) {
+        this.registry = registry;
+        this.chatMetrics = chatMetrics;
+        Gauge.builder("chat.broker.sessions", sessions, Map::size)
+                .description("Open STOMP sessions")
+                .register(registry);
+        Gauge.builder("chat.broker.queue", outboundExecutor, BrokerMetrics::queueSize)
+                .description("Messages waiting in a broker channel's queue")
+                .tag("channel", "outbound")
+                .register(registry);
+        Gauge.builder("chat.broker.queue", inboundExecutor, BrokerMetrics::queueSize)
+                .description("Messages waiting in a broker channel's queue")
+                .tag("channel", "inbound")
+                .register(registry);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        sessions.computeIfAbsent(sessionId(event), id -> new ConcurrentHashMap<>());
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX) || headers.getSubscriptionId() == null) {
+            return;
+        }
+        String room = chatMetrics.existingRoomTag(destination.substring(ROOM_TOPIC_PREFIX.length()));
+        if (sessions.computeIfAbsent(headers.getSessionId(), id -> new ConcurrentHashMap<>())
+                .putIfAbsent(headers.getSubscriptionId(), room) == null) {
+            subscriptionCount(room).incrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(headers.getSessionId());
+        if (subscriptions != null && headers.getSubscriptionId() != null) {
+            String room = subscriptions.remove(headers.getSubscriptionId());
+            if (room != null) {
+                subscriptionCount(room).decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * May be published more than once per session; only the first removes it
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(room -> subscriptionCount(room).decrementAndGet());
+        }
+    }
+
+    private AtomicInteger subscriptionCount(String room) {
+        return roomSubscriptions.computeIfAbsent(room, tag -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder("chat.broker.subscriptions", count, AtomicInteger::get)
+                    .description("Subscriptions to a room's topic")
+                    .tag("room", tag)
+                    .register(registry);
+            return count;
+        });
+    }
+
+    /**
+     * The channel executors are injected as the {@code Executor} their
+     * factory methods declare: under lazy initialization the bean is matched
+     * by that type before it is created
+     */
+    private static double queueSize(Executor executor) {
+        return executor instanceof ThreadPoolTaskExecutor pool ? pool.getThreadPoolExecutor().getQueue().size() : 0;
+    }
+
+    private static String sessionId(AbstractSubProtocolEvent event) {
+        return SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+    }
+}
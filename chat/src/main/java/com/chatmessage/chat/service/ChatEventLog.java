@@ -0,0 +1,224 @@
+package com.chatmessage.chat.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Asynchronous, sampled log of request events on the chat hot paths.
+ *
+ * Callers pass an event type and key/value fields; the event is kept with
+ * probability {@code event-log.sample-rates} of its type and queued without
+ * formatting. A single writer thread renders queued events as
+ * {@code type key=value ...} lines on the {@code com.chatmessage.chat.events}
+ * logger, with the fields also attached as SLF4J key/values for structured
+ * log formats. When the bounded queue is full, events are dropped and
+ * counted instead of blocking the request.
+ *
+ * Fields named {@code content} hold message text: they are logged as their
+ * length, plus the first {@code event-log.max-content-length} characters
+ * when that is above 0.
+ */
+@Service
+public class ChatEventLog {
+
+    private static final Logger events = LoggerFactory.getLogger("com.chatmessage.chat.events");
+    private static final Logger logger = LoggerFactory.getLogger(ChatEventLog.class);
+    private static final String CONTENT = "content";
+
+    private record Event(String type, Object[] fields) {
+    }
+
+    private final BlockingQueue<Event> queue;
+    private final double defaultSampleRate;
+    private final Map<String, Double> sampleRates;
+    private final int maxContentLength;
+    private final LongAdder dropped = new LongAdder();
+    private final Counter droppedCounter;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public ChatEventLog(MeterRegistry registry,
+            @Value("${event-log.queue-capacity:8192}") int queueCapacity,
+            @Value("${event-log.default-sample-rate:1.0}") double defaultSampleRate,
+            @Value("${event-log.sample-rates:}") String sampleRates,
+            @Value("${event-log.max-content-length:0}") int maxContentLength) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.defaultSampleRate = defaultSampleRate;
+        this.sampleRates = parseSampleRates(sampleRates);
+        this.maxContentLength = maxContentLength;
+        this.droppedCounter = Counter.builder("chat.log.dropped")
+                .description("Log events dropped because the event log queue was full")
+                .register(registry);
+        this.writer = new Thread(this::drain, "chat-event-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Parse {@code type:rate} pairs separated by commas
+     */
+    static Map<String, Double> parseSampleRates(String value) {
+        Map<String, Double> rates = new HashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Sample rates must be type:rate pairs, got " + entry);
+            }
+            double rate = Double.parseDouble(entry.substring(separator + 1).trim());
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("Sample rate must be between 0 and 1, got " + entry);
+            }
+            rates.put(entry.substring(0, separator).trim(), rate);
+        }
+        return rates;
+    }
+
+    /**
+     * Queue an event if it is sampled
+     *
+     * @param type Event type, e.g. {@code message.sent}
+     * @param fields Alternating field names and values
+     */
+    public void log(String type, Object... fields) {
+        if (!isSampled(type)) {
+            return;
+        }
+        if (!queue.offer(new Event(type, fields))) {
+            dropped.increment();
+            droppedCounter.increment();
+        }
+    }
+
+    private boolean isSampled(String type) {
+        if (!events.isInfoEnabled()) {
+            return false;
+        }
+        double rate = sampleRates.getOrDefault(type, defaultSampleRate);
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * @return Number of events dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Event event = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    write(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Failed to write log event: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void write(Event event) {
+        StringBuilder line = new StringBuilder(event.type());
+        LoggingEventBuilder builder = events.atInfo();
+        Object[] fields = event.fields();
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            String key = String.valueOf(fields[i]);
+            Object value = fields[i + 1];
+            if (CONTENT.equals(key)) {
+                String content = value != null ? value.toString() : "";
+                append(line, builder, "contentLength", content.length());
+                if (maxContentLength > 0) {
+                    append(line, builder, CONTENT, content.length() > maxContentLength
+                            ? content.substring(0, maxContentLength) + "..." : content);
+                }
+            } else {
+                append(line, builder, key, value);
+            }
+        }
+        builder.log(line.toString());
+    }
+
+    private static void append(StringBuilder line, LoggingEventBuilder builder, String key, Object value) {
+        builder.addKeyValue(key, value);
+        line.append(' ').append(key).append('=');
+        line.append(formatValue(String.valueOf(value)));
+    }
+
+    /**
+     * A logfmt value: as is, or quoted with quotes, backslashes and control
+     * characters escaped if it would not otherwise stay one field on one line
+     */
+    static String formatValue(String text) {
+        if (!needsQuoting(text)) {
+            return text;
+        }
+        StringBuilder line = new StringBuilder(text.length() + 8);
+        appendQuoted(line, text);
+        return line.toString();
+    }
+
+    private static boolean needsQuoting(String text) {
+        if (text.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c <= ' ' || c == '"' || c == '=' || c == '\\' || c == '\u007f') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendQuoted(StringBuilder line, String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < ' ' || c == '\u007f') {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Write the queued events before shutting down
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
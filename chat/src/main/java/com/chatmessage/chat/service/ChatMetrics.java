@@ -0,0 +1,141 @@
+package com.chatmessage.chat.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters of the messaging hot paths, scraped from {@code /actuator/prometheus}.
+ *
+ * Meters tagged by room only get their own series for the first
+ * {@code metrics.max-tagged-rooms} rooms seen; every later room is counted
+ * under the room tag {@value #OTHER_ROOM}, so a server with many rooms does
+ * not create an unbounded number of time series.
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String OTHER_ROOM = "other";
+
+    /**
+     * Phases of sending a message, timed separately
+     */
+    public enum SendPhase {
+        VALIDATE, UPLOAD, SAVE, BROADCAST
+    }
+
+    private final MeterRegistry registry;
+    private final int maxTaggedRooms;
+    private final Set<String> taggedRooms = ConcurrentHashMap.newKeySet();
+    private final Map<SendPhase, Timer> sendPhases = new ConcurrentHashMap<>();
+    private final Timer sendTotal;
+    private final Timer uploadTimer;
+    private final DistributionSummary uploadBytes;
+
+    public ChatMetrics(MeterRegistry registry,
+            @Value("${metrics.max-tagged-rooms:100}") int maxTaggedRooms,
+            @Value("${file.storage-type:filesystem}") String storageBackend) {
+        this.registry = registry;
+        this.maxTaggedRooms = maxTaggedRooms;
+        for (SendPhase phase : SendPhase.values()) {
+            sendPhases.put(phase, Timer.builder("chat.message.send.phase")
+                    .description("Time spent in each phase of sending a message")
+                    .tag("phase", phase.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.sendTotal = Timer.builder("chat.message.send")
+                .description("Time from receiving a message to broadcasting it")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.uploadTimer = Timer.builder("chat.storage.upload")
+                .description("Time to store an uploaded image")
+                .tag("backend", storageBackend)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.uploadBytes = DistributionSummary.builder("chat.storage.upload.size")
+                .description("Size of uploaded images")
+                .baseUnit("bytes")
+                .tag("backend", storageBackend)
+                .register(registry);
+    }
+
+    /**
+     * The room tag for a room: its id while fewer than the maximum number of
+     * rooms have been tagged, otherwise {@value #OTHER_ROOM}. Takes one of
+     * the tags, so only call it for rooms known to exist, e.g. after a
+     * membership check.
+     */
+    public String roomTag(String roomId) {
+        if (taggedRooms.contains(roomId)) {
+            return roomId;
+        }
+        synchronized (taggedRooms) {
+            if (taggedRooms.size() < maxTaggedRooms) {
+                taggedRooms.add(roomId);
+                return roomId;
+            }
+        }
+        return OTHER_ROOM;
+    }
+
+    /**
+     * The room tag for a room without tagging it: its id if it already has a
+     * tag, otherwise {@value #OTHER_ROOM}. For room ids taken from clients
+     * that have not been checked.
+     */
+    public String existingRoomTag(String roomId) {
+        return taggedRooms.contains(roomId) ? roomId : OTHER_ROOM;
+    }
+
+    public void recordSendPhase(SendPhase phase, long nanos) {
+        sendPhases.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSendTotal(long nanos) {
+        sendTotal.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordMessageSent(String roomId) {
+        Counter.builder("chat.messages.sent")
+                .description("Messages sent")
+                .tag("room", roomTag(roomId))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Record a history read
+     *
+     * @param paged Whether one page or the full history was read
+     * @param rows Number of messages returned
+     */
+    public void recordHistoryRead(String roomId, boolean paged, int rows, long nanos) {
+        String room = roomTag(roomId);
+        String mode = paged ? "page" : "full";
+        Timer.builder("chat.message.history")
+                .description("Time to read a room's message history")
+                .tags("room", room, "mode", mode)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("chat.message.history.rows")
+                .description("Messages returned per history read")
+                .tags("room", room, "mode", mode)
+                .register(registry)
+                .record(rows);
+    }
+
+    public void recordUpload(long bytes, long nanos) {
+        uploadTimer.record(nanos, TimeUnit.NANOSECONDS);
+        uploadBytes.record(bytes);
+    }
+}
@@ -0,0 +1,81 @@
+package com.chatmessage.chat.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events of the messaging hot paths, shown under
+ * "Chat" in JDK Mission Control next to GC, lock and I/O events of the same
+ * moment. Stack traces are off so committing an event stays cheap; when no
+ * recording is running, {@code begin()} and {@code commit()} do nothing.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    @Name("com.chatmessage.chat.MessageSend")
+    @Label("Message Send")
+    @Description("A message from receipt by the controller to its broadcast")
+    @Category("Chat")
+    @StackTrace(false)
+    public static class MessageSend extends Event {
+
+        @Label("Room")
+        String roomId;
+
+        @Label("Message")
+        String messageId;
+
+        @Label("Validate")
+        @Timespan(Timespan.NANOSECONDS)
+        long validate;
+
+        @Label("Upload")
+        @Timespan(Timespan.NANOSECONDS)
+        long upload;
+
+        @Label("Save")
+        @Timespan(Timespan.NANOSECONDS)
+        long save;
+
+        @Label("Broadcast")
+        @Timespan(Timespan.NANOSECONDS)
+        long broadcast;
+    }
+
+    @Name("com.chatmessage.chat.MessageBroadcast")
+    @Label("Message Broadcast")
+    @Description("Sending a persisted message to the room's subscribers")
+    @Category("Chat")
+    @StackTrace(false)
+    public static class MessageBroadcast extends Event {
+
+        @Label("Room")
+        String roomId;
+
+        @Label("Message")
+        String messageId;
+    }
+
+    @Name("com.chatmessage.chat.ImageUpload")
+    @Label("Image Upload")
+    @Description("Storing an image attached to a message")
+    @Category("Chat")
+    @StackTrace(false)
+    public static class ImageUpload extends Event {
+
+        @Label("Room")
+        String roomId;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+}
@@ -0,0 +1,273 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Continuous Java Flight Recorder recording kept as a ring buffer, so the
+ * profile of a latency spike can be saved after the fact.
+ *
+ * The recording uses the JDK's {@code default} settings, which are meant to
+ * stay on in production (around 1% overhead), plus the {@link FlightEvents}
+ * of the send path. Older data is discarded once it is older than
+ * {@code flight-recorder.max-age-minutes} or the buffer exceeds
+ * {@code flight-recorder.max-size-mb}. Events that can carry secrets
+ * (environment variables, system properties, JVM and process command lines,
+ * thread dumps) are disabled in the recording and also left out of every
+ * dump, since the buffer can hold events enabled by other recordings.
+ *
+ * Dumps hold the last N minutes of the buffer and are written to
+ * {@code flight-recorder.dump-dir}, keeping the newest
+ * {@code flight-recorder.max-dumps} files. A dump is also taken
+ * automatically, on a background thread, when
+ * {@code flight-recorder.slo.breaches-per-minute} messages within a minute
+ * take longer than {@code flight-recorder.slo.send-latency-ms}; after that
+ * no automatic dump is taken for {@code flight-recorder.auto-dump-cooldown-minutes}.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderService.class);
+    private static final String RECORDING_NAME = "chat-continuous";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final long SLO_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    static final Set<String> SENSITIVE_EVENTS = Set.of(
+            "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty",
+            "jdk.JVMInformation",
+            "jdk.ProcessStart",
+            "jdk.ThreadDump");
+
+    public record Dump(String name, long bytes, Instant createdAt) {
+    }
+
+    public record Status(boolean recording, Instant startedAt, long maxAgeMinutes, long maxSizeMb,
+            long sloSendLatencyMs, int sloBreachesPerMinute, List<Dump> dumps) {
+    }
+
+    private final Path dumpDir;
+    private final long maxAgeMinutes;
+    private final long maxSizeMb;
+    private final int maxDumps;
+    private final long sloNanos;
+    private final int sloBreachesPerMinute;
+    private final long autoDumpMinutes;
+    private final long cooldownNanos;
+    private final ReentrantLock dumpLock = new ReentrantLock();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger windowBreaches = new AtomicInteger();
+    private final AtomicBoolean autoDumpRunning = new AtomicBoolean();
+    private final ExecutorService autoDumper;
+    private final Recording recording;
+    private volatile long lastAutoDumpAt;
+
+    public FlightRecorderService(
+            @Value("${flight-recorder.enabled:true}") boolean enabled,
+            @Value("${flight-recorder.settings:default}") String settings,
+            @Value("${flight-recorder.max-age-minutes:30}") long maxAgeMinutes,
+            @Value("${flight-recorder.max-size-mb:256}") long maxSizeMb,
+            @Value("${flight-recorder.dump-dir:./data/jfr}") String dumpDir,
+            @Value("${flight-recorder.max-dumps:10}") int maxDumps,
+            @Value("${flight-recorder.slo.send-latency-ms:500}") long sloSendLatencyMs,
+            @Value("${flight-recorder.slo.breaches-per-minute:10}") int sloBreachesPerMinute,
+            @Value("${flight-recorder.auto-dump-minutes:5}") long autoDumpMinutes,
+            @Value("${flight-recorder.auto-dump-cooldown-minutes:15}") long cooldownMinutes) {
+        if (maxAgeMinutes <= 0 || maxSizeMb <= 0 || maxDumps <= 0 || sloBreachesPerMinute <= 0 || autoDumpMinutes <= 0) {
+            throw new IllegalArgumentException("Flight recorder limits must be positive");
+        }
+        this.dumpDir = Paths.get(dumpDir);
+        this.maxAgeMinutes = maxAgeMinutes;
+        this.maxSizeMb = maxSizeMb;
+        this.maxDumps = maxDumps;
+        this.sloNanos = TimeUnit.MILLISECONDS.toNanos(sloSendLatencyMs);
+        this.sloBreachesPerMinute = sloBreachesPerMinute;
+        this.autoDumpMinutes = Math.min(autoDumpMinutes, maxAgeMinutes);
+        this.cooldownNanos = TimeUnit.MINUTES.toNanos(cooldownMinutes);
+        this.lastAutoDumpAt = System.nanoTime() - cooldownNanos;
+        this.autoDumper = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "flight-recorder-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.recording = enabled ? start(settings) : null;
+    }
+
+    private Recording start(String settings) {
+        if (!FlightRecorder.isAvailable()) {
+            logger.warn("Java Flight Recorder is not available in this JVM; continuous recording is off");
+            return null;
+        }
+        try {
+            Recording started = new Recording(Configuration.getConfiguration(settings));
+            started.setName(RECORDING_NAME);
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            started.setMaxSize(maxSizeMb * 1024 * 1024);
+            SENSITIVE_EVENTS.forEach(started::disable);
+            started.enable(FlightEvents.MessageSend.class);
+            started.enable(FlightEvents.MessageBroadcast.class);
+            started.enable(FlightEvents.ImageUpload.class);
+            started.start();
+            logger.info("Started continuous flight recording ({} settings, last {} minutes, at most {} MB)",
+                    settings, maxAgeMinutes, maxSizeMb);
+            return started;
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Cannot read flight recorder settings " + settings, e);
+        }
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Count a sent message's end-to-end latency towards the SLO, starting an
+     * automatic dump when the breach limit is reached outside the cooldown
+     */
+    public void recordSendLatency(long nanos) {
+        if (recording == null || nanos < sloNanos) {
+            return;
+        }
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= SLO_WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            windowBreaches.set(0);
+        }
+        if (windowBreaches.incrementAndGet() < sloBreachesPerMinute || now - lastAutoDumpAt < cooldownNanos
+                || !autoDumpRunning.compareAndSet(false, true)) {
+            return;
+        }
+        lastAutoDumpAt = now;
+        autoDumper.execute(() -> {
+            try {
+                Dump dump = dump(autoDumpMinutes, "slo");
+                logger.warn("{} messages slower than {} ms within a minute; saved flight recording {}",
+                        sloBreachesPerMinute, TimeUnit.NANOSECONDS.toMillis(sloNanos), dump.name());
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to save flight recording after SLO breach: {}", e.getMessage());
+            } finally {
+                autoDumpRunning.set(false);
+            }
+        });
+    }
+
+    /**
+     * Write the last {@code minutes} of the recording to a new file in the
+     * dump directory
+     *
+     * @param reason Short tag included in the file name, e.g. {@code manual}
+     */
+    public Dump dump(long minutes, String reason) throws IOException {
+        if (minutes <= 0 || minutes > maxAgeMinutes) {
+            throw new IllegalArgumentException("minutes must be between 1 and " + maxAgeMinutes);
+        }
+        if (recording == null) {
+            throw new IllegalStateException("Flight recording is not running");
+        }
+        dumpLock.lock();
+        try {
+            Files.createDirectories(dumpDir);
+            Instant cutoff = Instant.now().minus(Duration.ofMinutes(minutes));
+            Path target = dumpDir.resolve("chat-" + reason + "-" + FILE_TIME.format(LocalDateTime.now()) + ".jfr");
+            Path full = Files.createTempFile(dumpDir, "dump-", ".tmp");
+            try {
+                recording.dump(full);
+                try (RecordingFile file = new RecordingFile(full)) {
+                    file.write(target, event -> !event.getEndTime().isBefore(cutoff)
+                            && !SENSITIVE_EVENTS.contains(event.getEventType().getName()));
+                }
+            } finally {
+                Files.deleteIfExists(full);
+            }
+            pruneDumps();
+            return toDump(target);
+        } finally {
+            dumpLock.unlock();
+        }
+    }
+
+    /**
+     * @return Saved dumps, newest first
+     */
+    public List<Dump> listDumps() throws IOException {
+        if (!Files.isDirectory(dumpDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dumpDir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".jfr"))
+                    .map(FlightRecorderService::toDump)
+                    .sorted(Comparator.comparing(Dump::createdAt).thenComparing(Dump::name).reversed())
+                    .toList();
+        }
+    }
+
+    /**
+     * @return The file of a saved dump
+     */
+    public Path getDumpFile(String name) throws IOException {
+        // Only names of listed dumps are resolved, so no path can escape the directory
+        boolean exists = listDumps().stream().anyMatch(dump -> dump.name().equals(name));
+        if (!exists) {
+            throw new IllegalArgumentException("Flight recording dump not found");
+        }
+        return dumpDir.resolve(name);
+    }
+
+    public Status getStatus() throws IOException {
+        return new Status(recording != null, recording != null ? recording.getStartTime() : null, maxAgeMinutes,
+                maxSizeMb, TimeUnit.NANOSECONDS.toMillis(sloNanos), sloBreachesPerMinute, listDumps());
+    }
+
+    private void pruneDumps() throws IOException {
+        List<Dump> dumps = listDumps();
+        for (Dump dump : dumps.subList(Math.min(maxDumps, dumps.size()), dumps.size())) {
+            Files.deleteIfExists(dumpDir.resolve(dump.name()));
+        }
+    }
+
+    private static Dump toDump(Path path) {
+        try {
+            return new Dump(path.getFileName().toString(), Files.size(path),
+                    Files.getLastModifiedTime(path).toInstant());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read flight recording dump " + path.getFileName(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        autoDumper.shutdownNow();
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.chatmessage.chat.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.repository.MessageRepository;
+
+/**
+ * Default message store backed by the JPA {@link MessageRepository}
+ */
+@Service
+@ConditionalOnProperty(name = "message.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaMessageStore implements MessageStore {
+
+    private static final String STREAM_ROOM_SQL = "SELECT message_id, sender_id, room_id, content, image_url, timestamp, sequence"
+            + " FROM messages WHERE room_id = ? AND sequence > ? ORDER BY sequence";
+
+    private static final String INSERT_SQL = "INSERT INTO messages (message_id, sender_id, room_id, content, image_url, timestamp, sequence)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String COUNT_AFTER_SQL = "SELECT COUNT(*) FROM messages WHERE room_id = ? AND sequence > ?";
+
+    private static final String NTH_NEWEST_SQL = "SELECT sequence FROM messages WHERE room_id = ?"
+            + " ORDER BY sequence DESC OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY";
+
+    private static final String DELETE_RANGE_SQL = "DELETE FROM messages WHERE room_id = ? AND sequence > ? AND sequence <= ?";
+
+    private final MessageRepository messageRepository;
+    private final MessageSequencer messageSequencer;
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public JpaMessageStore(MessageRepository messageRepository, MessageSequencer messageSequencer, JdbcTemplate jdbcTemplate,
+            @Value("${message.store.fetch-size:500}") int fetchSize) {
+        this.messageRepository = messageRepository;
+        this.messageSequencer = messageSequencer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Message append(Message message) {
+        message.setSequence(messageSequencer.next(message.getRoomId()));
+        return messageRepository.save(message);
+    }
+
+    /**
+     * Inserts the batch with a single JDBC batch statement rather than one
+     * {@code save} per message. Unlike {@code save}, an existing message id
+     * is reported as a duplicate key instead of being overwritten.
+     */
+    @Override
+    public void appendAll(List<Message> messages) {
+        for (Message message : messages) {
+            message.setSequence(messageSequencer.next(message.getRoomId()));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (statement, message) -> {
+            statement.setString(1, message.getMessageId());
+            statement.setString(2, message.getSenderId());
+            statement.setString(3, message.getRoomId());
+            statement.setString(4, message.getContent());
+            statement.setString(5, message.getImageUrl());
+            statement.setTimestamp(6, Timestamp.valueOf(message.getTimestamp()));
+            statement.setLong(7, message.getSequence());
+        });
+    }
+
+    @Override
+    public Optional<Message> findById(String messageId) {
+        return messageRepository.findById(messageId);
+    }
+
+    @Override
+    public List<Message> findByRoomId(String roomId) {
+        return messageRepository.findByRoomIdOrderBySequence(roomId);
+    }
+
+    @Override
+    public List<Message> findByRoomIdAfterSequence(String roomId, long afterSequence, int limit) {
+        return messageRepository.findByRoomIdAndSequenceGreaterThanOrderBySequenceAsc(
+                roomId, afterSequence, PageRequest.of(0, limit));
+    }
+
+    /**
+     * A single query over the (room_id, sequence) index
+     */
+    @Override
+    public List<Message> findByRoomIdAndSequences(String roomId, Collection<Long> sequences) {
+        return sequences.isEmpty() ? List.of() : messageRepository.findByRoomIdAndSequenceIn(roomId, sequences);
+    }
+
+    /**
+     * Streams rows from a forward-only, read-only JDBC cursor with a fixed
+     * fetch size, bypassing the persistence context so nothing accumulates
+     */
+    @Override
+    public void streamByRoomId(String roomId, long afterSequence, Consumer<Message> consumer) {
+        // Seeding the room's sequence numbers any legacy rows so none are skipped
+        messageSequencer.current(roomId);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STREAM_ROOM_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setString(1, roomId);
+            statement.setLong(2, afterSequence);
+            return statement;
+        }, resultSet -> {
+            consumer.accept(mapRow(resultSet));
+        });
+    }
+
+    @Override
+    public List<String> findRoomIds() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT room_id FROM messages", String.class);
+    }
+
+    @Override
+    public long getLastSequence(String roomId) {
+        return messageSequencer.current(roomId);
+    }
+
+    @Override
+    public long countByRoomIdAfterSequence(String roomId, long afterSequence) {
+        return jdbcTemplate.queryForObject(COUNT_AFTER_SQL, Long.class, roomId, afterSequence);
+    }
+
+    @Override
+    public long findNthNewestSequence(String roomId, long n) {
+        List<Long> sequence = jdbcTemplate.queryForList(NTH_NEWEST_SQL, Long.class, roomId, n - 1);
+        return sequence.isEmpty() ? 0 : sequence.get(0);
+    }
+
+    @Override
+    public List<Message> findAll() {
+        return messageRepository.findAll();
+    }
+
+    @Override
+    public void deleteById(String messageId) {
+        messageRepository.deleteById(messageId);
+    }
+
+    /**
+     * A single statement over the (room_id, sequence) index; outside a
+     * transaction it commits on its own, so the rows of the range are locked
+     * only while it runs
+     */
+    @Override
+    public int deleteRange(String roomId, long afterSequence, long upToSequence) {
+        return jdbcTemplate.update(DELETE_RANGE_SQL, roomId, afterSequence, upToSequence);
+    }
+
+    private static Message mapRow(ResultSet resultSet) throws SQLException {
+        Message message = new Message(resultSet.getString("message_id"), resultSet.getString("sender_id"),
+                resultSet.getString("room_id"), resultSet.getString("content"), resultSet.getString("image_url"));
+        Timestamp timestamp = resultSet.getTimestamp("timestamp");
+        message.setTimestamp(timestamp.toLocalDateTime());
+        message.setSequence(resultSet.getLong("sequence"));
+        return message;
+    }
+}
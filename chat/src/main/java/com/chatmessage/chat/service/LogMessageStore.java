@@ -0,0 +1,712 @@
+package com.chatmessage.chat.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Message store that appends each room's messages to its own log of segment
+ * files on local disk, bypassing Hibernate and H2 on the write path.
+ *
+ * Records are framed as {@code length | crc32 | payload}. Every
+ * {@code message.log.index-interval}-th record (and the first record of each
+ * segment) is entered in an in-memory sparse index so range reads seek close
+ * to their start and scan forward. On startup every log is replayed to rebuild
+ * the indexes and a torn or corrupt tail of the last segment is truncated.
+ * Durability follows {@code message.log.fsync}: {@code always} forces each
+ * append, {@code interval} forces dirty logs periodically and {@code never}
+ * leaves it to the OS.
+ *
+ * Range deletes of a room's oldest messages (retention, archival) are logged
+ * as a single "deleted through" watermark rather than one tombstone per
+ * message. Sealed segments whose messages are all below the watermark are
+ * removed from disk; the single-message tombstones in them that still apply
+ * are carried over to the active segment first.
+ */
+@Service
+@ConditionalOnProperty(name = "message.store", havingValue = "log")
+public class LogMessageStore implements MessageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogMessageStore.class);
+
+    public enum FsyncPolicy {
+        ALWAYS, INTERVAL, NEVER
+    }
+
+    private static final byte TYPE_MESSAGE = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final byte TYPE_DELETE_THROUGH = 3;
+    // Sequence of an id index entry for a message that is still being appended
+    private static final long RESERVED = Long.MAX_VALUE;
+    private static final int FRAME_HEADER_SIZE = 4 + 4;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private final Path logDir;
+    private final long segmentSize;
+    private final int indexInterval;
+    private final FsyncPolicy fsyncPolicy;
+
+    private final Map<String, RoomLog> rooms = new ConcurrentHashMap<>();
+    private final Map<String, MessageRef> idIndex = new ConcurrentHashMap<>();
+
+    public LogMessageStore(
+            @Value("${message.log.dir:./data/message-log}") String logDir,
+            @Value("${message.log.segment-size:67108864}") long segmentSize,
+            @Value("${message.log.index-interval:64}") int indexInterval,
+            @Value("${message.log.fsync:interval}") String fsyncPolicy) {
+        this.logDir = Paths.get(logDir).toAbsolutePath().normalize();
+        this.segmentSize = segmentSize;
+        this.indexInterval = indexInterval;
+        this.fsyncPolicy = FsyncPolicy.valueOf(fsyncPolicy.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Replay every room log, rebuilding the sparse and id indexes
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(logDir);
+        try (Stream<Path> roomDirs = Files.list(logDir)) {
+            for (Path roomDir : roomDirs.filter(Files::isDirectory).toList()) {
+                String roomId = URLDecoder.decode(roomDir.getFileName().toString(), StandardCharsets.UTF_8);
+                RoomLog room = new RoomLog(roomId, roomDir);
+                room.recover();
+                rooms.put(roomId, room);
+            }
+        }
+        // Messages logged before their room's watermark record was replayed
+        idIndex.values().removeIf(ref -> ref.sequence() <= rooms.get(ref.roomId()).deletedThrough);
+        logger.info("Opened message log at {} with {} rooms and {} messages ({} fsync)",
+                logDir, rooms.size(), idIndex.size(), fsyncPolicy.name().toLowerCase(Locale.ROOT));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (RoomLog room : rooms.values()) {
+            room.close();
+        }
+    }
+
+    @Override
+    public Message append(Message message) {
+        RoomLog room = rooms.computeIfAbsent(message.getRoomId(),
+                roomId -> new RoomLog(roomId, logDir.resolve(URLEncoder.encode(roomId, StandardCharsets.UTF_8))));
+        try {
+            room.append(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append message to log of room " + message.getRoomId(), e);
+        }
+        idIndex.put(message.getMessageId(), new MessageRef(message.getRoomId(), message.getSequence()));
+        return message;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    /**
+     * Log writes are not rolled back with a transaction, so message ids are
+     * reserved before anything is written: an id that is already stored, or
+     * repeated in the batch, rejects the whole batch with nothing appended,
+     * and a retry of a rejected batch never writes a message twice
+     */
+    @Override
+    public void appendAll(List<Message> messages) {
+        List<String> reserved = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            if (idIndex.putIfAbsent(message.getMessageId(), new MessageRef(message.getRoomId(), RESERVED)) != null) {
+                reserved.forEach(idIndex::remove);
+                throw new DuplicateKeyException("Message id already exists: " + message.getMessageId());
+            }
+            reserved.add(message.getMessageId());
+        }
+        boolean appended = false;
+        try {
+            for (Message message : messages) {
+                append(message);
+            }
+            appended = true;
+        } finally {
+            if (!appended) {
+                for (Message message : messages) {
+                    idIndex.remove(message.getMessageId(), new MessageRef(message.getRoomId(), RESERVED));
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<Message> findById(String messageId) {
+        MessageRef ref = idIndex.get(messageId);
+        if (ref == null) {
+            return Optional.empty();
+        }
+        return findByRoomIdAfterSequence(ref.roomId(), ref.sequence() - 1, 1).stream()
+                .filter(message -> message.getSequence() == ref.sequence())
+                .findFirst();
+    }
+
+    @Override
+    public List<Message> findByRoomId(String roomId) {
+        return findByRoomIdAfterSequence(roomId, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Message> findByRoomIdAfterSequence(String roomId, long afterSequence, int limit) {
+        RoomLog room = rooms.get(roomId);
+        if (room == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return room.read(afterSequence, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read log of room " + roomId, e);
+        }
+    }
+
+    @Override
+    public void streamByRoomId(String roomId, long afterSequence, Consumer<Message> consumer) {
+        List<Message> page = findByRoomIdAfterSequence(roomId, afterSequence, STREAM_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            page.forEach(consumer);
+            page = findByRoomIdAfterSequence(roomId, page.get(page.size() - 1).getSequence(), STREAM_PAGE_SIZE);
+        }
+    }
+
+    @Override
+    public List<String> findRoomIds() {
+        return new ArrayList<>(rooms.keySet());
+    }
+
+    @Override
+    public long getLastSequence(String roomId) {
+        RoomLog room = rooms.get(roomId);
+        return room != null ? room.lastSequence : 0;
+    }
+
+    @Override
+    public long countByRoomIdAfterSequence(String roomId, long afterSequence) {
+        RoomLog room = rooms.get(roomId);
+        if (room == null) {
+            return 0;
+        }
+        long after = Math.max(afterSequence, room.deletedThrough);
+        long deletedAfter = room.deleted.stream().filter(sequence -> sequence > after).count();
+        return Math.max(room.lastSequence - after - deletedAfter, 0);
+    }
+
+    /**
+     * Counted in memory: every sequence above the room's watermark is stored
+     * unless it has a tombstone
+     */
+    @Override
+    public long findNthNewestSequence(String roomId, long n) {
+        RoomLog room = rooms.get(roomId);
+        if (room == null || n <= 0) {
+            return 0;
+        }
+        long remaining = n;
+        for (long sequence = room.lastSequence; sequence > room.deletedThrough; sequence--) {
+            if (!room.deleted.contains(sequence) && --remaining == 0) {
+                return sequence;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public List<Message> findAll() {
+        List<Message> messages = new ArrayList<>();
+        for (String roomId : rooms.keySet()) {
+            messages.addAll(findByRoomId(roomId));
+        }
+        return messages;
+    }
+
+    @Override
+    public void deleteById(String messageId) {
+        MessageRef ref = idIndex.remove(messageId);
+        if (ref == null) {
+            return;
+        }
+        try {
+            rooms.get(ref.roomId()).delete(messageId, ref.sequence());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append delete to log of room " + ref.roomId(), e);
+        }
+    }
+
+    /**
+     * Deletes below the room's watermark (the usual case: retention and
+     * archival trim the oldest messages) only move the watermark forward;
+     * anything else falls back to a tombstone per message
+     */
+    @Override
+    public int deleteRange(String roomId, long afterSequence, long upToSequence) {
+        RoomLog room = rooms.get(roomId);
+        if (room == null || upToSequence <= afterSequence) {
+            return 0;
+        }
+        try {
+            List<Message> deleted = room.deleteRange(afterSequence, upToSequence);
+            for (Message message : deleted) {
+                idIndex.remove(message.getMessageId());
+            }
+            return deleted.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete messages from log of room " + roomId, e);
+        }
+    }
+
+    /**
+     * Force logs written since the last flush to disk under the interval policy
+     */
+    @Scheduled(fixedDelayString = "${message.log.fsync-interval-ms:1000}")
+    public void flush() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.INTERVAL) {
+            return;
+        }
+        for (RoomLog room : rooms.values()) {
+            room.flush();
+        }
+    }
+
+    private static byte[] frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .array();
+    }
+
+    private record MessageRef(String roomId, long sequence) {
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        boolean visit(byte[] payload, long offset) throws IOException;
+    }
+
+    private record Position(Segment segment, long offset) {
+    }
+
+    private static final class Segment {
+
+        private final long baseSequence;
+        private final Path path;
+        private volatile long size;
+
+        private Segment(long baseSequence, Path path, long size) {
+            this.baseSequence = baseSequence;
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The log of a single room. Appends are serialized by the room lock;
+     * readers only look at bytes below each segment's published size.
+     */
+    private final class RoomLog {
+
+        private final String roomId;
+        private final Path dir;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+        private final NavigableMap<Long, Position> sparseIndex = new ConcurrentSkipListMap<>();
+        // Single-message deletes above the watermark
+        private final Set<Long> deleted = ConcurrentHashMap.newKeySet();
+        private volatile long deletedThrough;
+        private volatile long lastSequence;
+        private Segment activeSegment;
+        private FileChannel writer;
+        private int recordsSinceIndexEntry;
+        private boolean dirty;
+
+        private RoomLog(String roomId, Path dir) {
+            this.roomId = roomId;
+            this.dir = dir;
+        }
+
+        private void append(Message message) throws IOException {
+            lock.lock();
+            try {
+                long sequence = lastSequence + 1;
+                message.setSequence(sequence);
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(TYPE_MESSAGE);
+                MessageCodec.write(out, message);
+                byte[] record = frame(bytes.toByteArray());
+
+                if (activeSegment == null || (activeSegment.size > 0 && activeSegment.size + record.length > segmentSize)) {
+                    roll(sequence);
+                }
+                long offset = write(record);
+                if (recordsSinceIndexEntry == 0) {
+                    sparseIndex.put(sequence, new Position(activeSegment, offset));
+                }
+                recordsSinceIndexEntry = (recordsSinceIndexEntry + 1) % indexInterval;
+                lastSequence = sequence;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void delete(String messageId, long sequence) throws IOException {
+            lock.lock();
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(TYPE_DELETE);
+                out.writeLong(sequence);
+                out.writeUTF(messageId);
+                if (activeSegment == null) {
+                    roll(lastSequence + 1);
+                }
+                write(frame(bytes.toByteArray()));
+                deleted.add(sequence);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Message> deleteRange(long afterSequence, long upToSequence) throws IOException {
+            lock.lock();
+            try {
+                List<Message> doomed = new ArrayList<>();
+                for (Message message : read(afterSequence, (int) Math.min(upToSequence - afterSequence, Integer.MAX_VALUE))) {
+                    if (message.getSequence() > upToSequence) {
+                        break;
+                    }
+                    doomed.add(message);
+                }
+                if (afterSequence > deletedThrough) {
+                    for (Message message : doomed) {
+                        delete(message.getMessageId(), message.getSequence());
+                    }
+                    return doomed;
+                }
+                if (upToSequence > deletedThrough) {
+                    writeDeletedThrough(upToSequence);
+                    deletedThrough = upToSequence;
+                    deleted.removeIf(sequence -> sequence <= upToSequence);
+                    dropCoveredSegments();
+                }
+                return doomed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void writeDeletedThrough(long sequence) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(TYPE_DELETE_THROUGH);
+            out.writeLong(sequence);
+            if (activeSegment == null) {
+                roll(lastSequence + 1);
+            }
+            write(frame(bytes.toByteArray()));
+        }
+
+        /**
+         * Remove the sealed segments holding only messages at or below the
+         * watermark. Tombstones in them for later messages, and the
+         * watermark itself, are appended to the active segment and forced
+         * to disk before any file is deleted. Must be called with the lock
+         * held.
+         */
+        private void dropCoveredSegments() throws IOException {
+            List<Segment> covered = new ArrayList<>();
+            Segment previous = null;
+            for (Segment segment : segments.values()) {
+                // A segment's messages end just before the next segment's base sequence
+                if (previous != null && segment.baseSequence - 1 <= deletedThrough) {
+                    covered.add(previous);
+                }
+                previous = segment;
+            }
+            covered.remove(activeSegment);
+            if (covered.isEmpty()) {
+                return;
+            }
+
+            for (Segment segment : covered) {
+                forEachRecord(segment, 0, segment.size, (payload, offset) -> {
+                    if (payload[0] == TYPE_DELETE) {
+                        long sequence = ByteBuffer.wrap(payload, 1, 8).getLong();
+                        if (sequence > deletedThrough) {
+                            write(frame(payload));
+                        }
+                    }
+                    return true;
+                });
+            }
+            writeDeletedThrough(deletedThrough);
+            writer.force(false);
+            dirty = false;
+
+            for (Segment segment : covered) {
+                segments.remove(segment.baseSequence);
+                sparseIndex.values().removeIf(position -> position.segment() == segment);
+                Files.deleteIfExists(segment.path);
+            }
+            logger.debug("Removed {} segments of room {} below sequence {}", covered.size(), roomId, deletedThrough + 1);
+        }
+
+        /**
+         * Write a framed record at the end of the active segment. Must be
+         * called with the lock held.
+         *
+         * @return The offset the record was written at
+         */
+        private long write(byte[] record) throws IOException {
+            long offset = activeSegment.size;
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                writer.write(buffer, offset + buffer.position());
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                writer.force(false);
+            } else {
+                dirty = true;
+            }
+            // Publish only after the bytes are in place so readers never see a partial record
+            activeSegment.size = offset + record.length;
+            return offset;
+        }
+
+        private void roll(long baseSequence) throws IOException {
+            if (writer != null) {
+                writer.force(false);
+                writer.close();
+            }
+            Files.createDirectories(dir);
+            Path path = dir.resolve(String.format("%020d%s", baseSequence, SEGMENT_SUFFIX));
+            writer = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            activeSegment = new Segment(baseSequence, path, 0);
+            segments.put(baseSequence, activeSegment);
+            recordsSinceIndexEntry = 0;
+            dirty = false;
+        }
+
+        private List<Message> read(long afterSequence, int limit) throws IOException {
+            List<Message> messages = new ArrayList<>();
+            afterSequence = Math.max(afterSequence, deletedThrough);
+            if (segments.isEmpty() || limit <= 0 || afterSequence >= lastSequence) {
+                return messages;
+            }
+
+            Map.Entry<Long, Position> start = sparseIndex.floorEntry(afterSequence + 1);
+            Segment startSegment = start != null ? start.getValue().segment() : segments.firstEntry().getValue();
+            long startOffset = start != null ? start.getValue().offset() : 0;
+
+            long after = afterSequence;
+            for (Segment segment : segments.tailMap(startSegment.baseSequence, true).values()) {
+                long from = segment == startSegment ? startOffset : 0;
+                try {
+                    forEachRecord(segment, from, segment.size, (payload, offset) -> {
+                        if (payload[0] != TYPE_MESSAGE) {
+                            return true;
+                        }
+                        Message message = MessageCodec.read(new DataInputStream(
+                                new ByteArrayInputStream(payload, 1, payload.length - 1)), roomId);
+                        if (message.getSequence() > after && !deleted.contains(message.getSequence())) {
+                            messages.add(message);
+                        }
+                        return messages.size() < limit;
+                    });
+                } catch (NoSuchFileException e) {
+                    // Removed below a watermark that moved while this read was running
+                    continue;
+                }
+                if (messages.size() >= limit) {
+                    break;
+                }
+            }
+            return messages;
+        }
+
+        /**
+         * Hand the payload and offset of each record between two offsets of
+         * a segment to the visitor, until it returns false
+         */
+        private void forEachRecord(Segment segment, long from, long end, RecordVisitor visitor) throws IOException {
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                channel.position(from);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+                long position = from;
+                while (position < end) {
+                    int length = in.readInt();
+                    in.readInt();
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    if (!visitor.visit(payload, position)) {
+                        return;
+                    }
+                    position += FRAME_HEADER_SIZE + length;
+                }
+            }
+        }
+
+        private void recover() throws IOException {
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(dir)) {
+                files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .sorted(Comparator.comparing(Path::getFileName))
+                        .toList();
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                Path path = files.get(i);
+                String name = path.getFileName().toString();
+                long baseSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                Segment segment = new Segment(baseSequence, path, 0);
+                segments.put(baseSequence, segment);
+                recordsSinceIndexEntry = 0;
+                segment.size = replay(segment, i == files.size() - 1);
+                activeSegment = segment;
+            }
+
+            if (activeSegment != null) {
+                writer = FileChannel.open(activeSegment.path, StandardOpenOption.WRITE);
+            }
+        }
+
+        /**
+         * Replay one segment into the indexes
+         *
+         * @return The length of the valid prefix of the segment
+         */
+        private long replay(Segment segment, boolean last) throws IOException {
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long fileSize = channel.size();
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+                long position = 0;
+
+                while (position + FRAME_HEADER_SIZE <= fileSize) {
+                    int length = in.readInt();
+                    int expectedCrc = in.readInt();
+                    if (length <= 0 || position + FRAME_HEADER_SIZE + length > fileSize) {
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != expectedCrc) {
+                        break;
+                    }
+
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload, 1, length - 1));
+                    if (payload[0] == TYPE_MESSAGE) {
+                        Message message = MessageCodec.read(record, roomId);
+                        if (recordsSinceIndexEntry == 0) {
+                            sparseIndex.put(message.getSequence(), new Position(segment, position));
+                        }
+                        recordsSinceIndexEntry = (recordsSinceIndexEntry + 1) % indexInterval;
+                        lastSequence = message.getSequence();
+                        idIndex.put(message.getMessageId(), new MessageRef(roomId, message.getSequence()));
+                    } else if (payload[0] == TYPE_DELETE) {
+                        long sequence = record.readLong();
+                        if (sequence > deletedThrough) {
+                            deleted.add(sequence);
+                        }
+                        idIndex.remove(record.readUTF());
+                    } else if (payload[0] == TYPE_DELETE_THROUGH) {
+                        long sequence = record.readLong();
+                        if (sequence > deletedThrough) {
+                            deletedThrough = sequence;
+                            deleted.removeIf(deletedSequence -> deletedSequence <= sequence);
+                        }
+                    }
+                    position += FRAME_HEADER_SIZE + length;
+                }
+
+                if (position < fileSize) {
+                    if (last) {
+                        logger.warn("Truncating torn tail of {} at offset {} (file size {})", segment.path, position, fileSize);
+                        channel.truncate(position);
+                        channel.force(true);
+                    } else {
+                        logger.warn("Ignoring corrupt data in {} after offset {}", segment.path, position);
+                    }
+                }
+                return position;
+            }
+        }
+
+        private void flush() throws IOException {
+            lock.lock();
+            try {
+                if (dirty && writer != null) {
+                    writer.force(false);
+                    dirty = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void close() throws IOException {
+            lock.lock();
+            try {
+                if (writer != null) {
+                    writer.force(false);
+                    writer.close();
+                    writer = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
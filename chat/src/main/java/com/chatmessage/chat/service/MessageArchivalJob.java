@@ -0,0 +1,121 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+
+/**
+ * Periodically moves messages older than {@code message.archive.max-age-days}
+ * out of the {@link MessageStore} and into {@link MessageArchive} segments.
+ *
+ * Only a contiguous prefix of each room's sequence range is archived, so the
+ * archive always holds sequences up to some N and the table holds the rest.
+ * The segment is made durable before the rows are deleted; if the delete is
+ * lost, the next run removes the already archived rows first. A room is
+ * never archived while {@link MessageRetentionJob} purges it.
+ */
+@Service
+@ConditionalOnProperty(name = "message.archive.enabled", havingValue = "true")
+public class MessageArchivalJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchivalJob.class);
+
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
+    private final RoomMaintenanceLocks roomLocks;
+    private final int maxAgeDays;
+    private final int segmentMessages;
+
+    public MessageArchivalJob(MessageStore messageStore, MessageArchive messageArchive, RoomMaintenanceLocks roomLocks,
+            @Value("${message.archive.max-age-days:30}") int maxAgeDays,
+            @Value("${message.archive.segment-messages:10000}") int segmentMessages) {
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
+        this.roomLocks = roomLocks;
+        this.maxAgeDays = maxAgeDays;
+        this.segmentMessages = segmentMessages;
+    }
+
+    @Scheduled(fixedDelayString = "${message.archive.interval-ms:3600000}",
+            initialDelayString = "${message.archive.initial-delay-ms:60000}")
+    public void archiveOldMessages() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+        for (String roomId : messageStore.findRoomIds()) {
+            // Only rooms whose oldest stored message is expired have anything to archive
+            List<Message> oldest = messageStore.findByRoomIdAfterSequence(roomId, messageArchive.getMaxSequence(roomId), 1);
+            if (oldest.isEmpty() || !oldest.get(0).getTimestamp().isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                int archived = archiveRoom(roomId, cutoff);
+                if (archived > 0) {
+                    logger.info("Archived {} messages of room {}", archived, roomId);
+                }
+            } catch (IOException e) {
+                logger.error("Failed to archive messages of room {}: {}", roomId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Archive the messages of one room that are older than the cutoff
+     *
+     * @return The number of messages moved to the archive
+     */
+    public int archiveRoom(String roomId, LocalDateTime cutoff) throws IOException {
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            return archive(roomId, cutoff);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int archive(String roomId, LocalDateTime cutoff) throws IOException {
+        // Make sure legacy rows have sequences before we reason about ranges
+        messageStore.getLastSequence(roomId);
+
+        long archivedUpTo = messageArchive.getMaxSequence(roomId);
+        if (archivedUpTo > 0) {
+            messageStore.deleteRange(roomId, 0, archivedUpTo);
+        }
+
+        int total = 0;
+        while (true) {
+            List<Message> candidates = messageStore.findByRoomIdAfterSequence(roomId, archivedUpTo, segmentMessages);
+
+            List<Message> segment = new ArrayList<>(candidates.size());
+            for (Message message : candidates) {
+                if (!message.getTimestamp().isBefore(cutoff)) {
+                    break;
+                }
+                segment.add(message);
+            }
+            if (segment.isEmpty()) {
+                return total;
+            }
+
+            messageArchive.writeSegment(roomId, segment);
+            long previous = archivedUpTo;
+            archivedUpTo = segment.get(segment.size() - 1).getSequence();
+            messageStore.deleteRange(roomId, previous, archivedUpTo);
+            total += segment.size();
+
+            if (segment.size() < candidates.size() || candidates.size() < segmentMessages) {
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.chatmessage.chat.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cold storage for old messages: compressed, immutable, per-room segment files.
+ *
+ * A segment holds a contiguous sequence range of one room and is made of
+ * independently deflated blocks followed by a footer with a sparse index
+ * (first sequence and first timestamp of every block), so range reads only
+ * inflate the blocks they need. Segments are written to a temp file and
+ * atomically renamed into place; the catalog of segments and their sparse
+ * indexes is kept in memory and rebuilt from the footers on startup.
+ */
+@Service
+public class MessageArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchive.class);
+
+    private static final int MAGIC = 0x4D534741; // "MSGA"
+    private static final int TRAILER_SIZE = 8 + 4;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path archiveDir;
+    private final int blockSize;
+
+    private final Map<String, NavigableMap<Long, Segment>> catalog = new ConcurrentHashMap<>();
+
+    public MessageArchive(
+            @Value("${message.archive.dir:./data/archive}") String archiveDir,
+            @Value("${message.archive.block-size:256}") int blockSize) {
+        this.archiveDir = Paths.get(archiveDir).toAbsolutePath().normalize();
+        this.blockSize = blockSize;
+    }
+
+    @PostConstruct
+    public void loadCatalog() throws IOException {
+        if (!Files.isDirectory(archiveDir)) {
+            return;
+        }
+        try (Stream<Path> roomDirs = Files.list(archiveDir)) {
+            for (Path roomDir : roomDirs.filter(Files::isDirectory).toList()) {
+                String roomId = URLDecoder.decode(roomDir.getFileName().toString(), StandardCharsets.UTF_8);
+                try (Stream<Path> files = Files.list(roomDir)) {
+                    for (Path file : files.toList()) {
+                        String name = file.getFileName().toString();
+                        if (name.endsWith(".tmp")) {
+                            // Left over from an interrupted archival run; the rows are still in the DB
+                            Files.deleteIfExists(file);
+                        } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                            Segment segment = readFooter(file);
+                            segmentsOf(roomId).put(segment.firstSequence(), segment);
+                        }
+                    }
+                }
+            }
+        }
+        logger.info("Loaded message archive catalog for {} rooms from {}", catalog.size(), archiveDir);
+    }
+
+    /**
+     * Write messages of one room to a new immutable segment
+     *
+     * @param roomId The room the messages belong to
+     * @param messages Messages ordered by sequence, all newer than the current archive
+     */
+    public void writeSegment(String roomId, List<Message> messages) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        long firstSequence = messages.get(0).getSequence();
+        long lastSequence = messages.get(messages.size() - 1).getSequence();
+        if (firstSequence <= getMaxSequence(roomId)) {
+            throw new IllegalArgumentException("Segment overlaps already archived messages");
+        }
+
+        Path roomDir = archiveDir.resolve(URLEncoder.encode(roomId, StandardCharsets.UTF_8));
+        Files.createDirectories(roomDir);
+        String name = String.format("%020d-%020d", firstSequence, lastSequence);
+        Path target = roomDir.resolve(name + SEGMENT_SUFFIX);
+        Path temp = roomDir.resolve(name + ".tmp");
+        long lastTimestamp = toEpochMillis(messages.get(messages.size() - 1).getTimestamp());
+
+        List<Block> blocks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (int start = 0; start < messages.size(); start += blockSize) {
+                List<Message> blockMessages = messages.subList(start, Math.min(start + blockSize, messages.size()));
+                byte[] compressed = compressBlock(blockMessages);
+                writeFully(channel, ByteBuffer.wrap(compressed));
+                Message first = blockMessages.get(0);
+                blocks.add(new Block(first.getSequence(), toEpochMillis(first.getTimestamp()), offset, compressed.length,
+                        blockMessages.size()));
+                offset += compressed.length;
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate(4 + blocks.size() * (8 + 8 + 8 + 4 + 4) + 8 + 8 + TRAILER_SIZE);
+            footer.putInt(blocks.size());
+            for (Block block : blocks) {
+                footer.putLong(block.firstSequence())
+                        .putLong(block.firstTimestamp())
+                        .putLong(block.offset())
+                        .putInt(block.length())
+                        .putInt(block.count());
+            }
+            footer.putLong(lastSequence).putLong(lastTimestamp);
+            footer.putLong(offset).putInt(MAGIC).flip();
+            writeFully(channel, footer);
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        // The rename is only durable once the directory entries are; callers delete the rows next
+        forceDirectory(roomDir);
+        forceDirectory(archiveDir);
+
+        segmentsOf(roomId).put(firstSequence, new Segment(target, firstSequence, lastSequence, lastTimestamp, blocks));
+    }
+
+    private static void forceDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * @return The highest archived sequence of the room, or 0 if nothing is archived
+     */
+    public long getMaxSequence(String roomId) {
+        NavigableMap<Long, Segment> segments = catalog.get(roomId);
+        if (segments == null || segments.isEmpty()) {
+            return 0;
+        }
+        return segments.lastEntry().getValue().lastSequence();
+    }
+
+    public boolean hasMessages(String roomId) {
+        NavigableMap<Long, Segment> segments = catalog.get(roomId);
+        return segments != null && !segments.isEmpty();
+    }
+
+    /**
+     * Count back from the newest archived message of a room using the block
+     * counts, decompressing only the block that holds the one asked for
+     *
+     * @param n 1 for the newest message
+     * @return The sequence of the {@code n}th newest archived message, or 0 if the room has fewer
+     */
+    public long findNthNewestSequence(String roomId, long n) {
+        NavigableMap<Long, Segment> segments = catalog.get(roomId);
+        if (segments == null || n <= 0) {
+            return 0;
+        }
+        long remaining = n;
+        for (Segment segment : segments.descendingMap().values()) {
+            List<Block> blocks = segment.blocks();
+            for (int i = blocks.size() - 1; i >= 0; i--) {
+                Block block = blocks.get(i);
+                if (remaining > block.count()) {
+                    remaining -= block.count();
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                    return decompressBlock(channel, roomId, block).get((int) (block.count() - remaining)).getSequence();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read archive segment " + segment.path(), e);
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Read every archived message of a room in sequence order
+     */
+    public List<Message> readRoom(String roomId) {
+        return readRoom(roomId, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read archived messages with a sequence greater than {@code afterSequence}
+     */
+    public List<Message> readRoom(String roomId, long afterSequence, int limit) {
+        List<Message> result = new ArrayList<>();
+        if (limit > 0) {
+            scanRoom(roomId, afterSequence, message -> {
+                result.add(message);
+                return result.size() < limit;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Read the archived messages of a room with the given sequences in one
+     * pass, opening each segment once and decompressing only the blocks
+     * that hold one of them. Missing sequences are skipped.
+     */
+    public List<Message> readSequences(String roomId, Collection<Long> sequences) {
+        List<Message> result = new ArrayList<>();
+        NavigableMap<Long, Segment> segments = catalog.get(roomId);
+        if (segments == null || sequences.isEmpty()) {
+            return result;
+        }
+        NavigableSet<Long> wanted = new TreeSet<>(sequences);
+        for (Segment segment : segments.values()) {
+            Long next = wanted.ceiling(segment.firstSequence());
+            if (next == null) {
+                break;
+            }
+            if (next > segment.lastSequence()) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                List<Block> blocks = segment.blocks();
+                for (int i = 0; i < blocks.size(); i++) {
+                    long blockEnd = i + 1 < blocks.size() ? blocks.get(i + 1).firstSequence() - 1 : segment.lastSequence();
+                    Long hit = wanted.ceiling(blocks.get(i).firstSequence());
+                    if (hit == null || hit > blockEnd) {
+                        continue;
+                    }
+                    for (Message message : decompressBlock(channel, roomId, blocks.get(i))) {
+                        if (wanted.contains(message.getSequence())) {
+                            result.add(message);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read archive segment " + segment.path(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Hand archived messages with a sequence greater than {@code afterSequence}
+     * to the consumer one block at a time, without materializing the room
+     */
+    public void streamRoom(String roomId, long afterSequence, Consumer<Message> consumer) {
+        scanRoom(roomId, afterSequence, message -> {
+            consumer.accept(message);
+            return true;
+        });
+    }
+
+    /**
+     * Delete whole segments of a room that hold only messages up to
+     * {@code upToSequence} and, if {@code cutoff} is given, older than it.
+     * Segments are immutable, so a segment with any message to keep stays.
+     * The messages of each segment are handed to {@code released} before the
+     * segment is deleted.
+     *
+     * @return The number of messages deleted
+     */
+    public int dropSegments(String roomId, long upToSequence, LocalDateTime cutoff, Consumer<Message> released)
+            throws IOException {
+        NavigableMap<Long, Segment> segments = catalog.get(roomId);
+        if (segments == null) {
+            return 0;
+        }
+        int dropped = 0;
+        for (Segment segment : segments.values()) {
+            if (segment.lastSequence() > upToSequence
+                    || (cutoff != null && segment.lastTimestamp() >= toEpochMillis(cutoff))) {
+                break;
+            }
+            int count = 0;
+            try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                for (Block block : segment.blocks()) {
+                    for (Message message : decompressBlock(channel, roomId, block)) {
+                        released.accept(message);
+                    }
+                    count += block.count();
+                }
+            }
+            // Unlist before deleting so readers never open a missing file
+            segments.remove(segment.firstSequence());
+            Files.deleteIfExists(segment.path());
+            dropped += count;
+        }
+        return dropped;
+    }
+
+    public Set<String> getRoomIds() {
+        return catalog.keySet();
+    }
+
+    /**
+     * Walk a room's segments in sequence order, using the sparse block index
+     * to skip straight to the first relevant block, until the visitor returns false
+     */
+    private void scanRoom(String roomId, long afterSequence, Predicate<Message> visitor) {
+        NavigableMap<Long, Segment> segments = catalog.get(roomId);
+        if (segments == null) {
+            return;
+        }
+
+        Long startKey = segments.floorKey(afterSequence + 1);
+        Collection<Segment> candidates = (startKey != null ? segments.tailMap(startKey, true) : segments).values();
+        for (Segment segment : candidates) {
+            if (segment.lastSequence() <= afterSequence) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                for (int i = firstBlockAfter(segment.blocks(), afterSequence); i < segment.blocks().size(); i++) {
+                    for (Message message : decompressBlock(channel, roomId, segment.blocks().get(i))) {
+                        if (message.getSequence() > afterSequence && !visitor.test(message)) {
+                            return;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read archive segment " + segment.path(), e);
+            }
+        }
+    }
+
+    private static int firstBlockAfter(List<Block> blocks, long afterSequence) {
+        // Last block whose first sequence is <= afterSequence + 1 may still contain newer messages
+        int low = 0;
+        int high = blocks.size() - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (blocks.get(mid).firstSequence() <= afterSequence + 1) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private NavigableMap<Long, Segment> segmentsOf(String roomId) {
+        return catalog.computeIfAbsent(roomId, key -> new ConcurrentSkipListMap<>());
+    }
+
+    private static byte[] compressBlock(List<Message> messages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            for (Message message : messages) {
+                MessageCodec.write(out, message);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Message> decompressBlock(FileChannel channel, String roomId, Block block) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(block.length());
+        while (compressed.hasRemaining()) {
+            if (channel.read(compressed, block.offset() + compressed.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment");
+            }
+        }
+
+        List<Message> messages = new ArrayList<>(block.count());
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed.array())))) {
+            for (int i = 0; i < block.count(); i++) {
+                messages.add(MessageCodec.read(in, roomId));
+            }
+        }
+        return messages;
+    }
+
+    private static Segment readFooter(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            channel.read(trailer, size - TRAILER_SIZE);
+            trailer.flip();
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate((int) (size - TRAILER_SIZE - footerOffset));
+            channel.read(footer, footerOffset);
+            footer.flip();
+            int blockCount = footer.getInt();
+            List<Block> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new Block(footer.getLong(), footer.getLong(), footer.getLong(), footer.getInt(), footer.getInt()));
+            }
+            long lastSequence = footer.getLong();
+            long lastTimestamp = footer.getLong();
+            return new Segment(file, blocks.get(0).firstSequence(), lastSequence, lastTimestamp, blocks);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Sparse index entry: where a compressed block starts and what it begins with
+     */
+    private record Block(long firstSequence, long firstTimestamp, long offset, int length, int count) {
+    }
+
+    private record Segment(Path path, long firstSequence, long lastSequence, long lastTimestamp, List<Block> blocks) {
+    }
+}
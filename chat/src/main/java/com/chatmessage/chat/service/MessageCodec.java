@@ -0,0 +1,59 @@
+package com.chatmessage.chat.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.chatmessage.chat.model.Message;
+
+/**
+ * Compact binary encoding of a message shared by the on-disk message formats.
+ * The room id is not written; it is implied by the file the record lives in.
+ */
+final class MessageCodec {
+
+    private MessageCodec() {
+    }
+
+    static void write(DataOutput out, Message message) throws IOException {
+        out.writeLong(message.getSequence());
+        out.writeLong(message.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(message.getTimestamp().getNano());
+        writeString(out, message.getMessageId());
+        writeString(out, message.getSenderId());
+        writeString(out, message.getContent());
+        writeString(out, message.getImageUrl());
+    }
+
+    static Message read(DataInput in, String roomId) throws IOException {
+        long sequence = in.readLong();
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        Message message = new Message(readString(in), readString(in), roomId, readString(in), readString(in));
+        message.setSequence(sequence);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+/**
+ * Writes message history as newline-delimited JSON, one message per line,
+ * streaming from the archive and the message store so memory use does not
+ * depend on the amount of history. Every line carries the message's room and
+ * sequence, which is all a client needs to resume an interrupted export.
+ */
+@Service
+public class MessageExportService {
+
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
+    private final ObjectMapper objectMapper;
+
+    public MessageExportService(MessageStore messageStore, MessageArchive messageArchive, ObjectMapper objectMapper) {
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Export a room's messages with a sequence greater than {@code afterSequence}
+     *
+     * @return The number of messages written
+     */
+    public long exportRoom(String roomId, long afterSequence, OutputStream out) throws IOException {
+        try (SequenceWriter writer = newWriter(out)) {
+            return writeRoom(roomId, afterSequence, writer);
+        }
+    }
+
+    /**
+     * Export every message, room by room in room id order and by sequence
+     * within a room. Resumes after ({@code afterRoomId}, {@code afterSequence})
+     * when {@code afterRoomId} is given.
+     *
+     * @return The number of messages written
+     */
+    public long exportAll(String afterRoomId, long afterSequence, OutputStream out) throws IOException {
+        NavigableSet<String> roomIds = new TreeSet<>(messageStore.findRoomIds());
+        roomIds.addAll(messageArchive.getRoomIds());
+        if (afterRoomId != null) {
+            roomIds = roomIds.tailSet(afterRoomId, true);
+        }
+
+        long written = 0;
+        try (SequenceWriter writer = newWriter(out)) {
+            for (String roomId : roomIds) {
+                written += writeRoom(roomId, roomId.equals(afterRoomId) ? afterSequence : 0, writer);
+            }
+        }
+        return written;
+    }
+
+    private long writeRoom(String roomId, long afterSequence, SequenceWriter writer) {
+        AtomicLong written = new AtomicLong();
+        Consumer<Message> line = message -> {
+            try {
+                writer.write(message);
+                written.incrementAndGet();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        messageArchive.streamRoom(roomId, afterSequence, line);
+        messageStore.streamByRoomId(roomId, Math.max(afterSequence, messageArchive.getMaxSequence(roomId)), line);
+        return written.get();
+    }
+
+    private SequenceWriter newWriter(OutputStream out) throws IOException {
+        // Leave closing the response stream to the caller; each value is followed by a newline
+        return objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+    }
+}
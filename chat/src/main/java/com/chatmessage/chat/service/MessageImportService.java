@@ -0,0 +1,337 @@
+package com.chatmessage.chat.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Bulk-loads messages from newline-delimited JSON, one message per line, in
+ * the format produced by {@link MessageExportService}. Lines are validated
+ * and handed to the message store in batches; membership is looked up once
+ * per (room, sender) pair. Imported messages are not broadcast to room
+ * subscribers; once committed they are added to the search index and room
+ * activity summaries.
+ */
+@Service
+public class MessageImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageImportService.class);
+
+    private final MessageStore messageStore;
+    private final RoomRepository roomRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MessageSearchIndex searchIndex;
+    private final RoomActivityService roomActivityService;
+    private final RoomChangeFeed changeFeed;
+    private final VersionStamps versionStamps;
+    private final ObjectReader lineReader;
+    private final int batchSize;
+    private final int commitInterval;
+    private final int maxReportedErrors;
+
+    public MessageImportService(MessageStore messageStore, RoomRepository roomRepository,
+            PlatformTransactionManager transactionManager, MessageSearchIndex searchIndex, RoomActivityService roomActivityService,
+            RoomChangeFeed changeFeed, VersionStamps versionStamps, ObjectMapper objectMapper,
+            @Value("${message.import.batch-size:1000}") int batchSize,
+            @Value("${message.import.commit-interval:10000}") int commitInterval,
+            @Value("${message.import.max-reported-errors:1000}") int maxReportedErrors) {
+        if (batchSize <= 0 || commitInterval <= 0) {
+            throw new IllegalArgumentException("Import batch size and commit interval must be positive");
+        }
+        this.messageStore = messageStore;
+        this.roomRepository = roomRepository;
+        this.transactionManager = transactionManager;
+        this.searchIndex = searchIndex;
+        this.roomActivityService = roomActivityService;
+        this.changeFeed = changeFeed;
+        this.versionStamps = versionStamps;
+        this.lineReader = objectMapper.readerFor(ImportedMessage.class);
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Import every line of the stream. Invalid lines are skipped and reported
+     * without stopping the import.
+     *
+     * @return Counts of imported and rejected lines with the reason for each rejection
+     */
+    public ImportResult importMessages(InputStream in) throws IOException {
+        Run run = new Run();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        String line;
+        int lineNumber = 0;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Message message = run.parse(lineNumber, line);
+                if (message != null) {
+                    run.add(lineNumber, message);
+                }
+            }
+            run.finish();
+        } catch (RuntimeException | IOException e) {
+            run.abort();
+            throw e;
+        }
+
+        logger.info("Imported {} messages, rejected {} lines", run.result.getImported(), run.result.getFailed());
+        return run.result;
+    }
+
+    /**
+     * The fields of one input line; any other fields, such as the sequence of
+     * an exported message, are ignored
+     */
+    private record ImportedMessage(String messageId, String senderId, String roomId, String content, String imageUrl,
+            LocalDateTime timestamp) {
+    }
+
+    private record PendingMessage(int line, Message message) {
+    }
+
+    private record Member(String roomId, String senderId) {
+    }
+
+    /**
+     * State of a single import: membership verdicts, the batch being filled
+     * and the lines written since the last commit, which are replayed one by
+     * one if a batch is rejected. With a non-transactional store every batch
+     * is committed as soon as it is written.
+     */
+    private class Run {
+
+        private final ImportResult result = new ImportResult(maxReportedErrors);
+        private final Map<Member, Optional<String>> membership = new HashMap<>();
+        private final List<PendingMessage> batch = new ArrayList<>(batchSize);
+        private final List<PendingMessage> uncommitted = new ArrayList<>();
+        private TransactionStatus transaction;
+
+        private Message parse(int lineNumber, String line) {
+            ImportedMessage imported;
+            try {
+                imported = lineReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                result.reject(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                return null;
+            }
+
+            if (imported == null) {
+                result.reject(lineNumber, "Malformed JSON: expected an object");
+                return null;
+            }
+            if (isBlank(imported.roomId()) || isBlank(imported.senderId())) {
+                result.reject(lineNumber, "roomId and senderId are required");
+                return null;
+            }
+            if (isBlank(imported.content()) && isBlank(imported.imageUrl())) {
+                result.reject(lineNumber, "Either message content or image must be provided");
+                return null;
+            }
+            Optional<String> denied = membership.computeIfAbsent(
+                    new Member(imported.roomId(), imported.senderId()), this::checkMembership);
+            if (denied.isPresent()) {
+                result.reject(lineNumber, denied.get());
+                return null;
+            }
+
+            Message message = new Message(
+                    isBlank(imported.messageId()) ? UUID.randomUUID().toString() : imported.messageId(),
+                    imported.senderId(), imported.roomId(),
+                    imported.content() != null ? imported.content() : "", imported.imageUrl());
+            if (imported.timestamp() != null) {
+                message.setTimestamp(imported.timestamp());
+            }
+            return message;
+        }
+
+        private Optional<String> checkMembership(Member member) {
+            if (!roomRepository.existsById(member.roomId())) {
+                return Optional.of("Room not found");
+            }
+            if (!roomRepository.isMember(member.roomId(), member.senderId())) {
+                return Optional.of("User is not a member of this room");
+            }
+            return Optional.empty();
+        }
+
+        private void add(int lineNumber, Message message) {
+            batch.add(new PendingMessage(lineNumber, message));
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void finish() {
+            flush();
+            commit();
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (transaction == null) {
+                transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+            }
+            try {
+                messageStore.appendAll(batch.stream().map(PendingMessage::message).toList());
+            } catch (DataAccessException e) {
+                uncommitted.addAll(batch);
+                batch.clear();
+                rollbackAndReplay();
+                return;
+            }
+            uncommitted.addAll(batch);
+            batch.clear();
+            // A store that ignores rollbacks already holds the batch, so it is
+            // committed at once and never replayed along with a later batch
+            if (uncommitted.size() >= commitInterval || !messageStore.isTransactional()) {
+                commit();
+            }
+        }
+
+        private void commit() {
+            if (transaction == null) {
+                return;
+            }
+            try {
+                transactionManager.commit(transaction);
+            } catch (DataAccessException e) {
+                transaction = null;
+                replay();
+                return;
+            }
+            transaction = null;
+            result.imported += uncommitted.size();
+            List<Message> committed = uncommitted.stream().map(PendingMessage::message).toList();
+            committed.forEach(searchIndex::add);
+            roomActivityService.recordAll(committed);
+            committed.forEach(changeFeed::append);
+            committed.stream().map(Message::getRoomId).distinct().forEach(versionStamps::roomChanged);
+            uncommitted.clear();
+        }
+
+        private void abort() {
+            if (transaction != null) {
+                transactionManager.rollback(transaction);
+                transaction = null;
+            }
+        }
+
+        private void rollbackAndReplay() {
+            abort();
+            replay();
+        }
+
+        /**
+         * Write the lines of a rejected transaction in a transaction each so
+         * that only the offending lines are reported
+         */
+        private void replay() {
+            logger.debug("Batch rejected, retrying {} messages individually", uncommitted.size());
+            for (PendingMessage pending : uncommitted) {
+                TransactionStatus single = transactionManager.getTransaction(new DefaultTransactionDefinition());
+                try {
+                    messageStore.appendAll(List.of(pending.message()));
+                    transactionManager.commit(single);
+                    result.imported++;
+                    searchIndex.add(pending.message());
+                    roomActivityService.record(pending.message());
+                    changeFeed.append(pending.message());
+                    versionStamps.roomChanged(pending.message().getRoomId());
+                } catch (DuplicateKeyException e) {
+                    rollbackIfActive(single);
+                    result.reject(pending.line(), "Message id already exists");
+                } catch (DataAccessException e) {
+                    rollbackIfActive(single);
+                    result.reject(pending.line(), e.getMostSpecificCause().getMessage());
+                }
+            }
+            uncommitted.clear();
+        }
+
+        private void rollbackIfActive(TransactionStatus status) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Outcome of an import. Only the first {@code maxReportedErrors}
+     * rejections are listed; {@link #getFailed()} counts all of them.
+     */
+    public static class ImportResult {
+
+        private final int maxReportedErrors;
+        private long imported;
+        private long failed;
+        private final List<LineError> errors = new ArrayList<>();
+
+        ImportResult(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        private void reject(int line, String error) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new LineError(line, error));
+            }
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Rejected lines in line order. Batch failures are only detected at
+         * flush time, so they are recorded out of order.
+         */
+        public List<LineError> getErrors() {
+            errors.sort(Comparator.comparingInt(LineError::line));
+            return errors;
+        }
+    }
+
+    public record LineError(int line, String error) {
+    }
+}
@@ -0,0 +1,257 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Periodically deletes messages beyond their room's retention limits (see
+ * {@link RetentionPolicyService}) and releases their images. Deleted
+ * messages are dropped from the {@link MessageSearchIndex} hits as well.
+ *
+ * Archive segments are dropped whole once every message in them is expired.
+ * Rows are deleted from the message store in key ranges of at most
+ * {@code message.retention.batch-size} messages, one short statement per
+ * batch with a pause in between, so senders in the same room are never
+ * blocked for long. The newest message of a room is always kept: it anchors
+ * the room's sequence numbers and its inbox preview.
+ *
+ * Runs go to a thread of their own, so the pauses never hold up the other
+ * scheduled jobs, and a room is never purged while
+ * {@link MessageArchivalJob} archives it.
+ */
+@Service
+@ConditionalOnProperty(name = "message.retention.enabled", havingValue = "true")
+public class MessageRetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageRetentionJob.class);
+
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
+    private final StorageService storageService;
+    private final RetentionPolicyService retentionPolicyService;
+    private final RoomChangeFeed changeFeed;
+    private final VersionStamps versionStamps;
+    private final RoomMaintenanceLocks roomLocks;
+    private final MessageSearchIndex searchIndex;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService purger;
+
+    public MessageRetentionJob(MessageStore messageStore, MessageArchive messageArchive, StorageService storageService,
+            RetentionPolicyService retentionPolicyService, RoomChangeFeed changeFeed,
+            VersionStamps versionStamps, RoomMaintenanceLocks roomLocks, MessageSearchIndex searchIndex,
+            @Value("${message.retention.batch-size:500}") int batchSize,
+            @Value("${message.retention.batch-pause-ms:50}") long batchPauseMs) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Retention batch size must be positive");
+        }
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
+        this.storageService = storageService;
+        this.retentionPolicyService = retentionPolicyService;
+        this.changeFeed = changeFeed;
+        this.versionStamps = versionStamps;
+        this.roomLocks = roomLocks;
+        this.searchIndex = searchIndex;
+        this.batchSize = batchSize;
+        this.batchPauseMs = batchPauseMs;
+        this.purger = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "message-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        purger.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${message.retention.interval-ms:3600000}",
+            initialDelayString = "${message.retention.initial-delay-ms:120000}")
+    public void purgeExpiredMessages() {
+        // A run that is still going covers the next one
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        purger.execute(() -> {
+            try {
+                purgeAllRooms();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    private void purgeAllRooms() {
+        Set<String> roomIds = new TreeSet<>(retentionPolicyService.getRoomIdsWithPolicy());
+        if (retentionPolicyService.hasDefaultLimits()) {
+            roomIds.addAll(messageStore.findRoomIds());
+            roomIds.addAll(messageArchive.getRoomIds());
+        }
+        for (String roomId : roomIds) {
+            try {
+                int purged = purgeRoom(roomId);
+                if (purged > 0) {
+                    logger.info("Purged {} expired messages of room {}", purged, roomId);
+                }
+            } catch (IOException e) {
+                logger.error("Failed to purge messages of room {}: {}", roomId, e.getMessage());
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delete the messages of one room that are beyond its retention limits
+     *
+     * @return The number of messages deleted
+     */
+    public int purgeRoom(String roomId) throws IOException {
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            int purged = purge(roomId);
+            if (purged > 0) {
+                versionStamps.roomChanged(roomId);
+                // Deletions are a prefix of the history: report it through the sequence before the first message left
+                List<Message> first = messageArchive.hasMessages(roomId)
+                        ? messageArchive.readRoom(roomId, 0, 1)
+                        : messageStore.findByRoomIdAfterSequence(roomId, 0, 1);
+                if (!first.isEmpty()) {
+                    long deletedThrough = first.get(0).getSequence() - 1;
+                    changeFeed.recordDeleted(roomId, deletedThrough);
+                    searchIndex.deleteThrough(roomId, deletedThrough);
+                }
+            }
+            return purged;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int purge(String roomId) throws IOException {
+        RetentionPolicyService.Retention retention = retentionPolicyService.getRetention(roomId);
+        if (retention.isUnlimited()) {
+            return 0;
+        }
+
+        long upToSequence = messageStore.getLastSequence(roomId) - 1;
+        if (retention.maxMessages() != null) {
+            upToSequence = Math.min(upToSequence, newestSequenceBeyond(roomId, retention.maxMessages()));
+        }
+        LocalDateTime cutoff = retention.maxAgeDays() != null
+                ? LocalDateTime.now().minusDays(retention.maxAgeDays()) : null;
+        if (upToSequence <= 0) {
+            return 0;
+        }
+
+        List<String> images = new ArrayList<>();
+        int total = messageArchive.dropSegments(roomId, upToSequence, cutoff, message -> collectImage(message, images));
+        releaseImages(images);
+
+        // Deletes are a prefix in sequence order, so the first message to keep ends the scan. Imported
+        // messages keep their timestamps and can follow newer ones; they wait for those to expire.
+        long after = messageArchive.getMaxSequence(roomId);
+        while (true) {
+            List<Message> candidates = messageStore.findByRoomIdAfterSequence(roomId, after, batchSize);
+
+            int expired = 0;
+            for (Message message : candidates) {
+                if (message.getSequence() > upToSequence
+                        || (cutoff != null && !message.getTimestamp().isBefore(cutoff))) {
+                    break;
+                }
+                collectImage(message, images);
+                expired++;
+            }
+            if (expired == 0) {
+                return total;
+            }
+
+            long upTo = candidates.get(expired - 1).getSequence();
+            messageStore.deleteRange(roomId, after, upTo);
+            releaseImages(images);
+            after = upTo;
+            total += expired;
+
+            if (expired < candidates.size() || candidates.size() < batchSize || !pause()) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * The sequence of the newest message that is not among the newest
+     * {@code maxMessages} of a room, stored or archived, or 0 if there are no
+     * more than that. Counted from the messages themselves, since deleted
+     * messages leave gaps in the sequences.
+     */
+    private long newestSequenceBeyond(String roomId, long maxMessages) {
+        long stored = messageStore.countByRoomIdAfterSequence(roomId, messageArchive.getMaxSequence(roomId));
+        if (stored > maxMessages) {
+            return messageStore.findNthNewestSequence(roomId, maxMessages + 1);
+        }
+        return messageArchive.findNthNewestSequence(roomId, maxMessages + 1 - stored);
+    }
+
+    private static void collectImage(Message message, Collection<String> images) {
+        if (message.getImageUrl() != null && !message.getImageUrl().isEmpty()) {
+            images.add(message.getImageUrl());
+        }
+    }
+
+    /**
+     * Delete images of messages that are already gone; a failure leaves an
+     * orphaned file behind but never a message without its image
+     */
+    private void releaseImages(List<String> images) {
+        for (String imageUrl : images) {
+            try {
+                storageService.deleteImage(imageUrl);
+            } catch (IOException e) {
+                logger.warn("Failed to delete image {}: {}", imageUrl, e.getMessage());
+            }
+        }
+        images.clear();
+    }
+
+    /**
+     * @return false if the thread was interrupted
+     */
+    private boolean pause() {
+        if (batchPauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package com.chatmessage.chat.service;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+
+/**
+ * In-memory inverted index over message content.
+ *
+ * Every indexed message gets a document number in indexing order. Per
+ * document only the room, sender, sequence and timestamp are kept (as
+ * ordinals and longs); the message itself is loaded from the store when a
+ * hit is returned. A rebuild indexes room by room, so document numbers do
+ * not order messages across rooms; hits are ranked by timestamp.
+ * Each term maps to a postings list of document numbers, delta-encoded as
+ * variable-length ints, so frequent terms cost about one byte per message.
+ *
+ * The index is fed as messages are sent or imported and rebuilt from the
+ * archive and the message store at startup. Messages deleted by retention
+ * stay in the postings until the next rebuild; a per-room delete-through
+ * sequence keeps them out of the hits.
+ */
+@Service
+public class MessageSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchIndex.class);
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
+    private final boolean rebuildOnStartup;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+    // Messages added while a rebuild is running, replayed into the new index before it is swapped in
+    private List<Message> addedDuringRebuild;
+    // Per room, the sequence up to which messages are deleted; also applied to a rebuild that may have read them
+    private final Map<String, Long> deletedThrough = new HashMap<>();
+
+    public MessageSearchIndex(MessageStore messageStore, MessageArchive messageArchive,
+            @Value("${message.search.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /**
+     * A matching message, identified by its room and sequence
+     */
+    public record Hit(String roomId, long sequence) {
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Failed to rebuild search index", e);
+        }
+    }
+
+    /**
+     * Index a newly stored message
+     */
+    public void add(Message message) {
+        lock.writeLock().lock();
+        try {
+            index.add(message);
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(message);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop returning messages of a room up to and including a sequence, once
+     * they are deleted from the store and the archive
+     */
+    public void deleteThrough(String roomId, long sequence) {
+        lock.writeLock().lock();
+        try {
+            deletedThrough.merge(roomId, sequence, Math::max);
+            index.deleteThrough(roomId, sequence);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the index with one built from every archived and stored
+     * message. Searches keep using the old index until the new one is ready.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (addedDuringRebuild != null) {
+                throw new IllegalStateException("Search index rebuild already in progress");
+            }
+            addedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        Index rebuilt = new Index();
+        // Documents [first, end) of each room, in sequence order
+        Map<String, int[]> roomDocs = new HashMap<>();
+        try {
+            Set<String> roomIds = new TreeSet<>(messageStore.findRoomIds());
+            roomIds.addAll(messageArchive.getRoomIds());
+            for (String roomId : roomIds) {
+                int first = rebuilt.documents;
+                messageArchive.streamRoom(roomId, 0, rebuilt::add);
+                messageStore.streamByRoomId(roomId, messageArchive.getMaxSequence(roomId), rebuilt::add);
+                roomDocs.put(roomId, new int[]{first, rebuilt.documents});
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            addedDuringRebuild = null;
+            lock.writeLock().unlock();
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Messages sent while a room was being read may or may not have been seen by the scan,
+            // whatever their sequence: a message can be committed after one with a later sequence
+            for (Message message : addedDuringRebuild) {
+                int[] docs = roomDocs.get(message.getRoomId());
+                if (docs == null || !rebuilt.containsSequence(docs[0], docs[1], message.getSequence())) {
+                    rebuilt.add(message);
+                }
+            }
+            addedDuringRebuild = null;
+            deletedThrough.forEach(rebuilt::deleteThrough);
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Rebuilt search index: {} messages, {} terms, {} KB of postings in {} ms",
+                rebuilt.documents, rebuilt.postings.size(), rebuilt.postingsBytes() / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Find messages containing every term of the query, newest first
+     *
+     * @param roomIds Only messages of these rooms are returned
+     * @param senderId If not null, only messages of this sender are returned
+     * @param limit Maximum number of hits
+     */
+    public List<Hit> search(String query, Collection<String> roomIds, String senderId, int limit) {
+        Set<String> terms = tokenize(query);
+        if (terms.isEmpty() || roomIds.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(terms, roomIds, senderId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return index.documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return index.postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cased runs of letters and digits, without duplicates, in order of
+     * first occurrence
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * The index data. Not thread-safe; guarded by the enclosing lock once
+     * published.
+     */
+    private static final class Index {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<String, Integer> roomOrdinals = new HashMap<>();
+        private final List<String> rooms = new ArrayList<>();
+        private final Map<String, Integer> senderOrdinals = new HashMap<>();
+        private int[] docRooms = new int[1024];
+        private int[] docSenders = new int[1024];
+        private long[] docSequences = new long[1024];
+        private long[] docTimestamps = new long[1024];
+        // Per room ordinal, the sequence up to which documents are deleted
+        private long[] roomDeletedThrough = new long[16];
+        private int documents;
+
+        private void add(Message message) {
+            Set<String> terms = tokenize(message.getContent());
+            if (terms.isEmpty()) {
+                return;
+            }
+            if (documents == docRooms.length) {
+                int capacity = documents + (documents >> 1);
+                docRooms = Arrays.copyOf(docRooms, capacity);
+                docSenders = Arrays.copyOf(docSenders, capacity);
+                docSequences = Arrays.copyOf(docSequences, capacity);
+                docTimestamps = Arrays.copyOf(docTimestamps, capacity);
+            }
+            int doc = documents++;
+            int room = roomOrdinals.computeIfAbsent(message.getRoomId(), roomId -> {
+                rooms.add(roomId);
+                if (rooms.size() > roomDeletedThrough.length) {
+                    roomDeletedThrough = Arrays.copyOf(roomDeletedThrough, roomDeletedThrough.length * 2);
+                }
+                return rooms.size() - 1;
+            });
+            docRooms[doc] = room;
+            docSenders[doc] = senderOrdinals.computeIfAbsent(message.getSenderId(), senderId -> senderOrdinals.size());
+            docSequences[doc] = message.getSequence();
+            docTimestamps[doc] = message.getTimestamp() != null
+                    ? message.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new Postings()).add(doc);
+            }
+        }
+
+        /**
+         * Rooms without documents have nothing to hide; their later documents come after the deletion
+         */
+        private void deleteThrough(String roomId, long sequence) {
+            Integer room = roomOrdinals.get(roomId);
+            if (room != null) {
+                roomDeletedThrough[room] = Math.max(roomDeletedThrough[room], sequence);
+            }
+        }
+
+        /**
+         * @return Whether one of the documents [first, end), whose sequences ascend, has the sequence
+         */
+        private boolean containsSequence(int first, int end, long sequence) {
+            return end > first && Arrays.binarySearch(docSequences, first, end, sequence) >= 0;
+        }
+
+        /**
+         * Newer first: later timestamp, then later document
+         */
+        private int compareNewer(int a, int b) {
+            int byTime = Long.compare(docTimestamps[b], docTimestamps[a]);
+            return byTime != 0 ? byTime : Integer.compare(b, a);
+        }
+
+        private List<Hit> search(Set<String> terms, Collection<String> roomIds, String senderId, int limit) {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            BitSet roomFilter = new BitSet(rooms.size());
+            for (String roomId : roomIds) {
+                Integer room = roomOrdinals.get(roomId);
+                if (room != null) {
+                    roomFilter.set(room);
+                }
+            }
+            int sender = -1;
+            if (senderId != null) {
+                Integer ordinal = senderOrdinals.get(senderId);
+                if (ordinal == null) {
+                    return List.of();
+                }
+                sender = ordinal;
+            }
+
+            // Drive the intersection with the rarest term
+            lists.sort((a, b) -> Integer.compare(a.count, b.count));
+            PostingsIterator[] iterators = new PostingsIterator[lists.size()];
+            for (int i = 0; i < iterators.length; i++) {
+                iterators[i] = lists.get(i).iterator();
+            }
+
+            // Oldest of the newest hits so far on top
+            PriorityQueue<Integer> newest = new PriorityQueue<>(limit + 1, (a, b) -> compareNewer(b, a));
+            candidates:
+            for (int doc = iterators[0].next(); doc >= 0; doc = iterators[0].next()) {
+                for (int i = 1; i < iterators.length; i++) {
+                    int other = iterators[i].advance(doc);
+                    if (other < 0) {
+                        break candidates;
+                    }
+                    if (other != doc) {
+                        continue candidates;
+                    }
+                }
+                if (!roomFilter.get(docRooms[doc]) || (sender >= 0 && docSenders[doc] != sender)
+                        || docSequences[doc] <= roomDeletedThrough[docRooms[doc]]) {
+                    continue;
+                }
+                newest.add(doc);
+                if (newest.size() > limit) {
+                    newest.poll();
+                }
+            }
+
+            List<Integer> docs = new ArrayList<>(newest);
+            docs.sort(this::compareNewer);
+            List<Hit> hits = new ArrayList<>(docs.size());
+            for (int doc : docs) {
+                hits.add(new Hit(rooms.get(docRooms[doc]), docSequences[doc]));
+            }
+            return hits;
+        }
+
+        private long postingsBytes() {
+            long bytes = 0;
+            for (Postings list : postings.values()) {
+                bytes += list.size;
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Ascending document numbers stored as varint-encoded gaps
+     */
+    private static final class Postings {
+
+        private byte[] data = new byte[4];
+        private int size;
+        private int count;
+        private int lastDoc = -1;
+
+        private void add(int doc) {
+            if (data.length - size < 5) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+            }
+            int gap = doc - lastDoc;
+            while ((gap & ~0x7F) != 0) {
+                data[size++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[size++] = (byte) gap;
+            lastDoc = doc;
+            count++;
+        }
+
+        private PostingsIterator iterator() {
+            return new PostingsIterator(this);
+        }
+    }
+
+    private static final class PostingsIterator {
+
+        private final byte[] data;
+        private final int size;
+        private int position;
+        private int doc = -1;
+
+        private PostingsIterator(Postings postings) {
+            this.data = postings.data;
+            this.size = postings.size;
+        }
+
+        /**
+         * @return The next document number, or -1 when exhausted
+         */
+        private int next() {
+            if (position >= size) {
+                return -1;
+            }
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += gap;
+            return doc;
+        }
+
+        /**
+         * @return The first document number at or after {@code target}, or -1 when exhausted
+         */
+        private int advance(int target) {
+            int current = doc;
+            while (current < target) {
+                current = next();
+                if (current < 0) {
+                    return -1;
+                }
+            }
+            return current;
+        }
+    }
+}
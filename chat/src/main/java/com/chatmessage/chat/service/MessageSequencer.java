@@ -0,0 +1,89 @@
+package com.chatmessage.chat.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.repository.MessageRepository;
+
+/**
+ * Hands out per-room message sequence numbers.
+ *
+ * Counters live in memory and are seeded lazily from the highest sequence in
+ * the database or the archive. Rows written before sequences existed are
+ * numbered in timestamp order the first time their room is seeded. Seeding
+ * runs in its own read-write transaction, so it also sticks when the first
+ * use of a room is inside a read-only one.
+ */
+@Service
+public class MessageSequencer {
+
+    private final MessageRepository messageRepository;
+    private final MessageArchive messageArchive;
+    private final TransactionTemplate seedTransaction;
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    // Not synchronized: seeding queries the database, which would pin a virtual thread to its carrier
+    private final ReentrantLock seedLock = new ReentrantLock();
+
+    public MessageSequencer(MessageRepository messageRepository, MessageArchive messageArchive,
+            PlatformTransactionManager transactionManager) {
+        this.messageRepository = messageRepository;
+        this.messageArchive = messageArchive;
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Allocate the next sequence number for a room
+     */
+    public long next(String roomId) {
+        return counterFor(roomId).incrementAndGet();
+    }
+
+    /**
+     * @return The last sequence number allocated in a room, or 0 if it has no messages
+     */
+    public long current(String roomId) {
+        return counterFor(roomId).get();
+    }
+
+    private AtomicLong counterFor(String roomId) {
+        AtomicLong counter = counters.get(roomId);
+        if (counter != null) {
+            return counter;
+        }
+        seedLock.lock();
+        try {
+            counter = counters.get(roomId);
+            if (counter == null) {
+                counter = new AtomicLong(seedTransaction.execute(status -> seed(roomId)));
+                counters.put(roomId, counter);
+            }
+            return counter;
+        } finally {
+            seedLock.unlock();
+        }
+    }
+
+    private long seed(String roomId) {
+        Long maxInDb = messageRepository.findMaxSequenceByRoomId(roomId);
+        long max = Math.max(maxInDb != null ? maxInDb : 0, messageArchive.getMaxSequence(roomId));
+
+        List<Message> unsequenced = messageRepository.findByRoomIdAndSequenceIsNullOrderByTimestampAsc(roomId);
+        if (!unsequenced.isEmpty()) {
+            for (Message message : unsequenced) {
+                message.setSequence(++max);
+            }
+            messageRepository.saveAll(unsequenced);
+        }
+        return max;
+    }
+}
@@ -1,28 +1,53 @@
 package com.chatmessage.chat.service;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.chatmessage.chat.model.Message;
-import com.chatmessage.chat.model.Room;
-import com.chatmessage.chat.repository.MessageRepository;
+import com.chatmessage.chat.model.MessageHistory;
+import com.chatmessage.chat.model.RoomChanges;
 import com.chatmessage.chat.repository.RoomRepository;
 
 @Service
 public class MessageService {
 
-    private final MessageRepository messageRepository;
+    private final MessageStore messageStore;
     private final RoomRepository roomRepository;
     private final StorageService storageService;
+    private final MessageArchive messageArchive;
+    private final MessageSearchIndex searchIndex;
+    private final RoomActivityService roomActivityService;
+    private final UserService userService;
+    private final ChatMetrics metrics;
+    private final RoomChangeFeed changeFeed;
+    private final VersionStamps versionStamps;
 
-    public MessageService(MessageRepository messageRepository, RoomRepository roomRepository, StorageService storageService) {
-        this.messageRepository = messageRepository;
+    public MessageService(MessageStore messageStore, RoomRepository roomRepository, StorageService storageService,
+            MessageArchive messageArchive, MessageSearchIndex searchIndex, RoomActivityService roomActivityService,
+            UserService userService, ChatMetrics metrics, RoomChangeFeed changeFeed,
+            VersionStamps versionStamps) {
+        this.messageStore = messageStore;
         this.roomRepository = roomRepository;
         this.storageService = storageService;
+        this.messageArchive = messageArchive;
+        this.searchIndex = searchIndex;
+        this.roomActivityService = roomActivityService;
+        this.userService = userService;
+        this.metrics = metrics;
+        this.changeFeed = changeFeed;
+        this.versionStamps = versionStamps;
     }
 
     /**
@@ -38,23 +63,39 @@ public class MessageService {
      * a member
      */
     public Message sendMessage(String senderId, String roomId, String content, MultipartFile image) throws IOException {
-        // Validate if user is a member of the room
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Room not found"));
+        return sendMessage(senderId, roomId, content, image, new MessageTrace());
+    }
 
-        if (!room.isMember(senderId)) {
-            throw new IllegalArgumentException("User is not a member of this room");
-        }
+    /**
+     * Send a message, stamping the validated, uploaded and persisted stages
+     * on the given trace
+     */
+    public Message sendMessage(String senderId, String roomId, String content, MultipartFile image,
+            MessageTrace trace) throws IOException {
+        // Validate if user is a member of the room
+        validateMembership(senderId, roomId);
 
         // Validate that either content or image is provided
         if ((content == null || content.trim().isEmpty()) && (image == null || image.isEmpty())) {
             throw new IllegalArgumentException("Either message content or image must be provided");
         }
+        trace.markValidated();
+        metrics.recordSendPhase(ChatMetrics.SendPhase.VALIDATE, trace.validateNanos());
 
         // Upload image if provided
         String imageUrl = null;
         if (image != null && !image.isEmpty()) {
+            FlightEvents.ImageUpload uploadEvent = new FlightEvents.ImageUpload();
+            uploadEvent.begin();
             imageUrl = storageService.uploadImage(image);
+            trace.markUploaded();
+            if (uploadEvent.shouldCommit()) {
+                uploadEvent.roomId = roomId;
+                uploadEvent.bytes = image.getSize();
+                uploadEvent.commit();
+            }
+            metrics.recordSendPhase(ChatMetrics.SendPhase.UPLOAD, trace.uploadNanos());
+            metrics.recordUpload(image.getSize(), trace.uploadNanos());
         }
 
         // Create and save message
@@ -65,27 +106,186 @@ public class MessageService {
         message.setContent(content != null ? content : "");
         message.setImageUrl(imageUrl);
 
-        return messageRepository.save(message);
+        Message saved = messageStore.append(message);
+        searchIndex.add(saved);
+        roomActivityService.record(saved);
+        changeFeed.append(saved);
+        versionStamps.roomChanged(roomId);
+        trace.markPersisted();
+        metrics.recordSendPhase(ChatMetrics.SendPhase.SAVE, trace.saveNanos());
+        metrics.recordMessageSent(roomId);
+        return saved;
     }
 
+    /**
+     * Get the full history of a room, including archived messages, in
+     * sequence order like the paged history
+     */
+    @Transactional(readOnly = true)
     public List<Message> getMessagesByRoomId(String userId, String roomId) {
-        // Validate if user is a member of the room
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Room not found"));
+        long start = System.nanoTime();
+        validateMembership(userId, roomId);
 
-        if (!room.isMember(userId)) {
-            throw new IllegalArgumentException("User is not a member of this room");
+        List<Message> messages = messageStore.findByRoomId(roomId);
+        if (messageArchive.hasMessages(roomId)) {
+            List<Message> recent = messages;
+            messages = new ArrayList<>(messageArchive.readRoom(roomId));
+            messages.addAll(recent);
         }
+        metrics.recordHistoryRead(roomId, false, messages.size(), System.nanoTime() - start);
+        return messages;
+    }
+
+    /**
+     * Get one page of a room's history in sequence order, reading from the
+     * archive first and continuing in the database
+     *
+     * @param afterSequence Only messages with a greater sequence are returned (0 for the start)
+     * @param limit Maximum number of messages to return
+     */
+    @Transactional(readOnly = true)
+    public List<Message> getMessagesByRoomId(String userId, String roomId, long afterSequence, int limit) {
+        long start = System.nanoTime();
+        validateMembership(userId, roomId);
 
-        return messageRepository.findByRoomIdOrderByTimestamp(roomId);
+        List<Message> messages = readPage(roomId, afterSequence, limit);
+        metrics.recordHistoryRead(roomId, true, messages.size(), System.nanoTime() - start);
+        return messages;
+    }
+
+    /**
+     * Get the weak ETag of a room's history, from memory. Take it before
+     * reading the history, so the history is never older than the tag.
+     *
+     * @param includeSenders Whether the response also carries the senders' profiles
+     */
+    public String getHistoryETag(String roomId, boolean includeSenders) {
+        return includeSenders ? versionStamps.roomWithUsersETag(roomId) : versionStamps.roomETag(roomId);
+    }
+
+    public boolean isMember(String userId, String roomId) {
+        return roomRepository.isMember(roomId, userId);
+    }
+
+    /**
+     * Get the changes of a room since a position: the messages stored after
+     * it, and how far the retention job has deleted the room's history.
+     * Recent messages come from the change feed's buffer; a poll with
+     * nothing new reads no messages at all.
+     *
+     * @param since A position token of an earlier call, or the last sequence the client has (0 for none)
+     * @param limit Maximum number of messages to return
+     */
+    @Transactional(readOnly = true)
+    public RoomChanges getChanges(String userId, String roomId, String since, int limit) {
+        validateMembership(userId, roomId);
+        RoomChangeFeed.Position position = changeFeed.parse(since);
+
+        long lastSequence = messageStore.getLastSequence(roomId);
+        long deletedThrough = changeFeed.getDeletedThrough(roomId);
+        if (!changeFeed.isCurrent(position) || position.sequence() > lastSequence) {
+            // Positions of another run may have missed deletions, or not be valid at all
+            return new RoomChanges(changeFeed.token(lastSequence), List.of(), deletedThrough, true, false);
+        }
+
+        long after = Math.max(position.sequence(), deletedThrough);
+        if (after >= lastSequence) {
+            return new RoomChanges(changeFeed.token(after), List.of(), deletedThrough, false, false);
+        }
+        List<Message> messages = changeFeed.read(roomId, after, limit);
+        if (messages == null) {
+            messages = changeFeed.untilGap(readPage(roomId, after, limit), after);
+        }
+        long next = messages.isEmpty() ? after : messages.get(messages.size() - 1).getSequence();
+        return new RoomChanges(changeFeed.token(next), messages, deletedThrough, false, messages.size() == limit);
+    }
+
+    /**
+     * Attach the profiles of the distinct senders of the messages, looked up
+     * in one batch
+     */
+    public MessageHistory withSenders(List<Message> messages) {
+        Set<String> senderIds = new LinkedHashSet<>();
+        for (Message message : messages) {
+            senderIds.add(message.getSenderId());
+        }
+        return new MessageHistory(messages, userService.getUsersByIds(senderIds));
+    }
+
+    /**
+     * Search message content in the rooms the user is a member of, newest
+     * first. Every term of the query must occur in a message for it to match.
+     *
+     * @param roomId If not null, only this room is searched
+     * @param senderId If not null, only messages of this sender are returned
+     */
+    @Transactional(readOnly = true)
+    public List<Message> searchMessages(String userId, String query, String roomId, String senderId, int limit) {
+        List<String> roomIds;
+        if (roomId != null) {
+            validateMembership(userId, roomId);
+            roomIds = List.of(roomId);
+        } else {
+            roomIds = roomRepository.findRoomIdsByMember(userId);
+        }
+
+        List<MessageSearchIndex.Hit> hits = searchIndex.search(query, roomIds, senderId, limit);
+        // One archive pass and one store query per room rather than one lookup per hit
+        Map<String, List<Long>> sequencesByRoom = new LinkedHashMap<>();
+        for (MessageSearchIndex.Hit hit : hits) {
+            sequencesByRoom.computeIfAbsent(hit.roomId(), id -> new ArrayList<>()).add(hit.sequence());
+        }
+        Map<MessageSearchIndex.Hit, Message> found = new HashMap<>();
+        sequencesByRoom.forEach((hitRoomId, sequences) -> {
+            long archivedUpTo = messageArchive.getMaxSequence(hitRoomId);
+            Map<Boolean, List<Long>> archived = sequences.stream()
+                    .collect(Collectors.partitioningBy(sequence -> sequence <= archivedUpTo));
+            List<Message> messages = new ArrayList<>(messageArchive.readSequences(hitRoomId, archived.get(true)));
+            messages.addAll(messageStore.findByRoomIdAndSequences(hitRoomId, archived.get(false)));
+            for (Message message : messages) {
+                found.put(new MessageSearchIndex.Hit(hitRoomId, message.getSequence()), message);
+            }
+        });
+
+        // Messages deleted since they were indexed are left out
+        List<Message> messages = new ArrayList<>(hits.size());
+        for (MessageSearchIndex.Hit hit : hits) {
+            Message message = found.get(hit);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return messages;
     }
 
     public Message getMessageById(String messageId) {
-        return messageRepository.findById(messageId)
+        return messageStore.findById(messageId)
                 .orElseThrow(() -> new IllegalArgumentException("Message not found"));
     }
 
     public List<Message> getAllMessages() {
-        return messageRepository.findAll();
+        return messageStore.findAll();
+    }
+
+    private List<Message> readPage(String roomId, long afterSequence, int limit) {
+        List<Message> messages = new ArrayList<>(limit);
+        if (afterSequence < messageArchive.getMaxSequence(roomId)) {
+            messages.addAll(messageArchive.readRoom(roomId, afterSequence, limit));
+            if (!messages.isEmpty()) {
+                afterSequence = messages.get(messages.size() - 1).getSequence();
+            }
+        }
+        if (messages.size() < limit) {
+            messages.addAll(messageStore.findByRoomIdAfterSequence(roomId, afterSequence, limit - messages.size()));
+        }
+        return messages;
+    }
+
+    private void validateMembership(String userId, String roomId) {
+        // Indexed lookup; avoids loading the room's member list
+        if (!roomRepository.isMember(roomId, userId)) {
+            throw new IllegalArgumentException(roomRepository.existsById(roomId)
+                    ? "User is not a member of this room" : "Room not found");
+        }
     }
 }
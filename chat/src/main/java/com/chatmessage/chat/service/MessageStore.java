@@ -0,0 +1,124 @@
+package com.chatmessage.chat.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import com.chatmessage.chat.model.Message;
+
+/**
+ * Storage engine for (non-archived) messages. Selected with the
+ * {@code message.store} property: {@code jpa} (default) or {@code log}.
+ */
+public interface MessageStore {
+
+    /**
+     * Assign the next sequence number of the message's room and persist it
+     */
+    Message append(Message message);
+
+    /**
+     * Assign sequence numbers to and persist a batch of messages in list
+     * order. A message id that is already stored is reported as a
+     * {@link org.springframework.dao.DuplicateKeyException}. Inside a
+     * transaction, a failure leaves nothing of the batch behind once the
+     * transaction is rolled back.
+     */
+    default void appendAll(List<Message> messages) {
+        for (Message message : messages) {
+            append(message);
+        }
+    }
+
+    /**
+     * Whether writes are undone when the surrounding transaction rolls back
+     */
+    default boolean isTransactional() {
+        return true;
+    }
+
+    Optional<Message> findById(String messageId);
+
+    /**
+     * All stored messages of a room in sequence order, the order in which
+     * they were stored. Imported messages keep their original timestamps, so
+     * timestamps need not rise with sequences.
+     */
+    List<Message> findByRoomId(String roomId);
+
+    /**
+     * Up to {@code limit} messages of a room with a sequence greater than
+     * {@code afterSequence}, in sequence order
+     */
+    List<Message> findByRoomIdAfterSequence(String roomId, long afterSequence, int limit);
+
+    /**
+     * The stored messages of a room with the given sequences, in no
+     * particular order. Missing sequences are skipped.
+     */
+    default List<Message> findByRoomIdAndSequences(String roomId, Collection<Long> sequences) {
+        List<Message> messages = new ArrayList<>(sequences.size());
+        for (long sequence : sequences) {
+            findByRoomIdAfterSequence(roomId, sequence - 1, 1).stream()
+                    .filter(message -> message.getSequence() == sequence)
+                    .forEach(messages::add);
+        }
+        return messages;
+    }
+
+    /**
+     * Hand the messages of a room with a sequence greater than
+     * {@code afterSequence} to the consumer in sequence order, without
+     * holding the whole result in memory
+     */
+    void streamByRoomId(String roomId, long afterSequence, Consumer<Message> consumer);
+
+    /**
+     * Ids of all rooms that have stored messages
+     */
+    List<String> findRoomIds();
+
+    /**
+     * @return The last sequence number assigned in the room, or 0 if it has none
+     */
+    long getLastSequence(String roomId);
+
+    /**
+     * @return The number of stored messages of a room with a sequence greater than {@code afterSequence}
+     */
+    long countByRoomIdAfterSequence(String roomId, long afterSequence);
+
+    /**
+     * Count back from the newest stored message of a room, skipping the
+     * sequences of deleted messages
+     *
+     * @param n 1 for the newest message
+     * @return The sequence of the {@code n}th newest stored message, or 0 if the room has fewer
+     */
+    long findNthNewestSequence(String roomId, long n);
+
+    List<Message> findAll();
+
+    void deleteById(String messageId);
+
+    /**
+     * Delete the messages of a room with a sequence greater than
+     * {@code afterSequence} and up to and including {@code upToSequence}
+     *
+     * @return The number of messages deleted
+     */
+    default int deleteRange(String roomId, long afterSequence, long upToSequence) {
+        int deleted = 0;
+        for (Message message : findByRoomIdAfterSequence(roomId, afterSequence,
+                (int) Math.min(upToSequence - afterSequence, Integer.MAX_VALUE))) {
+            if (message.getSequence() > upToSequence) {
+                break;
+            }
+            deleteById(message.getMessageId());
+            deleted++;
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,98 @@
+package com.chatmessage.chat.service;
+
+/**
+ * Monotonic ({@link System#nanoTime()}) timestamps of one message passing
+ * through the send pipeline: received by the controller, validated, image
+ * uploaded, persisted (stored, indexed and recorded as room activity) and
+ * broadcast to subscribers. A stage not reached yet is 0; the upload stamp
+ * stays 0 for text-only messages.
+ *
+ * The trace also spans the {@link FlightEvents.MessageSend} and
+ * {@link FlightEvents.MessageBroadcast} flight recorder events, committed by
+ * {@link MessageTracer#complete}.
+ */
+public class MessageTrace {
+
+    private final long receivedAt;
+    private long validatedAt;
+    private long uploadedAt;
+    private long persistedAt;
+    private long broadcastAt;
+    private final FlightEvents.MessageSend sendEvent = new FlightEvents.MessageSend();
+    private final FlightEvents.MessageBroadcast broadcastEvent = new FlightEvents.MessageBroadcast();
+
+    public MessageTrace() {
+        sendEvent.begin();
+        this.receivedAt = System.nanoTime();
+    }
+
+    public void markValidated() {
+        validatedAt = System.nanoTime();
+    }
+
+    public void markUploaded() {
+        uploadedAt = System.nanoTime();
+    }
+
+    public void markPersisted() {
+        persistedAt = System.nanoTime();
+        broadcastEvent.begin();
+    }
+
+    public void markBroadcast() {
+        broadcastAt = System.nanoTime();
+        broadcastEvent.end();
+        sendEvent.end();
+    }
+
+    FlightEvents.MessageSend getSendEvent() {
+        return sendEvent;
+    }
+
+    FlightEvents.MessageBroadcast getBroadcastEvent() {
+        return broadcastEvent;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public long getValidatedAt() {
+        return validatedAt;
+    }
+
+    public long getUploadedAt() {
+        return uploadedAt;
+    }
+
+    public long getPersistedAt() {
+        return persistedAt;
+    }
+
+    public long getBroadcastAt() {
+        return broadcastAt;
+    }
+
+    public long validateNanos() {
+        return validatedAt - receivedAt;
+    }
+
+    /**
+     * @return Upload time, or 0 if no image was uploaded
+     */
+    public long uploadNanos() {
+        return uploadedAt != 0 ? uploadedAt - validatedAt : 0;
+    }
+
+    public long saveNanos() {
+        return persistedAt - (uploadedAt != 0 ? uploadedAt : validatedAt);
+    }
+
+    public long broadcastNanos() {
+        return broadcastAt - persistedAt;
+    }
+
+    public long totalNanos() {
+        return broadcastAt - receivedAt;
+    }
+}
@@ -0,0 +1,104 @@
+package com.chatmessage.chat.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+
+/**
+ * Completes the {@link MessageTrace} of each sent message: records the
+ * broadcast stage and the end-to-end send time in {@link ChatMetrics}, and
+ * logs the full stage breakdown of messages slower than
+ * {@code message.latency.slow-threshold-ms}. The trace's flight recorder
+ * events are committed here, and the total is checked against the send
+ * latency SLO of the {@link FlightRecorderService}.
+ *
+ * With {@code message.latency.stomp-headers} enabled the stage times up to
+ * persistence are also sent as headers of the broadcast STOMP frame, for
+ * clients measuring delivery lag.
+ */
+@Service
+public class MessageTracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageTracer.class);
+
+    private final ChatMetrics metrics;
+    private final FlightRecorderService flightRecorder;
+    private final long slowThresholdNanos;
+    private final boolean stompHeaders;
+
+    public MessageTracer(ChatMetrics metrics, FlightRecorderService flightRecorder,
+            @Value("${message.latency.slow-threshold-ms:500}") long slowThresholdMs,
+            @Value("${message.latency.stomp-headers:false}") boolean stompHeaders) {
+        this.metrics = metrics;
+        this.flightRecorder = flightRecorder;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.stompHeaders = stompHeaders;
+    }
+
+    /**
+     * Headers for the broadcast frame of a persisted message, in
+     * microseconds per stage plus the wall-clock broadcast time; empty when
+     * disabled
+     */
+    public Map<String, Object> stompHeaders(MessageTrace trace) {
+        if (!stompHeaders) {
+            return Map.of();
+        }
+        Map<String, Object> headers = new LinkedHashMap<>();
+        headers.put("x-latency-validate-us", micros(trace.validateNanos()));
+        headers.put("x-latency-upload-us", micros(trace.uploadNanos()));
+        headers.put("x-latency-save-us", micros(trace.saveNanos()));
+        headers.put("x-broadcast-at-ms", System.currentTimeMillis());
+        return headers;
+    }
+
+    /**
+     * Record a message whose broadcast has been stamped
+     */
+    public void complete(Message message, MessageTrace trace) {
+        metrics.recordSendPhase(ChatMetrics.SendPhase.BROADCAST, trace.broadcastNanos());
+        metrics.recordSendTotal(trace.totalNanos());
+        commitFlightEvents(message, trace);
+        flightRecorder.recordSendLatency(trace.totalNanos());
+        if (trace.totalNanos() >= slowThresholdNanos) {
+            logger.warn("Slow message {} in room {}: total {} ms (validate {} ms, upload {} ms, save {} ms, broadcast {} ms)",
+                    message.getMessageId(), message.getRoomId(), millis(trace.totalNanos()),
+                    millis(trace.validateNanos()), millis(trace.uploadNanos()), millis(trace.saveNanos()),
+                    millis(trace.broadcastNanos()));
+        }
+    }
+
+    private static void commitFlightEvents(Message message, MessageTrace trace) {
+        FlightEvents.MessageBroadcast broadcast = trace.getBroadcastEvent();
+        if (broadcast.shouldCommit()) {
+            broadcast.roomId = message.getRoomId();
+            broadcast.messageId = message.getMessageId();
+            broadcast.commit();
+        }
+        FlightEvents.MessageSend send = trace.getSendEvent();
+        if (send.shouldCommit()) {
+            send.roomId = message.getRoomId();
+            send.messageId = message.getMessageId();
+            send.validate = trace.validateNanos();
+            send.upload = trace.uploadNanos();
+            send.save = trace.saveNanos();
+            send.broadcast = trace.broadcastNanos();
+            send.commit();
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,473 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Storage service that appends uploaded blobs into large segment ("pack") files
+ * instead of creating one file per upload.
+ *
+ * Each record is written as {@code magic | type | keyLength | dataLength | crc32 | key | data}.
+ * An in-memory index maps blob names to their location and is rebuilt by
+ * scanning the segments on startup. Reads are served as read-only slices of a
+ * memory-mapped segment. Deletes append a tombstone record; segments whose
+ * dead-byte ratio exceeds the configured threshold are compacted in the
+ * background. Readers hold a reference to the segment they map, and a
+ * compacted segment is closed and deleted once the last of them is done.
+ */
+@Service
+@ConditionalOnProperty(name = "file.storage-type", havingValue = "pack")
+public class PackFileStorageService implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackFileStorageService.class);
+
+    static final String URL_PREFIX = "/blobs/";
+
+    private static final int MAGIC = 0x50414B31; // "PAK1"
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final int HEADER_SIZE = 4 + 1 + 2 + 4 + 4;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".pack";
+
+    private final Path packDir;
+    private final long segmentSize;
+    private final double compactionThreshold;
+
+    private final Map<String, BlobLocation> index = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Segment activeSegment;
+
+    public PackFileStorageService(
+            @Value("${file.pack.dir:./uploads/packs}") String packDir,
+            @Value("${file.pack.segment-size:268435456}") long segmentSize,
+            @Value("${file.pack.compaction-threshold:0.5}") double compactionThreshold) {
+        if (segmentSize <= HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between " + HEADER_SIZE + " and " + Integer.MAX_VALUE);
+        }
+        this.packDir = Paths.get(packDir).toAbsolutePath().normalize();
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Open all existing segments and rebuild the offset index from them
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(packDir);
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(packDir)) {
+            files = listing.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            Segment segment = new Segment(parseSegmentId(file), file);
+            segments.put(segment.id, segment);
+            scanSegment(segment, i == files.size() - 1);
+        }
+
+        if (segments.isEmpty()) {
+            activeSegment = createSegment(1);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+        }
+
+        for (BlobLocation location : index.values()) {
+            segments.get(location.segmentId()).liveBytes.addAndGet(location.recordSize());
+        }
+
+        logger.info("Opened pack store at {} with {} segments and {} blobs", packDir, segments.size(), index.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    @Override
+    public String uploadImage(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IOException("Failed to store empty file");
+        }
+
+        String name = UUID.randomUUID().toString() + "-" + StringUtils.cleanPath(file.getOriginalFilename());
+        putBlob(name, file.getBytes());
+        return URL_PREFIX + name;
+    }
+
+    @Override
+    public void deleteImage(String imageUrl) throws IOException {
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            return;
+        }
+
+        String name = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        writeLock.lock();
+        try {
+            BlobLocation location = index.remove(name);
+            if (location == null) {
+                return;
+            }
+            appendRecord(TYPE_DELETE, name, new byte[0]);
+            Segment owner = segments.get(location.segmentId());
+            if (owner != null) {
+                owner.liveBytes.addAndGet(-location.recordSize());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Read a blob as a read-only slice of its memory-mapped segment
+     *
+     * @param imageUrl The URL returned by {@link #uploadImage(MultipartFile)}
+     * @return The blob contents, or null if no such blob exists
+     */
+    public ByteBuffer readBlob(String imageUrl) throws IOException {
+        String name = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        // A segment compacted away between the index lookup and now is retried once; by then the index
+        // already points at the copy. A second miss means the index entry itself is stale.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            BlobLocation location = index.get(name);
+            if (location == null) {
+                return null;
+            }
+            Segment segment = segments.get(location.segmentId());
+            if (segment != null && segment.acquire()) {
+                try {
+                    return segment.slice(location.dataOffset(), location.dataLength());
+                } finally {
+                    segment.release();
+                }
+            }
+        }
+        throw new IOException("Blob " + name + " points at a segment that no longer exists");
+    }
+
+    public int getBlobCount() {
+        return index.size();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Rewrite sealed segments whose dead-byte ratio exceeds the compaction
+     * threshold, copying live blobs into the active segment
+     */
+    @Scheduled(fixedDelayString = "${file.pack.compaction-interval-ms:300000}")
+    public void compact() {
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (segment == activeSegment || segment.size == 0) {
+                continue;
+            }
+            double deadRatio = 1.0 - (double) segment.liveBytes.get() / segment.size;
+            if (deadRatio < compactionThreshold) {
+                continue;
+            }
+            try {
+                compactSegment(segment);
+            } catch (IOException e) {
+                logger.error("Failed to compact segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    void putBlob(String name, byte[] data) throws IOException {
+        writeLock.lock();
+        try {
+            long dataOffset = appendRecord(TYPE_PUT, name, data);
+            BlobLocation location = new BlobLocation(activeSegment.id, dataOffset, data.length,
+                    HEADER_SIZE + keyBytes(name).length + data.length);
+            index.put(name, location);
+            activeSegment.liveBytes.addAndGet(location.recordSize());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Append a record to the active segment, rolling over to a new segment
+     * when the current one is full. Must be called with the write lock held.
+     *
+     * @return The absolute offset of the record data within the active segment
+     */
+    private long appendRecord(byte type, String name, byte[] data) throws IOException {
+        byte[] key = keyBytes(name);
+        int recordSize = HEADER_SIZE + key.length + data.length;
+        if (recordSize > segmentSize) {
+            throw new IOException("Blob is larger than the segment size");
+        }
+        if (activeSegment.size + recordSize > segmentSize) {
+            activeSegment = createSegment(activeSegment.id + 1);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(data);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + key.length);
+        header.putInt(MAGIC)
+                .put(type)
+                .putShort((short) key.length)
+                .putInt(data.length)
+                .putInt((int) crc.getValue())
+                .put(key)
+                .flip();
+
+        Segment segment = activeSegment;
+        long position = segment.size;
+        ByteBuffer[] buffers = {header, ByteBuffer.wrap(data)};
+        long written = 0;
+        while (written < recordSize) {
+            written += segment.channel.write(buffers);
+        }
+        segment.size = position + recordSize;
+        return position + HEADER_SIZE + key.length;
+    }
+
+    private void compactSegment(Segment segment) throws IOException {
+        boolean oldest = segment.id == segments.firstKey();
+        ByteBuffer buffer = segment.slice(0, (int) segment.size);
+        int copied = 0;
+
+        while (buffer.remaining() >= HEADER_SIZE) {
+            buffer.getInt();
+            byte type = buffer.get();
+            int keyLength = Short.toUnsignedInt(buffer.getShort());
+            int dataLength = buffer.getInt();
+            buffer.getInt();
+            byte[] key = new byte[keyLength];
+            buffer.get(key);
+            String name = new String(key, StandardCharsets.UTF_8);
+            int dataOffset = buffer.position();
+            buffer.position(dataOffset + dataLength);
+
+            if (type == TYPE_DELETE) {
+                // Tombstones shadow puts in older segments, so they only die with the oldest segment
+                if (!oldest) {
+                    writeLock.lock();
+                    try {
+                        appendRecord(TYPE_DELETE, name, new byte[0]);
+                    } finally {
+                        writeLock.unlock();
+                    }
+                }
+                continue;
+            }
+
+            BlobLocation current = index.get(name);
+            if (current == null || current.segmentId() != segment.id || current.dataOffset() != dataOffset) {
+                continue;
+            }
+            byte[] data = new byte[dataLength];
+            buffer.get(dataOffset, data);
+
+            writeLock.lock();
+            try {
+                // Skip blobs deleted while we were copying
+                if (index.get(name) == current) {
+                    long newOffset = appendRecord(TYPE_PUT, name, data);
+                    index.put(name, new BlobLocation(activeSegment.id, newOffset, dataLength, current.recordSize()));
+                    activeSegment.liveBytes.addAndGet(current.recordSize());
+                    copied++;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        activeSegment.channel.force(false);
+        segments.remove(segment.id);
+        // Readers that found the segment before it was removed still map it; the last one out deletes it
+        segment.release();
+        logger.info("Compacted segment {} ({} live blobs copied)", segment.path.getFileName(), copied);
+    }
+
+    /**
+     * Replay a segment into the index. A torn or corrupt tail on the last
+     * segment is truncated; earlier segments stop at the first bad record.
+     */
+    private void scanSegment(Segment segment, boolean last) throws IOException {
+        long fileSize = segment.channel.size();
+        ByteBuffer buffer = fileSize == 0 ? ByteBuffer.allocate(0)
+                : segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        long validEnd = 0;
+
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int recordStart = buffer.position();
+            if (buffer.getInt() != MAGIC) {
+                break;
+            }
+            byte type = buffer.get();
+            int keyLength = Short.toUnsignedInt(buffer.getShort());
+            int dataLength = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (dataLength < 0 || buffer.remaining() < keyLength + dataLength) {
+                break;
+            }
+
+            byte[] key = new byte[keyLength];
+            buffer.get(key);
+            int dataOffset = buffer.position();
+            CRC32 crc = new CRC32();
+            crc.update(key);
+            crc.update(buffer.slice(dataOffset, dataLength));
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            buffer.position(dataOffset + dataLength);
+
+            String name = new String(key, StandardCharsets.UTF_8);
+            if (type == TYPE_PUT) {
+                index.put(name, new BlobLocation(segment.id, dataOffset, dataLength, HEADER_SIZE + keyLength + dataLength));
+            } else {
+                index.remove(name);
+            }
+            validEnd = recordStart + HEADER_SIZE + keyLength + dataLength;
+        }
+
+        if (validEnd < fileSize) {
+            if (last) {
+                logger.warn("Truncating torn tail of {} at offset {} (file size {})", segment.path, validEnd, fileSize);
+                segment.channel.truncate(validEnd);
+            } else {
+                logger.warn("Ignoring corrupt data in {} after offset {}", segment.path, validEnd);
+            }
+        }
+        segment.size = validEnd;
+        segment.channel.position(validEnd);
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        if (activeSegment != null) {
+            activeSegment.channel.force(false);
+        }
+        Segment segment = new Segment(id, packDir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private static int parseSegmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] keyBytes(String name) throws IOException {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        if (key.length > 0xFFFF) {
+            throw new IOException("Blob name is too long");
+        }
+        return key;
+    }
+
+    private record BlobLocation(int segmentId, long dataOffset, int dataLength, int recordSize) {
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicLong liveBytes = new AtomicLong();
+        // One for the store until the segment is compacted away, plus one per reader mapping it
+        private final AtomicInteger references = new AtomicInteger(1);
+        private final ReentrantLock mapLock = new ReentrantLock();
+        private volatile long size;
+        private volatile MappedByteBuffer mapping;
+
+        private Segment(int id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * @return false if the segment is already retired and must not be read
+         */
+        private boolean acquire() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        /**
+         * Drop a reference, closing and deleting the file with the last one.
+         * Slices already handed out stay readable: a mapping outlives its channel.
+         */
+        private void release() throws IOException {
+            if (references.decrementAndGet() == 0) {
+                channel.close();
+                Files.deleteIfExists(path);
+            }
+        }
+
+        /**
+         * Return a read-only view of the given range, remapping the file when
+         * the range lies beyond the current mapping (the active segment grows)
+         */
+        private ByteBuffer slice(long offset, int length) throws IOException {
+            long end = offset + length;
+            MappedByteBuffer current = mapping;
+            if (current == null || current.capacity() < end) {
+                mapLock.lock();
+                try {
+                    current = mapping;
+                    if (current == null || current.capacity() < end) {
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                        mapping = current;
+                    }
+                } finally {
+                    mapLock.unlock();
+                }
+            }
+            return current.slice((int) offset, length).asReadOnlyBuffer();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.chatmessage.chat.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL statements executed on one thread between {@link QueryStats#capture}
+ * and {@link #close()}. Used per request by the query statistics filter, and
+ * by tests to pin the number of statements an operation issues:
+ *
+ * <pre>
+ * try (QueryCapture capture = queryStats.capture()) {
+ *     mockMvc.perform(get("/api/rooms").param("userId", userId));
+ *     capture.assertStatementCount(2);
+ * }
+ * </pre>
+ */
+public class QueryCapture implements AutoCloseable {
+
+    private final QueryStats queryStats;
+    private final String label;
+    private final Map<String, Integer> statements = new LinkedHashMap<>();
+    private int statementCount;
+    private long rowCount;
+    private long nanos;
+
+    QueryCapture(QueryStats queryStats, String label) {
+        this.queryStats = queryStats;
+        this.label = label;
+    }
+
+    void recordStatement(String sql, long elapsedNanos, long rows) {
+        statements.merge(sql, 1, Integer::sum);
+        statementCount++;
+        rowCount += rows;
+        nanos += elapsedNanos;
+    }
+
+    void recordRows(long rows) {
+        rowCount += rows;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * @return Rows read from result sets plus rows reported by updates
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getElapsedNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return Each distinct statement with the number of times it ran, in order of first execution
+     */
+    public Map<String, Integer> getStatements() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    /**
+     * @throws AssertionError listing the statements if a different number was executed
+     */
+    public void assertStatementCount(int expected) {
+        if (statementCount != expected) {
+            throw new AssertionError("Expected " + expected + " SQL statements but " + statementCount
+                    + " were executed:" + describe());
+        }
+    }
+
+    /**
+     * @throws AssertionError listing the statements if more were executed
+     */
+    public void assertStatementCountAtMost(int max) {
+        if (statementCount > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements but " + statementCount
+                    + " were executed:" + describe());
+        }
+    }
+
+    private String describe() {
+        StringBuilder description = new StringBuilder();
+        statements.forEach((sql, count) -> description.append("\n  ").append(count).append("x ").append(sql));
+        return description.toString();
+    }
+
+    @Override
+    public void close() {
+        queryStats.end(this);
+    }
+}
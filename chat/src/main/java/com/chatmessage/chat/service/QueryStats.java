@@ -0,0 +1,261 @@
+package com.chatmessage.chat.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Statistics of the SQL statements sent through the application's
+ * DataSource, fed by a JDBC proxy (see {@code QueryStatsConfig}).
+ *
+ * Statements are counted per thread into the active {@link QueryCapture}s,
+ * and aggregated per statement text and per endpoint. Statements slower than
+ * {@code query-stats.slow-query-ms} are logged and kept in a bounded list.
+ * A request that runs the same statement at least
+ * {@code query-stats.n-plus-one-threshold} times is logged as a likely N+1
+ * pattern. Statements, endpoints and N+1 suspects are each kept for the
+ * first {@value #MAX_STATEMENTS} distinct keys only.
+ */
+@Service
+public class QueryStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryStats.class);
+    public static final String UNMATCHED_ENDPOINT = "unmatched";
+    private static final int MAX_STATEMENTS = 1000;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_SLOW_QUERIES = 100;
+
+    public record StatementSummary(String sql, long executions, long rowsUpdated, double totalMs, double maxMs) {
+    }
+
+    public record EndpointSummary(String endpoint, long requests, double statementsPerRequest, long maxStatements,
+            double rowsPerRequest, long nPlusOneRequests) {
+    }
+
+    public record SlowQuery(LocalDateTime at, String context, String sql, double elapsedMs) {
+    }
+
+    public record NPlusOneSuspect(String endpoint, String sql, long requests, long maxExecutions) {
+    }
+
+    public record Report(List<StatementSummary> statements, List<EndpointSummary> endpoints,
+            List<NPlusOneSuspect> nPlusOneSuspects, List<SlowQuery> slowQueries) {
+    }
+
+    private static final class StatementStats {
+        final LongAdder executions = new LongAdder();
+        final LongAdder rowsUpdated = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+
+    private static final class EndpointStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final AtomicLong maxStatements = new AtomicLong();
+        final LongAdder nPlusOneRequests = new LongAdder();
+    }
+
+    private static final class SuspectStats {
+        final LongAdder requests = new LongAdder();
+        final AtomicLong maxExecutions = new AtomicLong();
+    }
+
+    private final ThreadLocal<List<QueryCapture>> captures = new ThreadLocal<>();
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, SuspectStats> suspects = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private final long slowQueryNanos;
+    private final int nPlusOneThreshold;
+
+    public QueryStats(@Value("${query-stats.slow-query-ms:100}") long slowQueryMs,
+            @Value("${query-stats.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMs);
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    /**
+     * Start counting the statements executed on the current thread
+     */
+    public QueryCapture capture() {
+        return capture(null);
+    }
+
+    /**
+     * @param label Shown as the context of slow queries run inside the capture
+     */
+    public QueryCapture capture(String label) {
+        QueryCapture capture = new QueryCapture(this, label);
+        List<QueryCapture> active = captures.get();
+        if (active == null) {
+            active = new ArrayList<>(2);
+            captures.set(active);
+        }
+        active.add(capture);
+        return capture;
+    }
+
+    void end(QueryCapture capture) {
+        List<QueryCapture> active = captures.get();
+        if (active != null && active.remove(capture) && active.isEmpty()) {
+            captures.remove();
+        }
+    }
+
+    /**
+     * Record one executed statement
+     *
+     * @param rowsUpdated Rows reported by an update, 0 for queries (their
+     * rows are counted as they are read)
+     */
+    public void recordStatement(String sql, long elapsedNanos, long rowsUpdated) {
+        String key = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        List<QueryCapture> active = captures.get();
+        if (active != null) {
+            for (QueryCapture capture : active) {
+                capture.recordStatement(key, elapsedNanos, rowsUpdated);
+            }
+        }
+        StatementStats stats = bounded(statements, key, StatementStats::new);
+        if (stats != null) {
+            stats.executions.increment();
+            stats.rowsUpdated.add(rowsUpdated);
+            stats.nanos.add(elapsedNanos);
+            stats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        }
+        if (elapsedNanos >= slowQueryNanos) {
+            String context = active == null || active.get(0).getLabel() == null
+                    ? Thread.currentThread().getName() : active.get(0).getLabel();
+            logger.warn("Slow query ({} ms) in {}: {}", millis(elapsedNanos), context, key);
+            synchronized (slowQueries) {
+                if (slowQueries.size() == MAX_SLOW_QUERIES) {
+                    slowQueries.removeFirst();
+                }
+                slowQueries.addLast(new SlowQuery(LocalDateTime.now(), context, key, millis(elapsedNanos)));
+            }
+        }
+    }
+
+    /**
+     * Record rows read from a result set
+     */
+    public void recordRowsRead(long rows) {
+        List<QueryCapture> active = captures.get();
+        if (active != null) {
+            for (QueryCapture capture : active) {
+                capture.recordRows(rows);
+            }
+        }
+    }
+
+    /**
+     * Aggregate a finished request and check it for repeated statements
+     *
+     * @param endpoint The request's method and path pattern
+     */
+    public void recordRequest(String endpoint, QueryCapture capture) {
+        EndpointStats stats = bounded(endpoints, endpoint, EndpointStats::new);
+        if (stats != null) {
+            stats.requests.increment();
+            stats.statements.add(capture.getStatementCount());
+            stats.rows.add(capture.getRowCount());
+            stats.maxStatements.accumulateAndGet(capture.getStatementCount(), Math::max);
+        }
+
+        boolean suspect = false;
+        for (Map.Entry<String, Integer> statement : capture.getStatements().entrySet()) {
+            if (statement.getValue() >= nPlusOneThreshold) {
+                suspect = true;
+                logger.warn("Possible N+1 in {}: statement executed {} times: {}", endpoint, statement.getValue(),
+                        statement.getKey());
+                SuspectStats suspectStats = bounded(suspects, endpoint + "\n" + statement.getKey(), SuspectStats::new);
+                if (suspectStats != null) {
+                    suspectStats.requests.increment();
+                    suspectStats.maxExecutions.accumulateAndGet(statement.getValue(), Math::max);
+                }
+            }
+        }
+        if (suspect && stats != null) {
+            stats.nPlusOneRequests.increment();
+        }
+    }
+
+    /**
+     * The top statements by total time, the top endpoints by statements per
+     * request, N+1 suspects and the most recent slow queries
+     */
+    public Report getReport(int top) {
+        List<StatementSummary> topStatements = statements.entrySet().stream()
+                .map(e -> new StatementSummary(e.getKey(), e.getValue().executions.sum(), e.getValue().rowsUpdated.sum(),
+                        millis(e.getValue().nanos.sum()), millis(e.getValue().maxNanos.get())))
+                .sorted(Comparator.comparingDouble(StatementSummary::totalMs).reversed())
+                .limit(top)
+                .toList();
+        List<EndpointSummary> topEndpoints = endpoints.entrySet().stream()
+                .map(e -> {
+                    long requests = Math.max(e.getValue().requests.sum(), 1);
+                    return new EndpointSummary(e.getKey(), e.getValue().requests.sum(),
+                            (double) e.getValue().statements.sum() / requests, e.getValue().maxStatements.get(),
+                            (double) e.getValue().rows.sum() / requests, e.getValue().nPlusOneRequests.sum());
+                })
+                .sorted(Comparator.comparingDouble(EndpointSummary::statementsPerRequest).reversed())
+                .limit(top)
+                .toList();
+        List<NPlusOneSuspect> nPlusOne = suspects.entrySet().stream()
+                .map(e -> {
+                    String[] key = e.getKey().split("\n", 2);
+                    return new NPlusOneSuspect(key[0], key[1], e.getValue().requests.sum(),
+                            e.getValue().maxExecutions.get());
+                })
+                .sorted(Comparator.comparingLong(NPlusOneSuspect::requests).reversed())
+                .limit(top)
+                .toList();
+        List<SlowQuery> slow;
+        synchronized (slowQueries) {
+            slow = new ArrayList<>(slowQueries);
+        }
+        return new Report(topStatements, topEndpoints, nPlusOne, slow.reversed().stream().limit(top).toList());
+    }
+
+    public void reset() {
+        statements.clear();
+        endpoints.clear();
+        suspects.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    /**
+     * @return The entry for the key, created while the map has fewer than
+     * {@value #MAX_STATEMENTS} entries, otherwise null
+     */
+    private static <T> T bounded(Map<String, T> map, String key, Supplier<T> factory) {
+        T stats = map.get(key);
+        if (stats == null && map.size() < MAX_STATEMENTS) {
+            stats = map.computeIfAbsent(key, k -> factory.get());
+        }
+        return stats;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+}
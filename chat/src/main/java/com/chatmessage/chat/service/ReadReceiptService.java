@@ -0,0 +1,186 @@
+package com.chatmessage.chat.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.ReadReceipt;
+import com.chatmessage.chat.model.ReadReceiptId;
+import com.chatmessage.chat.model.RoomSummary;
+import com.chatmessage.chat.repository.ReadReceiptRepository;
+import com.chatmessage.chat.repository.RoomRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tracks how far each user has read in each room.
+ *
+ * Read positions only move forward and are kept in memory, loaded per user
+ * on first use, for the {@code message.read-receipts.max-cached-users} most
+ * recently active users. Updates are coalesced per (user, room) and written in one
+ * batch every {@code message.read-receipts.flush-interval-ms}, so a client
+ * marking every message as read costs one row write per interval. The
+ * unread count of a room is its last sequence number minus the user's read
+ * position; it over-counts by the number of deleted messages in between.
+ */
+@Service
+public class ReadReceiptService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReceiptService.class);
+
+    // H2 upsert; the read_receipts table is created from the ReadReceipt entity
+    private static final String UPSERT_SQL = "MERGE INTO read_receipts (user_id, room_id, last_read_sequence, updated_at)"
+            + " KEY (user_id, room_id) VALUES (?, ?, ?, ?)";
+
+    private final ReadReceiptRepository readReceiptRepository;
+    private final RoomRepository roomRepository;
+    private final MessageStore messageStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Map<String, Long>> positions;
+    private final Map<ReadReceiptId, Long> pending = new ConcurrentHashMap<>();
+    // Positions taken out of pending by a flush that has not been written yet
+    private volatile Map<ReadReceiptId, Long> flushing = Map.of();
+
+    public ReadReceiptService(ReadReceiptRepository readReceiptRepository, RoomRepository roomRepository,
+            MessageStore messageStore, JdbcTemplate jdbcTemplate,
+            @Value("${message.read-receipts.max-cached-users:10000}") int maxCachedUsers) {
+        this.readReceiptRepository = readReceiptRepository;
+        this.roomRepository = roomRepository;
+        this.messageStore = messageStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.positions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Long>> eldest) {
+                return size() > maxCachedUsers;
+            }
+        };
+    }
+
+    /**
+     * Unread state of one room for a user
+     */
+    public record UnreadCount(String roomId, String roomName, long lastReadSequence, long lastSequence, long unreadCount) {
+    }
+
+    /**
+     * Record that a user has read a room up to and including a sequence
+     * number. Positions beyond the room's last message are clamped to it and
+     * positions behind the current one are ignored.
+     *
+     * @return The user's read position in the room after the update
+     * @throws IllegalArgumentException If the room doesn't exist or the user
+     * is not a member
+     */
+    public long markRead(String userId, String roomId, long sequence) {
+        if (sequence < 0) {
+            throw new IllegalArgumentException("Sequence must not be negative");
+        }
+        if (!roomRepository.isMember(roomId, userId)) {
+            throw new IllegalArgumentException(roomRepository.existsById(roomId)
+                    ? "User is not a member of this room" : "Room not found");
+        }
+
+        long position = Math.min(sequence, messageStore.getLastSequence(roomId));
+        long updated = positionsOf(userId).merge(roomId, position, Math::max);
+        if (updated == position) {
+            pending.merge(new ReadReceiptId(userId, roomId), position, Math::max);
+        }
+        return updated;
+    }
+
+    /**
+     * @return The sequence of the last message the user has read in the room, or 0
+     */
+    public long getLastReadSequence(String userId, String roomId) {
+        return positionsOf(userId).getOrDefault(roomId, 0L);
+    }
+
+    /**
+     * Unread counts of every room the user is a member of
+     */
+    public List<UnreadCount> getUnreadCounts(String userId) {
+        Map<String, Long> read = positionsOf(userId);
+        List<UnreadCount> counts = new ArrayList<>();
+        for (RoomSummary room : roomRepository.findSummariesByMember(userId)) {
+            long lastSequence = messageStore.getLastSequence(room.roomId());
+            long lastRead = read.getOrDefault(room.roomId(), 0L);
+            counts.add(new UnreadCount(room.roomId(), room.roomName(), lastRead, lastSequence,
+                    Math.max(0, lastSequence - lastRead)));
+        }
+        return counts;
+    }
+
+    /**
+     * Write the read positions changed since the last flush
+     */
+    @Scheduled(fixedDelayString = "${message.read-receipts.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<ReadReceiptId, Long> flushed = new ConcurrentHashMap<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (ReadReceiptId id : pending.keySet()) {
+            Long position = pending.remove(id);
+            if (position != null) {
+                flushed.put(id, position);
+                rows.add(new Object[]{id.getUserId(), id.getRoomId(), position, now});
+            }
+        }
+
+        flushing = flushed;
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            logger.debug("Flushed {} read receipts", rows.size());
+        } catch (DataAccessException e) {
+            // Put the positions back for the next flush unless they have moved on already
+            flushed.forEach((id, position) -> pending.merge(id, position, Math::max));
+            logger.error("Failed to flush {} read receipts", rows.size(), e);
+        } finally {
+            flushing = Map.of();
+        }
+    }
+
+    /**
+     * The read positions of a user, loaded from the table on a cache miss.
+     * Positions not written yet are newer than the table's, so they are laid
+     * over it.
+     */
+    private Map<String, Long> positionsOf(String userId) {
+        synchronized (positions) {
+            Map<String, Long> read = positions.get(userId);
+            if (read != null) {
+                return read;
+            }
+        }
+        Map<String, Long> loaded = new ConcurrentHashMap<>();
+        for (ReadReceipt receipt : readReceiptRepository.findByUserId(userId)) {
+            loaded.put(receipt.getRoomId(), receipt.getLastReadSequence());
+        }
+        for (Map<ReadReceiptId, Long> unwritten : List.of(flushing, pending)) {
+            unwritten.forEach((id, position) -> {
+                if (id.getUserId().equals(userId)) {
+                    loaded.merge(id.getRoomId(), position, Math::max);
+                }
+            });
+        }
+        synchronized (positions) {
+            Map<String, Long> existing = positions.putIfAbsent(userId, loaded);
+            return existing != null ? existing : loaded;
+        }
+    }
+}
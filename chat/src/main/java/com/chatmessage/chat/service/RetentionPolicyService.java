@@ -0,0 +1,109 @@
+package com.chatmessage.chat.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.RetentionPolicy;
+import com.chatmessage.chat.repository.RetentionPolicyRepository;
+import com.chatmessage.chat.repository.RoomRepository;
+
+/**
+ * Per-room retention limits on top of the global defaults
+ * {@code message.retention.max-age-days} and
+ * {@code message.retention.max-messages}. A limit of 0 (or null) means
+ * messages are kept forever.
+ */
+@Service
+public class RetentionPolicyService {
+
+    private final RetentionPolicyRepository retentionPolicyRepository;
+    private final RoomRepository roomRepository;
+    private final int defaultMaxAgeDays;
+    private final long defaultMaxMessages;
+
+    public RetentionPolicyService(RetentionPolicyRepository retentionPolicyRepository, RoomRepository roomRepository,
+            @Value("${message.retention.max-age-days:0}") int defaultMaxAgeDays,
+            @Value("${message.retention.max-messages:0}") long defaultMaxMessages) {
+        this.retentionPolicyRepository = retentionPolicyRepository;
+        this.roomRepository = roomRepository;
+        this.defaultMaxAgeDays = defaultMaxAgeDays;
+        this.defaultMaxMessages = defaultMaxMessages;
+    }
+
+    /**
+     * The limits in force for a room; null means unlimited
+     *
+     * @param roomSpecific Whether the room has its own policy
+     */
+    public record Retention(String roomId, Integer maxAgeDays, Long maxMessages, boolean roomSpecific) {
+
+        public boolean isUnlimited() {
+            return maxAgeDays == null && maxMessages == null;
+        }
+    }
+
+    /**
+     * Whether the global defaults limit every room
+     */
+    public boolean hasDefaultLimits() {
+        return defaultMaxAgeDays > 0 || defaultMaxMessages > 0;
+    }
+
+    public Retention getRetention(String roomId) {
+        Optional<RetentionPolicy> policy = retentionPolicyRepository.findById(roomId);
+        Integer maxAgeDays = policy.map(RetentionPolicy::getMaxAgeDays)
+                .orElse(defaultMaxAgeDays > 0 ? defaultMaxAgeDays : null);
+        Long maxMessages = policy.map(RetentionPolicy::getMaxMessages)
+                .orElse(defaultMaxMessages > 0 ? defaultMaxMessages : null);
+        return new Retention(roomId, maxAgeDays, maxMessages, policy.isPresent());
+    }
+
+    /**
+     * Ids of all rooms with their own policy
+     */
+    public List<String> getRoomIdsWithPolicy() {
+        return retentionPolicyRepository.findAll().stream().map(RetentionPolicy::getRoomId).toList();
+    }
+
+    /**
+     * Set the retention limits of a room. A null limit falls back to the
+     * global default.
+     *
+     * @throws IllegalArgumentException If the room doesn't exist, the user is
+     * not a member or a limit is not positive
+     */
+    public Retention setRetention(String userId, String roomId, Integer maxAgeDays, Long maxMessages) {
+        validateMembership(userId, roomId);
+        if ((maxAgeDays != null && maxAgeDays <= 0) || (maxMessages != null && maxMessages <= 0)) {
+            throw new IllegalArgumentException("Retention limits must be positive");
+        }
+        retentionPolicyRepository.save(new RetentionPolicy(roomId, maxAgeDays, maxMessages));
+        return getRetention(roomId);
+    }
+
+    /**
+     * Remove the room's own policy so that the global defaults apply again
+     */
+    public Retention deleteRetention(String userId, String roomId) {
+        validateMembership(userId, roomId);
+        if (retentionPolicyRepository.existsById(roomId)) {
+            retentionPolicyRepository.deleteById(roomId);
+        }
+        return getRetention(roomId);
+    }
+
+    public Retention getRetention(String userId, String roomId) {
+        validateMembership(userId, roomId);
+        return getRetention(roomId);
+    }
+
+    private void validateMembership(String userId, String roomId) {
+        if (!roomRepository.isMember(roomId, userId)) {
+            throw new IllegalArgumentException(roomRepository.existsById(roomId)
+                    ? "User is not a member of this room" : "Room not found");
+        }
+    }
+}
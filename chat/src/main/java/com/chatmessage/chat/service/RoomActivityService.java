@@ -0,0 +1,111 @@
+package com.chatmessage.chat.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.InboxEntry;
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.RoomActivity;
+import com.chatmessage.chat.repository.RoomActivityRepository;
+
+/**
+ * Maintains the {@link RoomActivity} summary of each room's latest message
+ * and serves the inbox from it.
+ */
+@Service
+public class RoomActivityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomActivityService.class);
+
+    private final RoomActivityRepository roomActivityRepository;
+    private final MessageStore messageStore;
+    private final ReadReceiptService readReceiptService;
+
+    public RoomActivityService(RoomActivityRepository roomActivityRepository, MessageStore messageStore,
+            ReadReceiptService readReceiptService) {
+        this.roomActivityRepository = roomActivityRepository;
+        this.messageStore = messageStore;
+        this.readReceiptService = readReceiptService;
+    }
+
+    /**
+     * Make a stored message its room's latest message, unless a later one
+     * has been recorded already
+     */
+    public void record(Message message) {
+        if (updateIfNewer(message) > 0 || roomActivityRepository.existsById(message.getRoomId())) {
+            return;
+        }
+        try {
+            roomActivityRepository.save(new RoomActivity(message));
+        } catch (DataIntegrityViolationException e) {
+            // Another message of the room created the summary first
+            updateIfNewer(message);
+        }
+    }
+
+    /**
+     * Record the latest message of each room in a batch of stored messages
+     */
+    public void recordAll(Collection<Message> messages) {
+        Map<String, Message> latest = new HashMap<>();
+        for (Message message : messages) {
+            latest.merge(message.getRoomId(), message,
+                    (a, b) -> a.getSequence() >= b.getSequence() ? a : b);
+        }
+        latest.values().forEach(this::record);
+    }
+
+    /**
+     * One page of the user's rooms, most recently active first, with the
+     * latest message and unread count of each
+     */
+    public List<InboxEntry> getInbox(String userId, int page, int size) {
+        return roomActivityRepository.findInbox(userId, PageRequest.of(page, size)).stream()
+                .map(entry -> entry.withLastReadSequence(readReceiptService.getLastReadSequence(userId, entry.roomId())))
+                .toList();
+    }
+
+    /**
+     * Create the summaries of rooms whose messages were stored before
+     * summaries were maintained
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Set<String> summarized = new HashSet<>();
+        roomActivityRepository.findAll().forEach(activity -> summarized.add(activity.getRoomId()));
+
+        int created = 0;
+        for (String roomId : messageStore.findRoomIds()) {
+            if (summarized.contains(roomId)) {
+                continue;
+            }
+            long lastSequence = messageStore.getLastSequence(roomId);
+            List<Message> last = messageStore.findByRoomIdAfterSequence(roomId, lastSequence - 1, 1);
+            if (!last.isEmpty()) {
+                record(last.get(0));
+                created++;
+            }
+        }
+        if (created > 0) {
+            logger.info("Created activity summaries for {} rooms", created);
+        }
+    }
+
+    private int updateIfNewer(Message message) {
+        return roomActivityRepository.updateIfNewer(message.getRoomId(), message.getMessageId(), message.getSenderId(),
+                RoomActivity.preview(message), message.getTimestamp(), message.getSequence());
+    }
+}
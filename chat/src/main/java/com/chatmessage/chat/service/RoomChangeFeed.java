@@ -0,0 +1,208 @@
+package com.chatmessage.chat.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.chatmessage.chat.model.Message;
+
+/**
+ * Recent-message buffer and position tokens of the room change feed
+ * ({@code GET /api/rooms/{roomId}/changes}).
+ *
+ * Each recently active room keeps its last {@code change-feed.buffer-size}
+ * stored messages in a ring indexed by sequence, so clients polling
+ * regularly are served from memory; positions the ring no longer reaches
+ * are read from the message store. At most {@code change-feed.max-rooms}
+ * rooms are buffered, least recently written first out. Messages deleted
+ * by the retention job are reported as a per-room "deleted through"
+ * sequence.
+ *
+ * Positions are {@code <epoch>:<sequence>} tokens. The epoch changes on
+ * every start: deletions before a restart are not remembered, so a token of
+ * an earlier epoch tells the client to reload the room.
+ *
+ * Sequences are allocated before messages are stored, so a later message
+ * can be stored first. A missing sequence ends the changes returned until it
+ * is stored, or until the message after it is older than
+ * {@code change-feed.gap-grace-ms}, when it is taken to be a failed send.
+ */
+@Service
+public class RoomChangeFeed {
+
+    /**
+     * A parsed position token
+     */
+    public record Position(String epoch, long sequence) {
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final int bufferSize;
+    private final long gapGraceMs;
+    private final Map<String, RoomBuffer> rooms;
+    private final Map<String, Long> deletedThrough = new ConcurrentHashMap<>();
+
+    public RoomChangeFeed(
+            @Value("${change-feed.buffer-size:64}") int bufferSize,
+            @Value("${change-feed.max-rooms:1000}") int maxRooms,
+            @Value("${change-feed.gap-grace-ms:5000}") long gapGraceMs) {
+        if (bufferSize <= 0 || maxRooms <= 0) {
+            throw new IllegalArgumentException("Change feed buffer size and room count must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.gapGraceMs = gapGraceMs;
+        this.rooms = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RoomBuffer> eldest) {
+                return size() > maxRooms;
+            }
+        };
+    }
+
+    public String token(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    /**
+     * Parse a position token. A bare sequence, such as the last one of a
+     * history the client just loaded, is a position in the current epoch.
+     */
+    public Position parse(String token) {
+        int separator = token.lastIndexOf(':');
+        try {
+            return separator < 0
+                    ? new Position(epoch, Long.parseLong(token.trim()))
+                    : new Position(token.substring(0, separator), Long.parseLong(token.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid position: " + token);
+        }
+    }
+
+    public boolean isCurrent(Position position) {
+        return epoch.equals(position.epoch());
+    }
+
+    /**
+     * Buffer a stored message
+     */
+    public void append(Message message) {
+        RoomBuffer buffer;
+        synchronized (rooms) {
+            buffer = rooms.computeIfAbsent(message.getRoomId(), id -> new RoomBuffer(bufferSize));
+        }
+        buffer.append(message);
+    }
+
+    /**
+     * Record that the messages of a room up to and including a sequence
+     * have been deleted
+     */
+    public void recordDeleted(String roomId, long throughSequence) {
+        deletedThrough.merge(roomId, throughSequence, Math::max);
+    }
+
+    /**
+     * @return The sequence up to which the room's messages are known to be deleted, or 0
+     */
+    public long getDeletedThrough(String roomId) {
+        return deletedThrough.getOrDefault(roomId, 0L);
+    }
+
+    /**
+     * Buffered messages after a sequence in sequence order, up to the first
+     * gap that may still be filled
+     *
+     * @return The messages, or null if the buffer does not reach back to the sequence
+     */
+    public List<Message> read(String roomId, long afterSequence, int limit) {
+        RoomBuffer buffer;
+        synchronized (rooms) {
+            buffer = rooms.get(roomId);
+        }
+        return buffer != null ? buffer.read(afterSequence, limit, gapCutoff()) : null;
+    }
+
+    /**
+     * Cut messages read from the store after a sequence at the first gap
+     * that may still be filled
+     */
+    public List<Message> untilGap(List<Message> messages, long afterSequence) {
+        LocalDateTime cutoff = gapCutoff();
+        long expected = afterSequence + 1;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message.getSequence() != expected && message.getTimestamp().isAfter(cutoff)) {
+                return messages.subList(0, i);
+            }
+            expected = message.getSequence() + 1;
+        }
+        return messages;
+    }
+
+    private LocalDateTime gapCutoff() {
+        return LocalDateTime.now().minusNanos(gapGraceMs * 1_000_000);
+    }
+
+    /**
+     * The last stored messages of one room; the slot of a sequence is the
+     * sequence modulo the capacity. Covers the sequences from the first one
+     * buffered since startup, or eviction, that have not been overwritten.
+     */
+    private static final class RoomBuffer {
+
+        private final Message[] slots;
+        private long firstSequence = Long.MAX_VALUE;
+        private long lastSequence;
+
+        RoomBuffer(int capacity) {
+            this.slots = new Message[capacity];
+        }
+
+        synchronized void append(Message message) {
+            long sequence = message.getSequence();
+            if (sequence <= lastSequence - slots.length) {
+                return;
+            }
+            slots[(int) (sequence % slots.length)] = message;
+            firstSequence = Math.min(firstSequence, sequence);
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+
+        synchronized List<Message> read(long afterSequence, int limit, LocalDateTime gapCutoff) {
+            long oldest = Math.max(firstSequence, lastSequence - slots.length + 1);
+            if (afterSequence + 1 < oldest) {
+                return null;
+            }
+            List<Message> messages = new ArrayList<>();
+            long sequence = afterSequence + 1;
+            while (sequence <= lastSequence && messages.size() < limit) {
+                Message message = slot(sequence);
+                if (message != null) {
+                    messages.add(message);
+                    sequence++;
+                    continue;
+                }
+                Message next = null;
+                for (long later = sequence + 1; later <= lastSequence && next == null; later++) {
+                    next = slot(later);
+                }
+                if (next == null || next.getTimestamp().isAfter(gapCutoff)) {
+                    break;
+                }
+                sequence = next.getSequence();
+            }
+            return messages;
+        }
+
+        private Message slot(long sequence) {
+            Message message = slots[(int) (sequence % slots.length)];
+            return message != null && message.getSequence() == sequence ? message : null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.chatmessage.chat.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-room mutual exclusion for the background jobs that remove a room's
+ * oldest messages ({@link MessageArchivalJob}, {@link MessageRetentionJob}),
+ * which must not move and delete the same range at once. Rooms share a fixed
+ * number of locks, so unrelated rooms occasionally wait for each other.
+ */
+@Component
+public class RoomMaintenanceLocks {
+
+    private static final int STRIPES = 64;
+
+    // Not synchronized: the jobs do I/O while holding the lock, which would pin a virtual thread to its carrier
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public RoomMaintenanceLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock forRoom(String roomId) {
+        return locks[Math.floorMod(roomId.hashCode(), STRIPES)];
+    }
+}
@@ -1,18 +1,40 @@
 package com.chatmessage.chat.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.model.RoomSummary;
 
 public interface RoomService {
 
+    /**
+     * A room with its full member list, as handed out one room at a time by
+     * {@link #streamRoomMembers}
+     */
+    record RoomMembers(String roomId, String roomName, List<String> members) {
+    }
+
     Room createRoom(String roomName, List<String> members);
 
     Room getRoomById(String userId, String roomId);
 
-    List<Room> getRoomsByUserId(String userId);
+    List<RoomSummary> getRoomsByUserId(String userId);
 
     boolean isUserInRoom(String userId, String roomId);
 
-    List<Room> getAllRooms(); // Added method to get all rooms
+    List<RoomSummary> getAllRooms(); // Added method to get all rooms
+
+    /**
+     * One page of a room's member ids in id order
+     *
+     * @throws IllegalArgumentException If the room doesn't exist or the user
+     * is not a member
+     */
+    List<String> getRoomMembers(String userId, String roomId, int page, int size);
+
+    /**
+     * Hand every room with its members to the consumer, one room at a time
+     */
+    void streamRoomMembers(Consumer<RoomMembers> consumer);
 }
@@ -1,20 +1,36 @@
 package com.chatmessage.chat.service;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
 
 import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.model.RoomSummary;
 import com.chatmessage.chat.repository.RoomRepository;
 
 @Service
 public class RoomServiceImpl implements RoomService {
 
+    private static final String ROOM_MEMBERS_SQL = "SELECT r.room_id, r.room_name, m.user_id FROM rooms r"
+            + " LEFT JOIN room_members m ON m.room_id = r.room_id ORDER BY r.room_id";
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     private final RoomRepository roomRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final VersionStamps versionStamps;
 
-    public RoomServiceImpl(RoomRepository roomRepository) {
+    public RoomServiceImpl(RoomRepository roomRepository, JdbcTemplate jdbcTemplate, VersionStamps versionStamps) {
         this.roomRepository = roomRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.versionStamps = versionStamps;
     }
 
     @Override
@@ -32,7 +48,9 @@ public class RoomServiceImpl implements RoomService {
         room.setRoomName(roomName);
         room.setMembers(members);
 
-        return roomRepository.save(room);
+        Room saved = roomRepository.save(room);
+        versionStamps.collectionChanged(VersionStamps.Collection.ROOMS);
+        return saved;
     }
 
     @Override
@@ -48,23 +66,63 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
-    public List<Room> getRoomsByUserId(String userId) {
+    public List<RoomSummary> getRoomsByUserId(String userId) {
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("User ID cannot be empty");
         }
 
-        return roomRepository.findByMembersContaining(userId);
+        return roomRepository.findSummariesByMember(userId);
     }
 
     @Override
     public boolean isUserInRoom(String userId, String roomId) {
-        return roomRepository.findById(roomId)
-                .map(room -> room.isMember(userId))
-                .orElse(false);
+        return roomRepository.isMember(roomId, userId);
+    }
+
+    @Override
+    public List<RoomSummary> getAllRooms() {
+        return roomRepository.findAllSummaries();
+    }
+
+    @Override
+    public List<String> getRoomMembers(String userId, String roomId, int page, int size) {
+        if (!isUserInRoom(userId, roomId)) {
+            throw new IllegalArgumentException(roomRepository.existsById(roomId)
+                    ? "User is not a member of this room" : "Room not found");
+        }
+        return roomRepository.findMemberIds(roomId, PageRequest.of(page, size));
     }
 
+    /**
+     * Reads rooms joined with their members from a forward-only cursor, so
+     * only one room's members are held in memory at a time
+     */
     @Override
-    public List<Room> getAllRooms() {
-        return roomRepository.findAll();
+    public void streamRoomMembers(Consumer<RoomMembers> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ROOM_MEMBERS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (ResultSetExtractor<Void>) resultSet -> {
+            RoomMembers current = null;
+            while (resultSet.next()) {
+                String roomId = resultSet.getString("room_id");
+                if (current == null || !current.roomId().equals(roomId)) {
+                    if (current != null) {
+                        consumer.accept(current);
+                    }
+                    current = new RoomMembers(roomId, resultSet.getString("room_name"), new ArrayList<>());
+                }
+                String member = resultSet.getString("user_id");
+                if (member != null) {
+                    current.members().add(member);
+                }
+            }
+            if (current != null) {
+                consumer.accept(current);
+            }
+            return null;
+        });
     }
 }
@@ -0,0 +1,468 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.RoomActivity;
+
+/**
+ * Generates a dataset shaped like production for performance work: users,
+ * rooms whose membership and message activity follow a Zipf distribution
+ * over room rank, and messages with log-normally distributed text lengths
+ * and a share of image attachments.
+ *
+ * Everything is derived from the seed, so the same settings always produce
+ * the same ids, memberships, texts and timestamps. Rows are generated in
+ * order on the calling thread and written as JDBC batches, each in its own
+ * transaction, by {@code writerThreads} threads in parallel. Messages are
+ * numbered here and room activity summaries are written at the end, so the
+ * sequencer and inbox pick up where the generated data leaves off. The
+ * first user is written last of all, marking the dataset complete. Rows go
+ * straight to the tables of the {@code jpa} message store; the search index
+ * is not updated.
+ */
+public class SyntheticDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String USER_SQL = "INSERT INTO users (user_id, username) VALUES (?, ?)";
+    private static final String ROOM_SQL = "INSERT INTO rooms (room_id, room_name) VALUES (?, ?)";
+    private static final String MEMBER_SQL = "INSERT INTO room_members (room_id, user_id) VALUES (?, ?)";
+    private static final String MESSAGE_SQL = "INSERT INTO messages (message_id, sender_id, room_id, content, image_url, timestamp, sequence)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String ACTIVITY_SQL = "INSERT INTO room_activity (room_id, last_message_id, last_sender_id,"
+            + " last_message_preview, last_message_at, last_sequence) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_CONTENT_LENGTH = 2000;
+    private static final int MAX_ROOMS_PER_USER = 200;
+    private static final long MAX_IMAGE_BYTES = 10L * 1024 * 1024;
+    private static final String[] WORDS = {
+        "the", "a", "to", "and", "is", "it", "you", "i", "we", "that", "for", "on", "in", "this", "of", "be",
+        "can", "will", "just", "so", "ok", "thanks", "yes", "no", "meeting", "today", "tomorrow", "build",
+        "release", "deploy", "review", "merge", "branch", "test", "fixed", "broken", "lunch", "coffee", "call",
+        "later", "now", "please", "check", "looks", "good", "great", "sure", "why", "how", "what", "when",
+        "update", "ticket", "customer", "issue", "done", "working", "on", "it", "again", "sorry", "late",
+        "ship", "plan", "sprint", "docs", "link", "sent", "here", "there", "lol", "nice", "agreed", "maybe"
+    };
+
+    /**
+     * Size and shape of the dataset
+     *
+     * @param membershipsPerUser Mean number of rooms a user is a member of
+     * @param roomExponent Zipf exponent of room popularity: higher makes the largest rooms larger
+     * @param senderExponent Zipf exponent of how often each member of a room posts
+     * @param imageRatio Share of messages with an image
+     * @param imageOnlyRatio Share of image messages without text
+     * @param imagePoolSize Number of placeholder image files the image messages point to
+     * @param medianContentLength Median text length in characters
+     * @param endTime Timestamp of the last message; messages are spread evenly over the {@code days} before it
+     */
+    public record Settings(long seed, int users, int rooms, long messages, double membershipsPerUser,
+            double roomExponent, double senderExponent, double imageRatio, double imageOnlyRatio, int imagePoolSize,
+            int medianContentLength, int batchSize, int writerThreads, LocalDateTime endTime, int days) {
+
+        public Settings {
+            if (users <= 0 || rooms <= 0 || messages < 0 || batchSize <= 0 || writerThreads <= 0 || days <= 0
+                    || medianContentLength <= 0 || imagePoolSize < 0 || membershipsPerUser < 1) {
+                throw new IllegalArgumentException("Generator counts must be positive and users must join at least one room");
+            }
+            if (roomExponent < 0 || senderExponent < 0) {
+                throw new IllegalArgumentException("Zipf exponents must not be negative");
+            }
+            if (imageRatio < 0 || imageRatio > 1 || imageOnlyRatio < 0 || imageOnlyRatio > 1) {
+                throw new IllegalArgumentException("Image ratios must be between 0 and 1");
+            }
+        }
+    }
+
+    public record Result(int users, int rooms, long memberships, long messages, long elapsedMillis) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path uploadDir;
+    private final Settings settings;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            Path uploadDir, Settings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.uploadDir = uploadDir;
+        this.settings = settings;
+    }
+
+    /**
+     * @return true if the data of this seed is completely in the database
+     */
+    public boolean isGenerated() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE username = ?", Integer.class,
+                username(0));
+        return count != null && count > 0;
+    }
+
+    /**
+     * @return true if an interrupted run of this seed left some of its data behind
+     */
+    public boolean hasPartialData() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rooms WHERE room_name = ?", Integer.class,
+                roomName(0));
+        return count != null && count > 0 && !isGenerated();
+    }
+
+    public Result generate() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        SplittableRandom root = new SplittableRandom(settings.seed());
+        SplittableRandom userRandom = root.split();
+        SplittableRandom roomRandom = root.split();
+        SplittableRandom memberRandom = root.split();
+        SplittableRandom imageRandom = root.split();
+        SplittableRandom messageRandom = root.split();
+
+        ExecutorService executor = Executors.newFixedThreadPool(settings.writerThreads());
+        try {
+            BatchWriter writer = new BatchWriter(executor);
+
+            String[] userIds = new String[settings.users()];
+            List<String[]> users = new ArrayList<>(settings.batchSize());
+            for (int i = 0; i < userIds.length; i++) {
+                userIds[i] = uuid(userRandom);
+                if (i > 0) {
+                    users.add(new String[] { userIds[i], username(i) });
+                    users = writer.submitIfFull(USER_SQL, users, SyntheticDataGenerator::setPair);
+                }
+            }
+            String[] roomIds = new String[settings.rooms()];
+            List<String[]> rooms = new ArrayList<>(settings.batchSize());
+            for (int i = 0; i < roomIds.length; i++) {
+                roomIds[i] = uuid(roomRandom);
+                rooms.add(new String[] { roomIds[i], roomName(i) });
+                rooms = writer.submitIfFull(ROOM_SQL, rooms, SyntheticDataGenerator::setPair);
+            }
+            writer.submit(USER_SQL, users, SyntheticDataGenerator::setPair);
+            writer.submit(ROOM_SQL, rooms, SyntheticDataGenerator::setPair);
+            writer.await();
+
+            int[][] members = assignMembers(memberRandom);
+            long memberships = 0;
+            List<String[]> memberRows = new ArrayList<>(settings.batchSize());
+            for (int room = 0; room < members.length; room++) {
+                for (int user : members[room]) {
+                    memberRows.add(new String[] { roomIds[room], userIds[user] });
+                    memberRows = writer.submitIfFull(MEMBER_SQL, memberRows, SyntheticDataGenerator::setPair);
+                    memberships++;
+                }
+            }
+            writer.submit(MEMBER_SQL, memberRows, SyntheticDataGenerator::setPair);
+            writer.await();
+            logger.info("Generated {} users and {} rooms with {} memberships", userIds.length, roomIds.length, memberships);
+
+            String[] imageUrls = writeImagePool(imageRandom);
+            Message[] lastMessages = generateMessages(messageRandom, writer, userIds, roomIds, members, imageUrls);
+            writer.await();
+
+            List<Message> activity = new ArrayList<>(settings.batchSize());
+            for (Message last : lastMessages) {
+                if (last != null) {
+                    activity.add(last);
+                    activity = writer.submitIfFull(ACTIVITY_SQL, activity, SyntheticDataGenerator::setActivity);
+                }
+            }
+            writer.submit(ACTIVITY_SQL, activity, SyntheticDataGenerator::setActivity);
+            writer.await();
+            // The completion marker checked by isGenerated
+            jdbcTemplate.update(USER_SQL, userIds[0], username(0));
+
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Generated {} messages in {} s ({} messages/s)", settings.messages(), elapsedMillis / 1000,
+                    settings.messages() * 1000 / Math.max(elapsedMillis, 1));
+            return new Result(userIds.length, roomIds.length, memberships, settings.messages(), elapsedMillis);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Each user joins a geometrically distributed number of rooms picked by
+     * Zipf over room rank; rooms nobody picked get one random member so every
+     * room can have messages
+     *
+     * @return User indexes of the members of each room
+     */
+    private int[][] assignMembers(SplittableRandom random) {
+        int roomCount = settings.rooms();
+        int maxRooms = Math.min(roomCount, MAX_ROOMS_PER_USER);
+        double stop = 1 / settings.membershipsPerUser();
+        int[] counts = new int[roomCount];
+        int[][] joined = new int[settings.users()][];
+        for (int user = 0; user < joined.length; user++) {
+            int wanted = 1;
+            while (wanted < maxRooms && random.nextDouble() >= stop) {
+                wanted++;
+            }
+            int[] rooms = new int[wanted];
+            int picked = 0;
+            for (int attempt = 0; picked < wanted && attempt < wanted * 4; attempt++) {
+                int room = zipf(random, roomCount, settings.roomExponent());
+                if (!contains(rooms, picked, room)) {
+                    rooms[picked++] = room;
+                    counts[room]++;
+                }
+            }
+            joined[user] = picked == wanted ? rooms : Arrays.copyOf(rooms, picked);
+        }
+
+        int[][] members = new int[roomCount][];
+        for (int room = 0; room < roomCount; room++) {
+            members[room] = new int[Math.max(counts[room], 1)];
+            counts[room] = 0;
+        }
+        for (int user = 0; user < joined.length; user++) {
+            for (int room : joined[user]) {
+                members[room][counts[room]++] = user;
+            }
+        }
+        for (int room = 0; room < roomCount; room++) {
+            if (counts[room] == 0) {
+                members[room][0] = random.nextInt(settings.users());
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Write the placeholder files that image messages point to, with
+     * log-normally distributed sizes around 150 KB
+     *
+     * @return The URLs of the files
+     */
+    private String[] writeImagePool(SplittableRandom random) throws IOException {
+        if (settings.imageRatio() == 0 || settings.imagePoolSize() == 0) {
+            return new String[0];
+        }
+        Files.createDirectories(uploadDir);
+        String[] urls = new String[settings.imagePoolSize()];
+        for (int i = 0; i < urls.length; i++) {
+            String filename = "generated-" + settings.seed() + "-" + i + ".jpg";
+            byte[] bytes = new byte[(int) Math.min(MAX_IMAGE_BYTES,
+                    Math.max(1024, Math.round(150 * 1024 * Math.exp(0.7 * random.nextGaussian()))))];
+            random.nextBytes(bytes);
+            Path file = uploadDir.resolve(filename);
+            if (!Files.exists(file)) {
+                Files.write(file, bytes);
+            }
+            urls[i] = "/uploads/" + filename;
+        }
+        return urls;
+    }
+
+    /**
+     * @return The last message of each room, or null for rooms without messages
+     */
+    private Message[] generateMessages(SplittableRandom random, BatchWriter writer, String[] userIds, String[] roomIds,
+            int[][] members, String[] imageUrls) throws InterruptedException {
+        long count = settings.messages();
+        long[] sequences = new long[roomIds.length];
+        Message[] lastMessages = new Message[roomIds.length];
+        LocalDateTime start = settings.endTime().minusDays(settings.days());
+        double step = (double) Duration.ofDays(settings.days()).toNanos() / Math.max(count, 1);
+        long progressInterval = Math.max(count / 10, 1);
+        long progressStart = System.nanoTime();
+
+        List<Message> batch = new ArrayList<>(settings.batchSize());
+        for (long i = 0; i < count; i++) {
+            int room = zipf(random, roomIds.length, settings.roomExponent());
+            int[] roomMembers = members[room];
+            int sender = roomMembers[zipf(random, roomMembers.length, settings.senderExponent())];
+            boolean image = imageUrls.length > 0 && random.nextDouble() < settings.imageRatio();
+            String content = image && random.nextDouble() < settings.imageOnlyRatio() ? "" : text(random);
+
+            Message message = new Message(uuid(random), userIds[sender], roomIds[room], content,
+                    image ? imageUrls[random.nextInt(imageUrls.length)] : null);
+            message.setTimestamp(start.plusNanos((long) ((i + random.nextDouble()) * step)));
+            message.setSequence(++sequences[room]);
+            lastMessages[room] = message;
+
+            batch.add(message);
+            batch = writer.submitIfFull(MESSAGE_SQL, batch, SyntheticDataGenerator::setMessage);
+            if ((i + 1) % progressInterval == 0) {
+                long elapsed = System.nanoTime() - progressStart;
+                logger.info("Generated {} of {} messages ({} messages/s)", i + 1, count,
+                        (i + 1) * 1_000_000_000L / Math.max(elapsed, 1));
+            }
+        }
+        writer.submit(MESSAGE_SQL, batch, SyntheticDataGenerator::setMessage);
+        return lastMessages;
+    }
+
+    /**
+     * Words from a small vocabulary up to a log-normally distributed length
+     */
+    private String text(SplittableRandom random) {
+        int length = (int) Math.min(MAX_CONTENT_LENGTH,
+                Math.max(1, Math.round(settings.medianContentLength() * Math.exp(random.nextGaussian()))));
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private String username(int index) {
+        return "gen" + settings.seed() + "-user-" + index;
+    }
+
+    private String roomName(int index) {
+        return "gen" + settings.seed() + " room " + (index + 1);
+    }
+
+    /**
+     * Zipf-distributed rank in {@code [0, n)}: rank {@code k} is drawn with
+     * probability roughly proportional to {@code 1 / (k + 1)^exponent}, by
+     * inverting the continuous approximation of the distribution. An
+     * exponent of 0 gives a uniform rank.
+     */
+    static int zipf(SplittableRandom random, int n, double exponent) {
+        double u = random.nextDouble();
+        double x = Math.abs(exponent - 1) < 1e-9
+                ? Math.pow(n + 1, u)
+                : Math.pow((Math.pow(n + 1, 1 - exponent) - 1) * u + 1, 1 / (1 - exponent));
+        return Math.min((int) x - 1, n - 1);
+    }
+
+    /**
+     * A version 4 UUID drawn from the generator's random source
+     */
+    private static String uuid(SplittableRandom random) {
+        long mostSignificant = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSignificant = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant).toString();
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void setPair(PreparedStatement statement, String[] row) throws SQLException {
+        statement.setString(1, row[0]);
+        statement.setString(2, row[1]);
+    }
+
+    private static void setMessage(PreparedStatement statement, Message message) throws SQLException {
+        statement.setString(1, message.getMessageId());
+        statement.setString(2, message.getSenderId());
+        statement.setString(3, message.getRoomId());
+        statement.setString(4, message.getContent());
+        statement.setString(5, message.getImageUrl());
+        statement.setTimestamp(6, Timestamp.valueOf(message.getTimestamp()));
+        statement.setLong(7, message.getSequence());
+    }
+
+    private static void setActivity(PreparedStatement statement, Message message) throws SQLException {
+        statement.setString(1, message.getRoomId());
+        statement.setString(2, message.getMessageId());
+        statement.setString(3, message.getSenderId());
+        statement.setString(4, RoomActivity.preview(message));
+        statement.setTimestamp(5, Timestamp.valueOf(message.getTimestamp()));
+        statement.setLong(6, message.getSequence());
+    }
+
+    /**
+     * Runs batch inserts on the writer threads, each in its own transaction.
+     * At most two batches per thread are queued, so generation waits for the
+     * database instead of buffering the whole dataset.
+     */
+    private class BatchWriter {
+
+        private final ExecutorService executor;
+        private final Semaphore queued;
+        private final List<Future<?>> pending = new ArrayList<>();
+
+        BatchWriter(ExecutorService executor) {
+            this.executor = executor;
+            this.queued = new Semaphore(settings.writerThreads() * 2);
+        }
+
+        /**
+         * Submit the rows once a batch is full
+         *
+         * @return The list to keep adding rows to: a new one if the batch was submitted
+         */
+        <T> List<T> submitIfFull(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter)
+                throws InterruptedException {
+            if (rows.size() < settings.batchSize()) {
+                return rows;
+            }
+            submit(sql, rows, setter);
+            return new ArrayList<>(settings.batchSize());
+        }
+
+        <T> void submit(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter)
+                throws InterruptedException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            if (pending.stream().anyMatch(future -> future.state() == Future.State.FAILED)) {
+                await();
+            }
+            queued.acquire();
+            pending.removeIf(future -> future.state() == Future.State.SUCCESS);
+            pending.add(executor.submit(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(
+                            status -> jdbcTemplate.batchUpdate(sql, rows, rows.size(), setter));
+                } finally {
+                    queued.release();
+                }
+            }));
+        }
+
+        /**
+         * Wait for every submitted batch, rethrowing the first failure
+         */
+        void await() throws InterruptedException {
+            for (Future<?> future : pending) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw new IllegalStateException("Generator batch failed", e.getCause());
+                }
+            }
+            pending.clear();
+        }
+    }
+}
@@ -1,37 +1,172 @@
 package com.chatmessage.chat.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.chatmessage.chat.model.User;
 import com.chatmessage.chat.repository.UserRepository;
 
+/**
+ * User accounts. Username uniqueness is decided by the unique constraint on
+ * {@code users.username}: a new user is inserted directly and a duplicate
+ * key means the name is taken, so concurrent signups for the same name
+ * cannot both succeed. {@link UsernameIndex} lets most taken names be
+ * rejected, and most free names be inserted, without a lookup query.
+ *
+ * Users looked up by id are kept in a bounded LRU cache of
+ * {@code user.cache.max-entries}; {@link #saveUser(User)} evicts the entry.
+ */
 @Service
 public class UserService {
 
+    private static final String INSERT_SQL = "INSERT INTO users (user_id, username) VALUES (?, ?)";
+
     private final UserRepository userRepository;
+    private final UsernameIndex usernameIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VersionStamps versionStamps;
+    private final int batchSize;
+    private final Map<String, User> cache;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UsernameIndex usernameIndex, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, VersionStamps versionStamps,
+            @Value("${user.batch.insert-batch-size:1000}") int batchSize,
+            @Value("${user.cache.max-entries:10000}") int cacheSize) {
         this.userRepository = userRepository;
+        this.usernameIndex = usernameIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.versionStamps = versionStamps;
+        this.batchSize = batchSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Outcome of a batch creation: the users created and, for every other
+     * requested name, why it was rejected
+     */
+    public record BatchResult(List<User> created, List<RejectedUsername> rejected) {
+    }
+
+    public record RejectedUsername(String username, String error) {
     }
 
     public User createUser(String username) {
         if (username == null || username.trim().isEmpty()) {
             throw new IllegalArgumentException("Username cannot be empty");
         }
+        if (isKnownTaken(username)) {
+            throw new IllegalArgumentException("Username already exists");
+        }
 
-        // Check if username is already taken
-        if (userRepository.findByUsername(username).isPresent()) {
+        User user = new User(UUID.randomUUID().toString(), username);
+        try {
+            jdbcTemplate.update(INSERT_SQL, user.getUserId(), user.getUsername());
+        } catch (DuplicateKeyException e) {
             throw new IllegalArgumentException("Username already exists");
         }
+        usernameIndex.add(username, user.getUserId());
+        versionStamps.collectionChanged(VersionStamps.Collection.USERS);
+        return user;
+    }
 
-        User user = new User();
-        user.setUserId(UUID.randomUUID().toString());
-        user.setUsername(username);
+    /**
+     * Create a user for each name, inserting them in JDBC batches. Empty,
+     * repeated and taken names are rejected without failing the rest. A batch
+     * that hits a concurrently taken name is rolled back and retried one name
+     * at a time.
+     */
+    public BatchResult createUsers(List<String> usernames) {
+        List<User> created = new ArrayList<>(usernames.size());
+        List<RejectedUsername> rejected = new ArrayList<>();
+        List<User> pending = new ArrayList<>(batchSize);
+        Set<String> seen = new HashSet<>();
+
+        for (String username : usernames) {
+            if (username == null || username.trim().isEmpty()) {
+                rejected.add(new RejectedUsername(username, "Username cannot be empty"));
+            } else if (!seen.add(username) || isKnownTaken(username)) {
+                rejected.add(new RejectedUsername(username, "Username already exists"));
+            } else {
+                pending.add(new User(UUID.randomUUID().toString(), username));
+                if (pending.size() >= batchSize) {
+                    insertBatch(pending, created, rejected);
+                }
+            }
+        }
+        insertBatch(pending, created, rejected);
+        if (!created.isEmpty()) {
+            versionStamps.collectionChanged(VersionStamps.Collection.USERS);
+        }
+        return new BatchResult(created, rejected);
+    }
+
+    private void insertBatch(List<User> pending, List<User> created, List<RejectedUsername> rejected) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, pending, pending.size(), (statement, user) -> {
+                        statement.setString(1, user.getUserId());
+                        statement.setString(2, user.getUsername());
+                    }));
+            for (User user : pending) {
+                created.add(user);
+                usernameIndex.add(user.getUsername(), user.getUserId());
+            }
+        } catch (DataAccessException e) {
+            for (User user : pending) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, user.getUserId(), user.getUsername());
+                    created.add(user);
+                    usernameIndex.add(user.getUsername(), user.getUserId());
+                } catch (DuplicateKeyException duplicate) {
+                    rejected.add(new RejectedUsername(user.getUsername(), "Username already exists"));
+                }
+            }
+        }
+        pending.clear();
+    }
 
-        return userRepository.save(user);
+    /**
+     * A name the filter has never seen is free without asking the database;
+     * a cached name is taken. Only the rest need a lookup.
+     */
+    private boolean isKnownTaken(String username) {
+        if (usernameIndex.isDefinitelyFree(username)) {
+            return false;
+        }
+        if (usernameIndex.getCachedUserId(username) != null) {
+            return true;
+        }
+        return userRepository.findByUsername(username)
+                .map(user -> {
+                    usernameIndex.add(username, user.getUserId());
+                    return true;
+                })
+                .orElse(false);
     }
 
     public User saveUser(User user) {
@@ -41,12 +176,78 @@ public class UserService {
         if (user.getUserId() == null || user.getUserId().trim().isEmpty()) {
             user.setUserId(UUID.randomUUID().toString());
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        synchronized (cache) {
+            cache.remove(saved.getUserId());
+        }
+        if (saved.getUsername() != null) {
+            usernameIndex.add(saved.getUsername(), saved.getUserId());
+        }
+        versionStamps.collectionChanged(VersionStamps.Collection.USERS);
+        return saved;
     }
 
     public User getUserById(String userId) {
-        return userRepository.findById(userId)
+        synchronized (cache) {
+            User cached = cache.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        synchronized (cache) {
+            cache.put(userId, user);
+        }
+        return user;
+    }
+
+    /**
+     * Look up many users at once. Cached users are served from memory and
+     * the rest are loaded with a single query.
+     *
+     * @return The users found, keyed by id in the order of the given ids;
+     * unknown ids are left out
+     */
+    public Map<String, User> getUsersByIds(Collection<String> userIds) {
+        Set<String> ids = new LinkedHashSet<>(userIds);
+        Map<String, User> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (cache) {
+            for (String id : ids) {
+                User cached = cache.get(id);
+                if (cached != null) {
+                    found.put(id, cached);
+                } else {
+                    missing.add(id);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<User> loaded = userRepository.findAllById(missing);
+            synchronized (cache) {
+                for (User user : loaded) {
+                    cache.put(user.getUserId(), user);
+                    found.put(user.getUserId(), user);
+                }
+            }
+        }
+
+        Map<String, User> ordered = new LinkedHashMap<>();
+        for (String id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                ordered.put(id, user);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Whether any user exists, without loading them
+     */
+    public boolean hasUsers() {
+        return userRepository.existsBy();
     }
 
     public List<User> getAllUsers() {
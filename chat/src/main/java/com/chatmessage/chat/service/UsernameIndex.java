@@ -0,0 +1,182 @@
+package com.chatmessage.chat.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory view of taken usernames used to answer "is this name free?"
+ * without a query in the common cases.
+ *
+ * A Bloom filter over every username answers "definitely free" for names
+ * never seen; a bounded LRU map of username to user id answers "taken" for
+ * recently created or looked-up names. Everything else falls through to the
+ * database. Neither structure is authoritative: users inserted behind the
+ * service's back are only caught by the unique constraint on insert.
+ */
+@Service
+public class UsernameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final Map<String, String> recent;
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile BloomFilter filter;
+
+    public UsernameIndex(JdbcTemplate jdbcTemplate,
+            @Value("${user.username-index.expected-users:1000000}") long expectedUsers,
+            @Value("${user.username-index.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${user.username-index.cache-size:10000}") int cacheSize) {
+        if (expectedUsers <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Username index needs positive expected users and a false positive rate below 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Load every existing username into the filter. The filter is sized for
+     * at least twice the current user count so it keeps its false positive
+     * rate while the user base grows. Loaded on first use, once the schema
+     * is in place.
+     */
+    private BloomFilter load() {
+        loadLock.lock();
+        try {
+            return filter != null ? filter : loadFilter();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private BloomFilter loadFilter() {
+        long start = System.nanoTime();
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        BloomFilter loaded = new BloomFilter(Math.max(expectedUsers, 2 * (count != null ? count : 0)), falsePositiveRate);
+        jdbcTemplate.query("SELECT username FROM users", resultSet -> {
+            loaded.add(resultSet.getString(1));
+        });
+        filter = loaded;
+        logger.info("Loaded {} usernames into a {} KB filter in {} ms", count, loaded.sizeInBytes() / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+        return loaded;
+    }
+
+    private BloomFilter filter() {
+        BloomFilter current = filter;
+        return current != null ? current : load();
+    }
+
+    /**
+     * @return true if no user with this name exists; false if one may exist
+     */
+    public boolean isDefinitelyFree(String username) {
+        return !filter().mightContain(username);
+    }
+
+    /**
+     * @return The id of the user with this name if it is cached, otherwise null
+     */
+    public String getCachedUserId(String username) {
+        synchronized (recent) {
+            return recent.get(username);
+        }
+    }
+
+    /**
+     * Record a username that is known to be taken
+     */
+    public void add(String username, String userId) {
+        filter().add(username);
+        synchronized (recent) {
+            recent.put(username, userId);
+        }
+    }
+
+    /**
+     * Bloom filter over a bit array updated with CAS, so adds and lookups
+     * need no lock. Uses double hashing of a 64-bit FNV-1a hash and its
+     * remix to derive the bit positions.
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(long expectedItems, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedItems * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedItems * Math.log(2)));
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current = bits.get(word);
+                while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                    current = bits.get(word);
+                }
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeInBytes() {
+            return bitCount / 8;
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.chatmessage.chat.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory version stamps backing the weak ETags of conditional GETs: one
+ * per room's message history and one per collection (rooms, users). Writers
+ * bump a stamp after their change is committed, and readers take the ETag
+ * before reading, so a response is never tagged newer than its content.
+ *
+ * Stamps start at 0 on every start; the ETags carry a per-start epoch so
+ * tags from an earlier run, which may have missed writes, never match.
+ * Bulk loads that bypass the services call {@link #invalidateAll()}.
+ */
+@Service
+public class VersionStamps {
+
+    public enum Collection {
+        ROOMS, USERS
+    }
+
+    private final String start = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger invalidations = new AtomicInteger();
+    private volatile String epoch = start;
+    private final Map<String, Long> rooms = new ConcurrentHashMap<>();
+    private final Map<Collection, AtomicLong> collections = Map.of(
+            Collection.ROOMS, new AtomicLong(),
+            Collection.USERS, new AtomicLong());
+
+    /**
+     * Record that messages of a room were added or deleted
+     */
+    public void roomChanged(String roomId) {
+        rooms.merge(roomId, 1L, Long::sum);
+    }
+
+    public void collectionChanged(Collection collection) {
+        collections.get(collection).incrementAndGet();
+    }
+
+    /**
+     * Change every ETag, after data was written without bumping stamps
+     */
+    public void invalidateAll() {
+        epoch = start + "." + invalidations.incrementAndGet();
+    }
+
+    /**
+     * @return Weak ETag of a room's message history
+     */
+    public String roomETag(String roomId) {
+        return eTag("m" + rooms.getOrDefault(roomId, 0L));
+    }
+
+    /**
+     * @return Weak ETag of a room's message history together with the
+     *         profiles of its senders, which come from the users collection
+     */
+    public String roomWithUsersETag(String roomId) {
+        return eTag("m" + rooms.getOrDefault(roomId, 0L) + "u" + collections.get(Collection.USERS).get());
+    }
+
+    /**
+     * @return Weak ETag of a collection and anything listed from it
+     */
+    public String collectionETag(Collection collection) {
+        return eTag(collection.name().toLowerCase().charAt(0) + String.valueOf(collections.get(collection).get()));
+    }
+
+    private String eTag(String version) {
+        return "W/\"" + epoch + "-" + version + "\"";
+    }
+}
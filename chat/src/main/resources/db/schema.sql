@@ -0,0 +1,58 @@
+-- Schema of the model classes, applied by the prod profile in place of
+-- Hibernate's ddl-auto=update. Keep in step with the entities: Hibernate
+-- validates against it at startup.
+CREATE TABLE IF NOT EXISTS users (
+    user_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS rooms (
+    room_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    room_name VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS room_members (
+    room_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255),
+    FOREIGN KEY (room_id) REFERENCES rooms
+);
+
+CREATE INDEX IF NOT EXISTS idx_room_members_user ON room_members (user_id);
+
+CREATE TABLE IF NOT EXISTS messages (
+    message_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    sender_id VARCHAR(255) NOT NULL,
+    room_id VARCHAR(255) NOT NULL,
+    content TEXT,
+    image_url VARCHAR(255),
+    timestamp TIMESTAMP(6) NOT NULL,
+    sequence BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_messages_room_sequence ON messages (room_id, sequence);
+CREATE INDEX IF NOT EXISTS idx_messages_timestamp ON messages (timestamp);
+
+CREATE TABLE IF NOT EXISTS read_receipts (
+    user_id VARCHAR(255) NOT NULL,
+    room_id VARCHAR(255) NOT NULL,
+    last_read_sequence BIGINT NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (room_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS room_activity (
+    room_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    last_message_id VARCHAR(255) NOT NULL,
+    last_sender_id VARCHAR(255) NOT NULL,
+    last_message_preview VARCHAR(100),
+    last_message_at TIMESTAMP(6) NOT NULL,
+    last_sequence BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_room_activity_last_message_at ON room_activity (last_message_at);
+
+CREATE TABLE IF NOT EXISTS retention_policies (
+    room_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    max_age_days INTEGER,
+    max_messages BIGINT
+);
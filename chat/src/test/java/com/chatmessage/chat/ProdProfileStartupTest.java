@@ -0,0 +1,30 @@
+package com.chatmessage.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Boots the lazily initialized "prod" profile, which resolves beans
+ * differently from the default one, on its own in-memory database
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:prod-profile-startup;DB_CLOSE_DELAY=-1",
+    "message.search.rebuild-on-startup=false"
+})
+@ActiveProfiles({"test", "prod"})
+class ProdProfileStartupTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void contextLoads_ShouldCreateBrokerGauges_WhenBeansAreLazy() {
+        assertThat(meterRegistry.get("chat.broker.queue").tag("channel", "inbound").gauge().value()).isZero();
+        assertThat(meterRegistry.get("chat.broker.queue").tag("channel", "outbound").gauge()).isNotNull();
+    }
+}
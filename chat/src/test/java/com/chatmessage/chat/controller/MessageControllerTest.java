@@ -1,16 +1,26 @@
 package com.chatmessage.chat.controller;
 
 import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.MessageHistory;
+import com.chatmessage.chat.model.RoomChanges;
+import com.chatmessage.chat.model.User;
+import com.chatmessage.chat.service.ChatEventLog;
 import com.chatmessage.chat.service.MessageService;
+import com.chatmessage.chat.service.MessageTrace;
+import com.chatmessage.chat.service.MessageTracer;
 import com.chatmessage.chat.repository.RoomRepository;
 import com.chatmessage.chat.repository.UserRepository;
 import com.chatmessage.chat.repository.MessageRepository;
+import com.chatmessage.chat.repository.ReadReceiptRepository;
+import com.chatmessage.chat.repository.RoomActivityRepository;
+import com.chatmessage.chat.repository.RetentionPolicyRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -18,6 +28,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import jakarta.persistence.EntityManagerFactory;
 
@@ -36,6 +47,15 @@ class MessageControllerTest {
     @MockBean
     private MessageService messageService;
 
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @MockBean
+    private MessageTracer messageTracer;
+
+    @MockBean
+    private ChatEventLog eventLog;
+
     @MockBean
     private RoomRepository roomRepository;
 
@@ -45,6 +65,15 @@ class MessageControllerTest {
     @MockBean
     private MessageRepository messageRepository;
 
+    @MockBean
+    private ReadReceiptRepository readReceiptRepository;
+
+    @MockBean
+    private RoomActivityRepository roomActivityRepository;
+
+    @MockBean
+    private RetentionPolicyRepository retentionPolicyRepository;
+
     // Prevent JPA autoconfiguration from requiring a real EntityManagerFactory
     @MockBean(name = "entityManagerFactory")
     private EntityManagerFactory entityManagerFactory;
@@ -76,7 +105,7 @@ class MessageControllerTest {
     @Test
     void sendMessage_ShouldCreateMessage_WithTextOnly() throws Exception {
         // Given
-        when(messageService.sendMessage(eq("user-1"), eq("room-1"), eq("Hello World"), isNull()))
+        when(messageService.sendMessage(eq("user-1"), eq("room-1"), eq("Hello World"), isNull(), any(MessageTrace.class)))
                 .thenReturn(testMessage1);
 
         // When & Then
@@ -105,7 +134,7 @@ class MessageControllerTest {
         imageMessage.setContent("");
         imageMessage.setImageUrl("http://example.com/uploaded-image.jpg");
 
-        when(messageService.sendMessage(eq("user-1"), eq("room-1"), eq(""), any()))
+        when(messageService.sendMessage(eq("user-1"), eq("room-1"), eq(""), any(), any(MessageTrace.class)))
                 .thenReturn(imageMessage);
 
         // When & Then
@@ -126,7 +155,7 @@ class MessageControllerTest {
         MockMultipartFile imageFile = new MockMultipartFile(
                 "image", "test.jpg", "image/jpeg", "test image content".getBytes());
 
-        when(messageService.sendMessage(eq("user-1"), eq("room-1"), eq("Message with image"), any()))
+        when(messageService.sendMessage(eq("user-1"), eq("room-1"), eq("Message with image"), any(), any(MessageTrace.class)))
                 .thenReturn(testMessage2);
 
         // When & Then
@@ -168,7 +197,7 @@ class MessageControllerTest {
     @Test
     void sendMessage_ShouldReturnBadRequest_WhenUserNotInRoom() throws Exception {
         // Given
-        when(messageService.sendMessage(eq("user-1"), eq("room-1"), eq("Hello"), isNull()))
+        when(messageService.sendMessage(eq("user-1"), eq("room-1"), eq("Hello"), isNull(), any(MessageTrace.class)))
                 .thenThrow(new IllegalArgumentException("User is not a member of this room"));
 
         // When & Then
@@ -184,7 +213,7 @@ class MessageControllerTest {
     @Test
     void sendMessage_ShouldReturnBadRequest_WhenRoomNotFound() throws Exception {
         // Given
-        when(messageService.sendMessage(eq("user-1"), eq("non-existent"), eq("Hello"), isNull()))
+        when(messageService.sendMessage(eq("user-1"), eq("non-existent"), eq("Hello"), isNull(), any(MessageTrace.class)))
                 .thenThrow(new IllegalArgumentException("Room not found"));
 
         // When & Then
@@ -200,7 +229,7 @@ class MessageControllerTest {
     @Test
     void sendMessage_ShouldUseDefaultUser_WhenUserIdNotProvided() throws Exception {
         // Given
-        when(messageService.sendMessage(eq("default-user"), eq("room-1"), eq("Hello"), isNull()))
+        when(messageService.sendMessage(eq("default-user"), eq("room-1"), eq("Hello"), isNull(), any(MessageTrace.class)))
                 .thenReturn(testMessage1);
 
         // When & Then
@@ -272,4 +301,119 @@ class MessageControllerTest {
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].messageId").value("msg-1"));
     }
+
+    @Test
+    void getRoomMessages_ShouldReturnPage_WhenPagingParametersProvided() throws Exception {
+        // Given
+        testMessage2.setSequence(2L);
+        when(messageService.getMessagesByRoomId("user-1", "room-1", 1L, 10))
+                .thenReturn(Arrays.asList(testMessage2));
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/room-1/messages")
+                .param("userId", "user-1")
+                .param("afterSequence", "1")
+                .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].messageId").value("msg-2"))
+                .andExpect(jsonPath("$[0].sequence").value(2));
+    }
+
+    @Test
+    void getRoomMessages_ShouldEmbedSenders_WhenIncludeSendersRequested() throws Exception {
+        // Given
+        List<Message> page = Arrays.asList(testMessage1, testMessage2);
+        when(messageService.getMessagesByRoomId("user-1", "room-1", 0L, 50)).thenReturn(page);
+        when(messageService.withSenders(page)).thenReturn(new MessageHistory(page,
+                Map.of("user-1", new User("user-1", "alice"), "user-2", new User("user-2", "bob"))));
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/room-1/messages")
+                .param("userId", "user-1")
+                .param("limit", "50")
+                .param("includeSenders", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages.length()").value(2))
+                .andExpect(jsonPath("$.senders['user-1'].username").value("alice"))
+                .andExpect(jsonPath("$.senders['user-2'].username").value("bob"));
+    }
+
+    @Test
+    void getRoomMessages_ShouldClampPageSize() throws Exception {
+        // Given
+        when(messageService.getMessagesByRoomId("user-1", "room-1", 0L, 500))
+                .thenReturn(testMessages);
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/room-1/messages")
+                .param("userId", "user-1")
+                .param("limit", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void getRoomChanges_ShouldReturnNewMessagesAndPosition() throws Exception {
+        // Given
+        testMessage2.setSequence(2L);
+        when(messageService.getChanges("user-1", "room-1", "e1:1", 100))
+                .thenReturn(new RoomChanges("e1:2", List.of(testMessage2), 0, false, false));
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/room-1/changes")
+                .param("userId", "user-1")
+                .param("since", "e1:1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value("e1:2"))
+                .andExpect(jsonPath("$.messages.length()").value(1))
+                .andExpect(jsonPath("$.messages[0].messageId").value("msg-2"))
+                .andExpect(jsonPath("$.reset").value(false));
+    }
+
+    @Test
+    void getRoomChanges_ShouldReturnBadRequest_WhenPositionInvalid() throws Exception {
+        // Given
+        when(messageService.getChanges("user-1", "room-1", "abc", 500))
+                .thenThrow(new IllegalArgumentException("Invalid position: abc"));
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/room-1/changes")
+                .param("userId", "user-1")
+                .param("since", "abc")
+                .param("limit", "100000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid position: abc"));
+    }
+
+    @Test
+    void searchMessages_ShouldReturnMatches() throws Exception {
+        // Given
+        when(messageService.searchMessages("user-1", "test", "room-1", null, 20))
+                .thenReturn(testMessages);
+
+        // When & Then
+        mockMvc.perform(get("/api/messages/search")
+                .param("userId", "user-1")
+                .param("q", "test")
+                .param("roomId", "room-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].messageId").value("msg-1"));
+    }
+
+    @Test
+    void searchMessages_ShouldReturnBadRequest_WhenUserIsNotMember() throws Exception {
+        // Given
+        when(messageService.searchMessages("user-9", "test", "room-1", null, 20))
+                .thenThrow(new IllegalArgumentException("User is not a member of this room"));
+
+        // When & Then
+        mockMvc.perform(get("/api/messages/search")
+                .param("userId", "user-9")
+                .param("q", "test")
+                .param("roomId", "room-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("User is not a member of this room"));
+    }
 }
@@ -1,30 +1,44 @@
 package com.chatmessage.chat.controller;
 
 import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.model.RoomSummary;
+import com.chatmessage.chat.model.InboxEntry;
+import com.chatmessage.chat.service.ChatEventLog;
+import com.chatmessage.chat.service.RoomActivityService;
 import com.chatmessage.chat.service.RoomService;
+import com.chatmessage.chat.service.RoomService.RoomMembers;
+import com.chatmessage.chat.service.VersionStamps;
 import com.chatmessage.chat.repository.RoomRepository;
 import com.chatmessage.chat.repository.UserRepository;
 import com.chatmessage.chat.repository.MessageRepository;
+import com.chatmessage.chat.repository.ReadReceiptRepository;
+import com.chatmessage.chat.repository.RoomActivityRepository;
+import com.chatmessage.chat.repository.RetentionPolicyRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import jakarta.persistence.EntityManagerFactory;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(RoomController.class)
+@Import(VersionStamps.class)
 @ActiveProfiles("test")
 class RoomControllerTest {
 
@@ -34,6 +48,12 @@ class RoomControllerTest {
     @MockBean
     private RoomService roomService;
 
+    @MockBean
+    private RoomActivityService roomActivityService;
+
+    @MockBean
+    private ChatEventLog eventLog;
+
     @MockBean
     private RoomRepository roomRepository;
 
@@ -43,6 +63,15 @@ class RoomControllerTest {
     @MockBean
     private MessageRepository messageRepository;
 
+    @MockBean
+    private ReadReceiptRepository readReceiptRepository;
+
+    @MockBean
+    private RoomActivityRepository roomActivityRepository;
+
+    @MockBean
+    private RetentionPolicyRepository retentionPolicyRepository;
+
     // Prevent JPA autoconfiguration from requiring a real EntityManagerFactory
     @MockBean(name = "entityManagerFactory")
     private EntityManagerFactory entityManagerFactory;
@@ -50,6 +79,7 @@ class RoomControllerTest {
     private Room testRoom1;
     private Room testRoom2;
     private List<Room> testRooms;
+    private List<RoomSummary> testSummaries;
 
     @BeforeEach
     void setUp() {
@@ -64,12 +94,13 @@ class RoomControllerTest {
         testRoom2.setMembers(Arrays.asList("user-1", "user-3"));
 
         testRooms = Arrays.asList(testRoom1, testRoom2);
+        testSummaries = Arrays.asList(new RoomSummary("room-1", "Test Room 1", 2), new RoomSummary("room-2", "Test Room 2", 2));
     }
 
     @Test
     void getUserRooms_ShouldReturnRoomsForUser() throws Exception {
         // Given
-        when(roomService.getRoomsByUserId("user-1")).thenReturn(testRooms);
+        when(roomService.getRoomsByUserId("user-1")).thenReturn(testSummaries);
 
         // When & Then
         mockMvc.perform(get("/api/rooms")
@@ -81,13 +112,15 @@ class RoomControllerTest {
                 .andExpect(jsonPath("$[0].roomId").value("room-1"))
                 .andExpect(jsonPath("$[0].roomName").value("Test Room 1"))
                 .andExpect(jsonPath("$[1].roomId").value("room-2"))
-                .andExpect(jsonPath("$[1].roomName").value("Test Room 2"));
+                .andExpect(jsonPath("$[1].roomName").value("Test Room 2"))
+                .andExpect(jsonPath("$[0].memberCount").value(2))
+                .andExpect(jsonPath("$[0].members").doesNotExist());
     }
 
     @Test
     void getUserRooms_ShouldUseDefaultUser_WhenUserIdNotProvided() throws Exception {
         // Given
-        when(roomService.getRoomsByUserId("default-user")).thenReturn(Arrays.asList(testRoom1));
+        when(roomService.getRoomsByUserId("default-user")).thenReturn(testSummaries.subList(0, 1));
 
         // When & Then
         mockMvc.perform(get("/api/rooms"))
@@ -145,7 +178,7 @@ class RoomControllerTest {
     @Test
     void getAllRooms_ShouldReturnAllRooms() throws Exception {
         // Given
-        when(roomService.getAllRooms()).thenReturn(testRooms);
+        when(roomService.getAllRooms()).thenReturn(testSummaries);
 
         // When & Then
         mockMvc.perform(get("/api/rooms/all"))
@@ -160,7 +193,13 @@ class RoomControllerTest {
     @Test
     void getMembershipSummary_ShouldReturnDetailedInfo() throws Exception {
         // Given
-        when(roomService.getAllRooms()).thenReturn(testRooms);
+        doAnswer(invocation -> {
+            Consumer<RoomMembers> consumer = invocation.getArgument(0);
+            for (Room room : testRooms) {
+                consumer.accept(new RoomMembers(room.getRoomId(), room.getRoomName(), room.getMembers()));
+            }
+            return null;
+        }).when(roomService).streamRoomMembers(any());
 
         // When & Then
         mockMvc.perform(get("/api/rooms/membership-summary"))
@@ -172,7 +211,36 @@ class RoomControllerTest {
                 .andExpect(jsonPath("$.rooms[0].roomId").exists())
                 .andExpect(jsonPath("$.rooms[0].roomName").exists())
                 .andExpect(jsonPath("$.rooms[0].memberCount").exists())
-                .andExpect(jsonPath("$.rooms[0].members").isArray());
+                .andExpect(jsonPath("$.rooms[0].members").isArray())
+                .andExpect(jsonPath("$.rooms[1].members[1]").value("user-3"));
+    }
+
+    @Test
+    void getRoomMembers_ShouldReturnRequestedPage() throws Exception {
+        // Given
+        when(roomService.getRoomMembers("user-1", "room-1", 1, 1)).thenReturn(List.of("user-2"));
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/room-1/members")
+                .param("userId", "user-1")
+                .param("page", "1")
+                .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value("user-2"));
+    }
+
+    @Test
+    void getRoomMembers_ShouldReturnNotFound_WhenUserNotMember() throws Exception {
+        // Given
+        when(roomService.getRoomMembers("user-9", "room-1", 0, 100))
+                .thenThrow(new IllegalArgumentException("User is not a member of this room"));
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/room-1/members")
+                .param("userId", "user-9"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("User is not a member of this room"));
     }
 
     @Test
@@ -225,4 +293,22 @@ class RoomControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.error").value("Database connection error"));
     }
+
+    @Test
+    void getInbox_ShouldReturnEntriesAndClampPageSize() throws Exception {
+        // Given
+        InboxEntry entry = new InboxEntry("room-1", "Test Room 1", 3, "user-2", "See you there",
+                LocalDateTime.now(), 7, 2);
+        when(roomActivityService.getInbox("user-1", 0, 100)).thenReturn(List.of(entry));
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/inbox")
+                .param("userId", "user-1")
+                .param("size", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].roomId").value("room-1"))
+                .andExpect(jsonPath("$[0].memberCount").value(3))
+                .andExpect(jsonPath("$[0].lastMessagePreview").value("See you there"))
+                .andExpect(jsonPath("$[0].unreadCount").value(2));
+    }
 }
@@ -0,0 +1,50 @@
+package com.chatmessage.chat.integration;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.doAnswer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.chatmessage.chat.service.MessageSearchIndex;
+
+/**
+ * Runs the "virtual" profile on its own in-memory database and checks the
+ * thread that @Async work, such as the search index rebuild, ends up on
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:async-executor;DB_CLOSE_DELAY=-1",
+    "message.search.rebuild-on-startup=true"
+})
+@ActiveProfiles({"test", "virtual"})
+class AsyncExecutorIntegrationTest {
+
+    @SpyBean
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private MessageSearchIndex asyncSearchIndex;
+
+    @Test
+    void rebuildInBackground_ShouldRunOnVirtualThread_WhenVirtualThreadsAreEnabled() throws Exception {
+        // Given
+        CompletableFuture<Thread> rebuildThread = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            rebuildThread.complete(Thread.currentThread());
+            return invocation.callRealMethod();
+        }).when(searchIndex).rebuild();
+
+        // When
+        asyncSearchIndex.rebuildInBackground();
+
+        // Then
+        Thread thread = rebuildThread.get(10, TimeUnit.SECONDS);
+        assertThat(thread).isNotSameAs(Thread.currentThread());
+        assertThat(thread.isVirtual()).isTrue();
+    }
+}
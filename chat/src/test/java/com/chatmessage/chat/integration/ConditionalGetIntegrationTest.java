@@ -0,0 +1,164 @@
+package com.chatmessage.chat.integration;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.jayway.jsonpath.JsonPath;
+
+@SpringBootTest(properties = "message.search.rebuild-on-startup=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private final String suffix = String.valueOf(System.nanoTime());
+    private final String userId = "etag-user-" + suffix;
+    private final String roomId = "etag-room-" + suffix;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository.save(new Room(roomId, "ETags", Arrays.asList(userId, "other-user")));
+    }
+
+    @Test
+    void getRoomMessages_ShouldReturnNotModified_UntilMessageSent() throws Exception {
+        // Given
+        send("first");
+        MockHttpServletResponse first = mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId)
+                .param("userId", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String eTag = first.getHeader("ETag");
+        assertThat(first.getHeaders("ETag")).hasSize(1);
+        assertThat(eTag).startsWith("W/\"");
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId)
+                .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        send("second");
+        MockHttpServletResponse changed = mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId)
+                .param("userId", userId)
+                .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertThat(changed.getHeaders("ETag")).hasSize(1);
+        assertThat(changed.getHeader("ETag")).isNotEqualTo(eTag);
+        assertThat(changed.getContentAsString()).contains("second");
+    }
+
+    @Test
+    void getRoomMessages_ShouldReturnSenders_WhenUsersChangedSinceTag() throws Exception {
+        // Given
+        send("first");
+        String eTag = mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId)
+                .param("includeSenders", "true"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String plainETag = mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(eTag).isNotEqualTo(plainETag);
+        mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId)
+                .param("includeSenders", "true").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        // When
+        mockMvc.perform(post("/api/users").param("username", "etag-sender-" + suffix))
+                .andExpect(status().isCreated());
+
+        // Then: only the response with senders is stale
+        mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId)
+                .param("includeSenders", "true").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId)
+                .header("If-None-Match", plainETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getRoomMessages_ShouldReturnBadRequest_WhenNonMemberSendsMatchingTag() throws Exception {
+        // Given
+        String eTag = mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", "outsider")
+                .header("If-None-Match", eTag))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getUserRooms_ShouldReturnNotModified_UntilRoomCreated() throws Exception {
+        // Given
+        String eTag = mockMvc.perform(get("/api/rooms").param("userId", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms").param("userId", userId).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/rooms/{roomId}", roomId).param("userId", userId).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/rooms")
+                .param("userId", userId)
+                .param("roomName", "Another")
+                .param("members", userId))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/rooms").param("userId", userId).header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getUser_ShouldReturnNotModified_UntilUserCreated() throws Exception {
+        // Given
+        String createdUserId = JsonPath.read(mockMvc.perform(post("/api/users").param("username", "etag-a-" + suffix))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), "$.userId");
+        String eTag = mockMvc.perform(get("/api/users/{userId}", createdUserId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/users/{userId}", createdUserId).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/users").param("username", "etag-b-" + suffix))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/users/{userId}", createdUserId).header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    private void send(String content) throws Exception {
+        mockMvc.perform(multipart("/api/messages")
+                .param("userId", userId)
+                .param("roomId", roomId)
+                .param("content", content))
+                .andExpect(status().isCreated());
+    }
+}
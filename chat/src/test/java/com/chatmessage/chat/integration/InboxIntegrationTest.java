@@ -0,0 +1,91 @@
+package com.chatmessage.chat.integration;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.chatmessage.chat.model.InboxEntry;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageService;
+import com.chatmessage.chat.service.ReadReceiptService;
+import com.chatmessage.chat.service.RoomActivityService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InboxIntegrationTest {
+
+    @Autowired
+    private RoomActivityService roomActivityService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ReadReceiptService readReceiptService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private final String suffix = String.valueOf(System.nanoTime());
+    private final String userId = "inbox-user-" + suffix;
+    private final String olderRoom = "older-" + suffix;
+    private final String newerRoom = "newer-" + suffix;
+    private final String emptyRoom = "empty-" + suffix;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        roomRepository.save(new Room(olderRoom, "Older", Arrays.asList(userId, "friend", "other")));
+        roomRepository.save(new Room(newerRoom, "Newer", Arrays.asList(userId, "friend")));
+        roomRepository.save(new Room(emptyRoom, "Empty", Arrays.asList(userId)));
+
+        messageService.sendMessage("friend", olderRoom, "first in older", null);
+        messageService.sendMessage("friend", newerRoom, "first in newer", null);
+        messageService.sendMessage("friend", newerRoom, "x".repeat(300), null);
+        messageService.sendMessage("other", olderRoom, null,
+                new MockMultipartFile("image", "cat.png", "image/png", new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void getInbox_ShouldListRoomsByRecentActivityWithLatestMessage() {
+        // Given
+        readReceiptService.markRead(userId, newerRoom, 1);
+
+        // When
+        List<InboxEntry> inbox = roomActivityService.getInbox(userId, 0, 10);
+
+        // Then
+        assertThat(inbox).extracting(InboxEntry::roomId).containsExactly(olderRoom, newerRoom, emptyRoom);
+
+        InboxEntry older = inbox.get(0);
+        assertThat(older.lastSenderId()).isEqualTo("other");
+        assertThat(older.lastMessagePreview()).isEqualTo("[image]");
+        assertThat(older.memberCount()).isEqualTo(3);
+        assertThat(older.unreadCount()).isEqualTo(2);
+
+        InboxEntry newer = inbox.get(1);
+        assertThat(newer.lastMessagePreview()).hasSize(100).endsWith("...");
+        assertThat(newer.memberCount()).isEqualTo(2);
+        assertThat(newer.lastSequence()).isEqualTo(2);
+        assertThat(newer.unreadCount()).isEqualTo(1);
+
+        InboxEntry empty = inbox.get(2);
+        assertThat(empty.lastMessageAt()).isNull();
+        assertThat(empty.unreadCount()).isZero();
+    }
+
+    @Test
+    void getInbox_ShouldPaginate() {
+        assertThat(roomActivityService.getInbox(userId, 0, 2)).extracting(InboxEntry::roomId)
+                .containsExactly(olderRoom, newerRoom);
+        assertThat(roomActivityService.getInbox(userId, 1, 2)).extracting(InboxEntry::roomId)
+                .containsExactly(emptyRoom);
+    }
+}
@@ -0,0 +1,79 @@
+package com.chatmessage.chat.integration;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.LogMessageStore;
+import com.chatmessage.chat.service.MessageStore;
+
+/**
+ * Imports into the log store, whose writes are not undone by a rollback
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:log-store-import;DB_CLOSE_DELAY=-1",
+    "message.store=log",
+    "message.log.dir=./data/import-message-log",
+    "message.import.batch-size=2",
+    "message.import.commit-interval=4"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LogStoreMessageImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MessageStore messageStore;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private final String roomId = "log-import-room-" + System.nanoTime();
+
+    @BeforeEach
+    void setUp() {
+        roomRepository.save(new Room(roomId, "Log Import Room", Arrays.asList("alice", "bob")));
+    }
+
+    @Test
+    void importMessages_ShouldReportOnlyTheRejectedLine_WhenALaterBatchOfTheIntervalFails() throws Exception {
+        // Given: the second batch of the first commit interval holds a duplicate id
+        assertThat(messageStore).isInstanceOf(LogMessageStore.class);
+        messageStore.append(new Message(roomId + "-existing", "alice", roomId, "already here", null));
+        String body = line(roomId + "-1", "alice", "first") + line(roomId + "-2", "bob", "second")
+                + line(roomId + "-3", "alice", "third") + line(roomId + "-existing", "bob", "duplicate")
+                + line(roomId + "-4", "bob", "fourth");
+
+        // When
+        mockMvc.perform(post("/api/import/messages").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(4))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(4))
+                .andExpect(jsonPath("$.errors[0].error").value("Message id already exists"));
+
+        // Then
+        assertThat(messageStore.findByRoomId(roomId)).extracting(Message::getContent)
+                .containsExactly("already here", "first", "second", "third", "fourth");
+    }
+
+    private String line(String messageId, String senderId, String content) {
+        return "{\"messageId\":\"" + messageId + "\",\"senderId\":\"" + senderId + "\",\"roomId\":\"" + roomId
+                + "\",\"content\":\"" + content + "\"}\n";
+    }
+}
@@ -0,0 +1,92 @@
+package com.chatmessage.chat.integration;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.MessageRepository;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageArchivalJob;
+import com.chatmessage.chat.service.MessageSearchIndex;
+import com.chatmessage.chat.service.MessageService;
+
+@SpringBootTest(properties = {
+    "message.archive.enabled=true",
+    "message.archive.dir=./target/test-archive/${random.uuid}",
+    "message.archive.segment-messages=3",
+    "message.search.rebuild-on-startup=false"
+})
+@ActiveProfiles("test")
+class MessageArchivalIntegrationTest {
+
+    @Autowired
+    private MessageArchivalJob archivalJob;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private final String roomId = "archive-room-" + System.nanoTime();
+
+    @BeforeEach
+    void setUp() {
+        roomRepository.save(new Room(roomId, "Archive Room", Arrays.asList("archive-user")));
+
+        LocalDateTime now = LocalDateTime.now();
+        for (long sequence = 1; sequence <= 8; sequence++) {
+            Message message = new Message(roomId + "-msg-" + sequence, "archive-user", roomId, "message " + sequence, null);
+            message.setSequence(sequence);
+            // The first five messages are older than the 30 day cutoff
+            message.setTimestamp(sequence <= 5 ? now.minusDays(60).plusMinutes(sequence) : now.minusMinutes(10 - sequence));
+            messageRepository.save(message);
+        }
+    }
+
+    @Test
+    void archiveRoom_ShouldMoveOldMessagesOutOfTheTableWithoutChangingHistory() throws Exception {
+        // When
+        int archived = archivalJob.archiveRoom(roomId, LocalDateTime.now().minusDays(30));
+
+        // Then
+        assertThat(archived).isEqualTo(5);
+        assertThat(messageRepository.findByRoomId(roomId)).hasSize(3);
+
+        List<Message> history = messageService.getMessagesByRoomId("archive-user", roomId);
+        assertThat(history).extracting("sequence").containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+
+        List<Message> page = messageService.getMessagesByRoomId("archive-user", roomId, 3, 4);
+        assertThat(page).extracting("sequence").containsExactly(4L, 5L, 6L, 7L);
+    }
+
+    @Test
+    void searchMessages_ShouldFindArchivedAndRecentMessagesAfterRebuild() throws Exception {
+        // Given
+        archivalJob.archiveRoom(roomId, LocalDateTime.now().minusDays(30));
+
+        // When
+        searchIndex.rebuild();
+
+        // Then
+        assertThat(messageService.searchMessages("archive-user", "message", roomId, null, 10))
+                .extracting("sequence").containsExactly(8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(messageService.searchMessages("archive-user", "message 2", null, "archive-user", 10))
+                .extracting("messageId").containsExactly(roomId + "-msg-2");
+    }
+}
@@ -0,0 +1,148 @@
+package com.chatmessage.chat.integration;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MessageExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MessageStore messageStore;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final String roomId = "export-room-" + System.nanoTime();
+
+    @BeforeEach
+    void setUp() {
+        roomRepository.save(new Room(roomId, "Export Room", Arrays.asList("export-user")));
+        for (int i = 1; i <= 5; i++) {
+            messageStore.append(new Message(roomId + "-msg-" + i, "export-user", roomId, "line " + i, null));
+        }
+    }
+
+    @Test
+    void exportRoomMessages_ShouldStreamOneJsonObjectPerLine() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/export/rooms/{roomId}/messages", roomId)
+                .param("userId", "export-user"))
+                .andExpect(request().asyncStarted())
+                .andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"room-" + roomId + ".ndjson\""))
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andReturn();
+
+        // Then
+        List<JsonNode> lines = parse(result.getResponse().getContentAsString());
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0).get("content").asText()).isEqualTo("line 1");
+        assertThat(lines.get(4).get("sequence").asLong()).isEqualTo(5);
+    }
+
+    @Test
+    void exportRoomMessages_ShouldResumeAfterSequence() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/export/rooms/{roomId}/messages", roomId)
+                .param("userId", "export-user")
+                .param("afterSequence", "3"))
+                .andReturn()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Then
+        assertThat(parse(result.getResponse().getContentAsString()))
+                .extracting(line -> line.get("content").asText())
+                .containsExactly("line 4", "line 5");
+    }
+
+    @Test
+    void exportRoomMessages_ShouldGzipWhenRequested() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/export/rooms/{roomId}/messages", roomId)
+                .param("userId", "export-user")
+                .param("gzip", "true"))
+                .andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andReturn();
+
+        // Then
+        byte[] compressed = result.getResponse().getContentAsByteArray();
+        String body = new String(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertThat(parse(body)).hasSize(5);
+    }
+
+    @Test
+    void exportRoomMessages_ShouldRejectNonMembers() throws Exception {
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/export/rooms/{roomId}/messages", roomId)
+                .param("userId", "someone-else"))
+                .andReturn()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("User is not a member of this room"));
+    }
+
+    @Test
+    void exportAllMessages_ShouldResumeWithinRoom() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/export/messages")
+                .param("afterRoomId", roomId)
+                .param("afterSequence", "4"))
+                .andReturn()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Then
+        List<JsonNode> lines = parse(result.getResponse().getContentAsString());
+        assertThat(lines.get(0).get("messageId").asText()).isEqualTo(roomId + "-msg-5");
+        assertThat(lines).allSatisfy(line -> assertThat(line.get("roomId").asText()).isGreaterThanOrEqualTo(roomId));
+    }
+
+    private List<JsonNode> parse(String ndjson) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,130 @@
+package com.chatmessage.chat.integration;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageStore;
+
+@SpringBootTest(properties = {
+    "message.import.batch-size=2",
+    "message.import.commit-interval=4"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MessageImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MessageStore messageStore;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private final String roomId = "import-room-" + System.nanoTime();
+
+    @BeforeEach
+    void setUp() {
+        roomRepository.save(new Room(roomId, "Import Room", Arrays.asList("alice", "bob")));
+    }
+
+    @Test
+    void importMessages_ShouldStoreValidLinesInOrder() throws Exception {
+        // Given
+        String body = line(roomId + "-1", "alice", "first") + line(roomId + "-2", "bob", "second")
+                + line(roomId + "-3", "alice", "third") + "\n"
+                + "{\"senderId\":\"bob\",\"roomId\":\"" + roomId + "\",\"content\":\"fourth\","
+                + "\"timestamp\":\"2020-01-02T03:04:05\"}\n";
+
+        // When
+        mockMvc.perform(post("/api/import/messages").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(4))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        // Then
+        List<Message> messages = messageStore.findByRoomIdAfterSequence(roomId, 0, 10);
+        assertThat(messages).extracting(Message::getContent).containsExactly("first", "second", "third", "fourth");
+        assertThat(messages).extracting(Message::getSequence).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(messages.get(3).getTimestamp()).hasYear(2020);
+        // The full history is in sequence order too, even though the last message is the oldest
+        assertThat(messageStore.findByRoomId(roomId)).extracting(Message::getContent)
+                .containsExactly("first", "second", "third", "fourth");
+    }
+
+    @Test
+    void importMessages_ShouldReportRejectedLinesAndKeepTheRest() throws Exception {
+        // Given
+        messageStore.append(new Message(roomId + "-existing", "alice", roomId, "already here", null));
+        String body = line(roomId + "-1", "alice", "ok")
+                + "{not json\n"
+                + line(roomId + "-2", "mallory", "intruder")
+                + line(roomId + "-existing", "bob", "duplicate")
+                + "{\"senderId\":\"bob\",\"roomId\":\"" + roomId + "\"}\n"
+                + "{\"senderId\":\"bob\",\"roomId\":\"no-such-room\",\"content\":\"lost\"}\n"
+                + line(roomId + "-3", "bob", "also ok");
+
+        // When
+        mockMvc.perform(post("/api/import/messages").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(5))
+                .andExpect(jsonPath("$.errors", hasSize(5)))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[1].error").value("User is not a member of this room"))
+                .andExpect(jsonPath("$.errors[2].line").value(4))
+                .andExpect(jsonPath("$.errors[2].error").value("Message id already exists"))
+                .andExpect(jsonPath("$.errors[3].error").value("Either message content or image must be provided"))
+                .andExpect(jsonPath("$.errors[4].error").value("Room not found"));
+
+        // Then
+        assertThat(messageStore.findByRoomId(roomId)).extracting(Message::getContent)
+                .containsExactlyInAnyOrder("already here", "ok", "also ok");
+        assertThat(messageStore.findById(roomId + "-existing")).get()
+                .extracting(Message::getContent).isEqualTo("already here");
+    }
+
+    @Test
+    void importMessages_ShouldAcceptGzipBody() throws Exception {
+        // Given
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write((line(roomId + "-1", "alice", "zipped") + line(roomId + "-2", "bob", "too"))
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        // When
+        mockMvc.perform(post("/api/import/messages").param("gzip", "true")
+                .contentType("application/x-ndjson").content(compressed.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        // Then
+        assertThat(messageStore.getLastSequence(roomId)).isEqualTo(2);
+    }
+
+    private String line(String messageId, String senderId, String content) {
+        return "{\"messageId\":\"" + messageId + "\",\"senderId\":\"" + senderId + "\",\"roomId\":\"" + roomId
+                + "\",\"content\":\"" + content + "\"}\n";
+    }
+}
@@ -0,0 +1,304 @@
+package com.chatmessage.chat.integration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.model.RoomChanges;
+import com.chatmessage.chat.repository.MessageRepository;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageArchivalJob;
+import com.chatmessage.chat.service.MessageRetentionJob;
+import com.chatmessage.chat.service.MessageSearchIndex;
+import com.chatmessage.chat.service.MessageSearchIndex.Hit;
+import com.chatmessage.chat.service.MessageService;
+import com.chatmessage.chat.service.MessageStore;
+import com.chatmessage.chat.service.RetentionPolicyService;
+import com.chatmessage.chat.service.RoomMaintenanceLocks;
+
+@SpringBootTest(properties = {
+    "message.retention.enabled=true",
+    "message.retention.batch-size=2",
+    "message.retention.batch-pause-ms=0",
+    "message.archive.enabled=true",
+    "message.archive.dir=./target/test-archive/${random.uuid}",
+    "message.archive.segment-messages=2",
+    "message.search.rebuild-on-startup=false"
+})
+@ActiveProfiles("test")
+class MessageRetentionIntegrationTest {
+
+    @Autowired
+    private MessageRetentionJob retentionJob;
+
+    @Autowired
+    private MessageArchivalJob archivalJob;
+
+    @Autowired
+    private RetentionPolicyService retentionPolicyService;
+
+    @Autowired
+    private RoomMaintenanceLocks roomLocks;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageStore messageStore;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    private final String roomId = "retention-room-" + System.nanoTime();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        roomRepository.save(new Room(roomId, "Retention Room", Arrays.asList("retention-user")));
+
+        Files.createDirectories(Paths.get(uploadDir));
+        LocalDateTime now = LocalDateTime.now();
+        for (long sequence = 1; sequence <= 9; sequence++) {
+            // Every odd message has an image
+            String imageUrl = null;
+            if (sequence % 2 == 1) {
+                String filename = roomId + "-" + sequence + ".png";
+                Files.write(Paths.get(uploadDir).resolve(filename), new byte[] { 1, 2, 3 });
+                imageUrl = "/uploads/" + filename;
+            }
+            Message message = new Message(roomId + "-msg-" + sequence, "retention-user", roomId, "message " + sequence, imageUrl);
+            message.setSequence(sequence);
+            // The first six messages are older than the 30 day limit
+            message.setTimestamp(sequence <= 6 ? now.minusDays(60).plusMinutes(sequence) : now.minusMinutes(10 - sequence));
+            messageRepository.save(message);
+        }
+    }
+
+    @Test
+    void purgeRoom_ShouldDeleteMessagesAndImagesOlderThanMaxAge() throws Exception {
+        // Given
+        retentionPolicyService.setRetention("retention-user", roomId, 30, null);
+
+        // When
+        int purged = retentionJob.purgeRoom(roomId);
+
+        // Then
+        assertThat(purged).isEqualTo(6);
+        List<Message> history = messageService.getMessagesByRoomId("retention-user", roomId);
+        assertThat(history).extracting("sequence").containsExactly(7L, 8L, 9L);
+        assertThat(image(1)).doesNotExist();
+        assertThat(image(5)).doesNotExist();
+        assertThat(image(7)).exists();
+    }
+
+    @Test
+    void purgeRoom_ShouldKeepNewestMessagesUpToMaxMessages() throws Exception {
+        // Given
+        retentionPolicyService.setRetention("retention-user", roomId, null, 4L);
+
+        // When
+        int purged = retentionJob.purgeRoom(roomId);
+
+        // Then
+        assertThat(purged).isEqualTo(5);
+        assertThat(messageRepository.findByRoomId(roomId)).extracting("sequence")
+                .containsExactlyInAnyOrder(6L, 7L, 8L, 9L);
+        assertThat(image(5)).doesNotExist();
+        assertThat(image(7)).exists();
+    }
+
+    @Test
+    void purgeRoom_ShouldKeepMaxMessages_WhenSequencesHaveGaps() throws Exception {
+        // Given
+        retentionPolicyService.setRetention("retention-user", roomId, null, 4L);
+        messageStore.deleteById(roomId + "-msg-7");
+        messageStore.deleteById(roomId + "-msg-8");
+
+        // When
+        int purged = retentionJob.purgeRoom(roomId);
+
+        // Then
+        assertThat(purged).isEqualTo(3);
+        assertThat(messageRepository.findByRoomId(roomId)).extracting("sequence")
+                .containsExactlyInAnyOrder(4L, 5L, 6L, 9L);
+    }
+
+    @Test
+    void purgeRoom_ShouldCountArchivedMessagesTowardsMaxMessages() throws Exception {
+        // Given: 1 to 6 are archived in segments of two
+        archivalJob.archiveRoom(roomId, LocalDateTime.now().minusDays(30));
+        messageStore.deleteById(roomId + "-msg-8");
+        retentionPolicyService.setRetention("retention-user", roomId, null, 4L);
+
+        // When
+        int purged = retentionJob.purgeRoom(roomId);
+
+        // Then
+        assertThat(purged).isEqualTo(4);
+        List<Message> history = messageService.getMessagesByRoomId("retention-user", roomId);
+        assertThat(history).extracting("sequence").containsExactly(5L, 6L, 7L, 9L);
+    }
+
+    @Test
+    void purgeRoom_ShouldReportDeletionsToChangeFeed() throws Exception {
+        // Given
+        retentionPolicyService.setRetention("retention-user", roomId, null, 4L);
+
+        // When
+        retentionJob.purgeRoom(roomId);
+
+        // Then
+        RoomChanges changes = messageService.getChanges("retention-user", roomId, "2", 10);
+        assertThat(changes.deletedThroughSequence()).isEqualTo(5L);
+        assertThat(changes.messages()).extracting("sequence").containsExactly(6L, 7L, 8L, 9L);
+    }
+
+    @Test
+    void purgeRoom_ShouldRemovePurgedMessagesFromSearchHits() throws Exception {
+        // Given
+        messageRepository.findByRoomId(roomId).forEach(searchIndex::add);
+        retentionPolicyService.setRetention("retention-user", roomId, null, 4L);
+
+        // When
+        retentionJob.purgeRoom(roomId);
+
+        // Then
+        assertThat(searchIndex.search("message", List.of(roomId), null, 10)).extracting(Hit::sequence)
+                .containsExactly(9L, 8L, 7L, 6L);
+    }
+
+    @Test
+    void purgeRoom_ShouldDropExpiredArchiveSegmentsOnly() throws Exception {
+        // Given
+        archivalJob.archiveRoom(roomId, LocalDateTime.now().minusDays(30));
+        retentionPolicyService.setRetention("retention-user", roomId, null, 4L);
+
+        // When
+        int purged = retentionJob.purgeRoom(roomId);
+
+        // Then the segment holding 3 and 4 is dropped and the one holding 5 and 6 straddles the limit
+        assertThat(purged).isEqualTo(4);
+        List<Message> history = messageService.getMessagesByRoomId("retention-user", roomId);
+        assertThat(history).extracting("sequence").containsExactly(5L, 6L, 7L, 8L, 9L);
+        assertThat(image(3)).doesNotExist();
+        assertThat(image(5)).exists();
+    }
+
+    @Test
+    void purgeRoom_ShouldAlwaysKeepNewestMessage() throws Exception {
+        // Given
+        retentionPolicyService.setRetention("retention-user", roomId, 1, 1L);
+        LocalDateTime old = LocalDateTime.now().minusDays(90);
+        for (Message message : messageRepository.findByRoomId(roomId)) {
+            message.setTimestamp(old.plusMinutes(message.getSequence()));
+            messageRepository.save(message);
+        }
+
+        // When
+        int purged = retentionJob.purgeRoom(roomId);
+
+        // Then
+        assertThat(purged).isEqualTo(8);
+        assertThat(messageRepository.findByRoomId(roomId)).extracting("sequence").containsExactly(9L);
+        assertThat(messageStore.getLastSequence(roomId)).isEqualTo(9L);
+    }
+
+    @Test
+    void purgeRoom_ShouldDoNothingWithoutLimits() throws Exception {
+        // When
+        int purged = retentionJob.purgeRoom(roomId);
+
+        // Then
+        assertThat(purged).isZero();
+        assertThat(messageRepository.findByRoomId(roomId)).hasSize(9);
+    }
+
+    @Test
+    void purgeExpiredMessages_ShouldPurgeOnItsOwnThreadOnceArchivalReleasesTheRoom() throws Exception {
+        // Given: archival holds the room
+        retentionPolicyService.setRetention("retention-user", roomId, 30, null);
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            // When: the scheduler thread is not held up by the waiting purge
+            CompletableFuture.runAsync(retentionJob::purgeExpiredMessages).get(5, TimeUnit.SECONDS);
+            Thread.sleep(200);
+            assertThat(messageRepository.findByRoomId(roomId)).hasSize(9);
+        } finally {
+            lock.unlock();
+        }
+
+        // Then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (messageRepository.findByRoomId(roomId).size() > 3 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(messageRepository.findByRoomId(roomId)).extracting("sequence")
+                .containsExactlyInAnyOrder(7L, 8L, 9L);
+    }
+
+    @Test
+    void archiveRoom_ShouldWaitForPurgeOfTheSameRoom() throws Exception {
+        // Given: retention holds the room
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        CompletableFuture<Integer> archived;
+        try {
+            // When
+            archived = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return archivalJob.archiveRoom(roomId, LocalDateTime.now().minusDays(30));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Thread.sleep(200);
+            assertThat(archived).isNotDone();
+        } finally {
+            lock.unlock();
+        }
+
+        // Then
+        assertThat(archived.get(10, TimeUnit.SECONDS)).isEqualTo(6);
+    }
+
+    @Test
+    void setRetention_ShouldRejectNonPositiveLimits() {
+        // When / Then
+        assertThatThrownBy(() -> retentionPolicyService.setRetention("retention-user", roomId, 0, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Retention limits must be positive");
+        assertThatThrownBy(() -> retentionPolicyService.setRetention("outsider", roomId, 30, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("User is not a member of this room");
+    }
+
+    private Path image(long sequence) {
+        return Paths.get(uploadDir).resolve(roomId + "-" + sequence + ".png");
+    }
+}
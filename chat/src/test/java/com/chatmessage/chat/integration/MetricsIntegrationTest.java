@@ -0,0 +1,155 @@
+package com.chatmessage.chat.integration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.BrokerMetrics;
+import com.chatmessage.chat.service.ChatMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "metrics.max-tagged-rooms=5")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ChatMetrics chatMetrics;
+
+    @Autowired
+    private BrokerMetrics brokerMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final String suffix = String.valueOf(System.nanoTime());
+    private final String roomId = "metrics-room-" + suffix;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository.save(new Room(roomId, "Metrics", Arrays.asList("metrics-user")));
+    }
+
+    @Test
+    void prometheus_ShouldExposeSendPhasesAndHistoryRows_AfterTraffic() throws Exception {
+        // Given
+        mockMvc.perform(multipart("/api/messages")
+                .param("userId", "metrics-user")
+                .param("roomId", roomId)
+                .param("content", "Hello metrics"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", "metrics-user"))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(Matchers.containsString("chat_message_send_phase_seconds_count{phase=\"validate\"}")))
+                .andExpect(content().string(Matchers.containsString("chat_message_send_phase_seconds_count{phase=\"broadcast\"}")))
+                .andExpect(content().string(Matchers.containsString("chat_message_history_rows_count")))
+                .andExpect(content().string(Matchers.containsString("chat_broker_queue{channel=\"outbound\"}")));
+    }
+
+    @Test
+    void roomTag_ShouldFallBackToOther_WhenMaxTaggedRoomsReached() {
+        // When
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tags.add(chatMetrics.roomTag("tagged-room-" + suffix + "-" + i));
+        }
+
+        // Then
+        assertThat(tags.stream().filter(tag -> !tag.equals(ChatMetrics.OTHER_ROOM))).hasSizeLessThanOrEqualTo(5);
+        assertThat(tags.get(9)).isEqualTo(ChatMetrics.OTHER_ROOM);
+        assertThat(chatMetrics.roomTag("tagged-room-" + suffix + "-9")).isEqualTo(ChatMetrics.OTHER_ROOM);
+    }
+
+    @Test
+    void brokerMetrics_ShouldTrackSessionsAndRoomSubscriptions() {
+        // Given
+        String sessionId = "session-" + suffix;
+        String room = chatMetrics.roomTag(roomId);
+        double sessionsBefore = meterRegistry.get("chat.broker.sessions").gauge().value();
+
+        // When
+        brokerMetrics.onConnected(new SessionConnectedEvent(this, stompMessage(StompCommand.CONNECTED, sessionId, null, null)));
+        brokerMetrics.onSubscribe(new SessionSubscribeEvent(this,
+                stompMessage(StompCommand.SUBSCRIBE, sessionId, "sub-0", "/topic/room/" + roomId)));
+
+        // Then
+        assertThat(meterRegistry.get("chat.broker.sessions").gauge().value()).isEqualTo(sessionsBefore + 1);
+        assertThat(meterRegistry.get("chat.broker.subscriptions").tag("room", room).gauge().value()).isGreaterThanOrEqualTo(1);
+        double subscriptions = meterRegistry.get("chat.broker.subscriptions").tag("room", room).gauge().value();
+
+        // When
+        brokerMetrics.onDisconnect(new SessionDisconnectEvent(this,
+                stompMessage(StompCommand.DISCONNECT, sessionId, null, null), sessionId, CloseStatus.NORMAL));
+
+        // Then
+        assertThat(meterRegistry.get("chat.broker.sessions").gauge().value()).isEqualTo(sessionsBefore);
+        assertThat(meterRegistry.get("chat.broker.subscriptions").tag("room", room).gauge().value()).isEqualTo(subscriptions - 1);
+    }
+
+    @Test
+    void brokerMetrics_ShouldNotTagRooms_WhenSubscribedDestinationIsUnknown() {
+        // Given
+        String sessionId = "session-unknown-" + suffix;
+        String unknownRoom = "unknown-room-" + suffix;
+        brokerMetrics.onConnected(new SessionConnectedEvent(this, stompMessage(StompCommand.CONNECTED, sessionId, null, null)));
+
+        // When
+        brokerMetrics.onSubscribe(new SessionSubscribeEvent(this,
+                stompMessage(StompCommand.SUBSCRIBE, sessionId, "sub-0", "/topic/room/" + unknownRoom)));
+
+        // Then
+        assertThat(meterRegistry.find("chat.broker.subscriptions").tag("room", unknownRoom).gauge()).isNull();
+        assertThat(meterRegistry.get("chat.broker.subscriptions").tag("room", ChatMetrics.OTHER_ROOM).gauge().value())
+                .isGreaterThanOrEqualTo(1);
+        assertThat(chatMetrics.existingRoomTag(unknownRoom)).isEqualTo(ChatMetrics.OTHER_ROOM);
+
+        brokerMetrics.onDisconnect(new SessionDisconnectEvent(this,
+                stompMessage(StompCommand.DISCONNECT, sessionId, null, null), sessionId, CloseStatus.NORMAL));
+    }
+
+    private static Message<byte[]> stompMessage(StompCommand command, String sessionId, String subscriptionId,
+            String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
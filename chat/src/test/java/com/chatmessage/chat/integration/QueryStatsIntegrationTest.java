@@ -0,0 +1,181 @@
+package com.chatmessage.chat.integration;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.QueryCapture;
+import com.chatmessage.chat.service.QueryStats;
+
+/**
+ * Pins the number of SQL statements issued by the critical endpoints, so a
+ * change that adds queries to them fails here first
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryStatsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueryStats queryStats;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private final String suffix = String.valueOf(System.nanoTime());
+    private final String userId = "query-user-" + suffix;
+    private final String roomId = "query-room-" + suffix;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        roomRepository.save(new Room(roomId, "Queries", Arrays.asList(userId, "other-user")));
+        // The first message seeds the room's sequence and activity row
+        send("first");
+    }
+
+    private void send(String content) throws Exception {
+        mockMvc.perform(multipart("/api/messages")
+                .param("userId", userId)
+                .param("roomId", roomId)
+                .param("content", content))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void sendMessage_ShouldIssueFourStatements() throws Exception {
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            send("second");
+
+            // Then: membership check, the lookup save() does before inserting
+            // an assigned id, the insert and the room activity update
+            capture.assertStatementCount(4);
+        }
+    }
+
+    @Test
+    void getRoomMessages_ShouldIssueTwoStatements_ForPageAndFullHistory() throws Exception {
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId).param("limit", "50"))
+                    .andExpect(status().isOk());
+
+            // Then
+            capture.assertStatementCount(2);
+            assertThat(capture.getRowCount()).isEqualTo(2);
+        }
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId))
+                    .andExpect(status().isOk());
+
+            // Then
+            capture.assertStatementCount(2);
+        }
+    }
+
+    @Test
+    void getUserRooms_ShouldIssueOneStatement() throws Exception {
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            mockMvc.perform(get("/api/rooms").param("userId", userId))
+                    .andExpect(status().isOk());
+
+            // Then
+            capture.assertStatementCount(1);
+        }
+    }
+
+    @Test
+    void conditionalGets_ShouldSkipReads_WhenNotModified() throws Exception {
+        // Given
+        String historyTag = mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId))
+                .andReturn().getResponse().getHeader("ETag");
+        String roomsTag = mockMvc.perform(get("/api/rooms").param("userId", userId))
+                .andReturn().getResponse().getHeader("ETag");
+
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            mockMvc.perform(get("/api/rooms/{roomId}/messages", roomId).param("userId", userId)
+                    .header("If-None-Match", historyTag))
+                    .andExpect(status().isNotModified());
+
+            // Then only the membership check runs
+            capture.assertStatementCount(1);
+        }
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            mockMvc.perform(get("/api/rooms").param("userId", userId).header("If-None-Match", roomsTag))
+                    .andExpect(status().isNotModified());
+
+            // Then
+            capture.assertStatementCount(0);
+        }
+    }
+
+    @Test
+    void assertStatementCount_ShouldListStatements_WhenCountDiffers() throws Exception {
+        try (QueryCapture capture = queryStats.capture()) {
+            // Given
+            mockMvc.perform(get("/api/rooms").param("userId", userId));
+
+            // When & Then
+            assertThatThrownBy(() -> capture.assertStatementCount(0))
+                    .isInstanceOf(AssertionError.class)
+                    .hasMessageContaining("Expected 0 SQL statements but 1 were executed")
+                    .hasMessageContaining("1x select");
+        }
+    }
+
+    @Test
+    void getReport_ShouldListEndpointsAndNPlusOneSuspects() throws Exception {
+        // Given
+        String endpoint = "GET /n-plus-one-" + suffix;
+        try (QueryCapture capture = queryStats.capture()) {
+            for (int i = 0; i < 5; i++) {
+                queryStats.recordStatement("select * from users where user_id = ?", 1000, 0);
+            }
+            queryStats.recordRequest(endpoint, capture);
+        }
+
+        // When & Then
+        mockMvc.perform(get("/api/query-stats").param("top", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'POST /api/messages')]").exists())
+                .andExpect(jsonPath("$.nPlusOneSuspects[?(@.endpoint == '" + endpoint + "')].maxExecutions").value(5))
+                .andExpect(jsonPath("$.statements[0].executions").isNumber());
+    }
+
+    @Test
+    void recordRequest_ShouldStopAddingEndpoints_WhenMapIsFull() {
+        // Given
+        QueryStats stats = new QueryStats(100, 5);
+
+        // When
+        for (int i = 0; i < 1500; i++) {
+            try (QueryCapture capture = stats.capture()) {
+                stats.recordRequest("GET /api/probe-" + i, capture);
+            }
+        }
+
+        // Then
+        assertThat(stats.getReport(2000).endpoints()).hasSize(1000);
+    }
+}
@@ -0,0 +1,141 @@
+package com.chatmessage.chat.integration;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.ReadReceiptId;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.ReadReceiptRepository;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageStore;
+import com.chatmessage.chat.service.ReadReceiptService;
+
+@SpringBootTest(properties = {
+    "message.read-receipts.flush-interval-ms=3600000",
+    "message.read-receipts.max-cached-users=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadReceiptIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReadReceiptService readReceiptService;
+
+    @Autowired
+    private ReadReceiptRepository readReceiptRepository;
+
+    @Autowired
+    private MessageStore messageStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private final String suffix = String.valueOf(System.nanoTime());
+    private final String userId = "reader-" + suffix;
+    private final String busyRoom = "busy-room-" + suffix;
+    private final String quietRoom = "quiet-room-" + suffix;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository.save(new Room(busyRoom, "Busy", Arrays.asList(userId, "writer")));
+        roomRepository.save(new Room(quietRoom, "Quiet", Arrays.asList(userId, "writer")));
+        for (int i = 1; i <= 5; i++) {
+            messageStore.append(new Message(busyRoom + "-" + i, "writer", busyRoom, "message " + i, null));
+        }
+        messageStore.append(new Message(quietRoom + "-1", "writer", quietRoom, "hello", null));
+    }
+
+    @Test
+    void getUnreadCounts_ShouldSubtractReadPositionFromLastSequence() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/rooms/{roomId}/read", busyRoom)
+                .param("userId", userId)
+                .param("sequence", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastReadSequence").value(3));
+
+        // When & Then
+        mockMvc.perform(get("/api/rooms/unread-counts").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[?(@.roomId == '" + busyRoom + "')].unreadCount").value(2))
+                .andExpect(jsonPath("$[?(@.roomId == '" + busyRoom + "')].lastSequence").value(5))
+                .andExpect(jsonPath("$[?(@.roomId == '" + quietRoom + "')].unreadCount").value(1));
+    }
+
+    @Test
+    void markRead_ShouldOnlyMoveForwardAndClampToLastMessage() {
+        assertThat(readReceiptService.markRead(userId, busyRoom, 4)).isEqualTo(4);
+        assertThat(readReceiptService.markRead(userId, busyRoom, 2)).isEqualTo(4);
+        assertThat(readReceiptService.markRead(userId, busyRoom, 99)).isEqualTo(5);
+    }
+
+    @Test
+    void flush_ShouldPersistOnlyTheLatestPosition() {
+        // Given
+        readReceiptService.markRead(userId, busyRoom, 1);
+        readReceiptService.markRead(userId, busyRoom, 2);
+        readReceiptService.markRead(userId, busyRoom, 4);
+        assertThat(readReceiptRepository.findById(new ReadReceiptId(userId, busyRoom))).isEmpty();
+
+        // When
+        readReceiptService.flush();
+
+        // Then
+        assertThat(readReceiptRepository.findById(new ReadReceiptId(userId, busyRoom))).get()
+                .extracting("lastReadSequence").isEqualTo(4L);
+    }
+
+    @Test
+    void getLastReadSequence_ShouldReloadEvictedUser_WithUnflushedPositions() {
+        // Given: a position not flushed yet, and one moved on in the table since it was loaded
+        readReceiptService.markRead(userId, busyRoom, 4);
+        readReceiptService.flush();
+        readReceiptService.markRead(userId, quietRoom, 1);
+        jdbcTemplate.update("UPDATE read_receipts SET last_read_sequence = 5 WHERE user_id = ? AND room_id = ?",
+                userId, busyRoom);
+
+        // When: two other users push the reader out of the cache
+        readReceiptService.getLastReadSequence("other-reader-1-" + suffix, busyRoom);
+        readReceiptService.getLastReadSequence("other-reader-2-" + suffix, busyRoom);
+
+        // Then
+        assertThat(readReceiptService.getLastReadSequence(userId, busyRoom)).isEqualTo(5);
+        assertThat(readReceiptService.getLastReadSequence(userId, quietRoom)).isEqualTo(1);
+    }
+
+    @Test
+    void markRead_ShouldReturnBadRequest_WhenUserIsNotMember() throws Exception {
+        mockMvc.perform(post("/api/rooms/{roomId}/read", busyRoom)
+                .param("userId", "stranger")
+                .param("sequence", "1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("User is not a member of this room"));
+
+        mockMvc.perform(post("/api/rooms/{roomId}/read", "no-such-room-" + suffix)
+                .param("userId", userId)
+                .param("sequence", "1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Room not found"));
+    }
+}
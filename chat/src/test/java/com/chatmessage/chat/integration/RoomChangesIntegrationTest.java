@@ -0,0 +1,132 @@
+package com.chatmessage.chat.integration;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.model.RoomChanges;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageService;
+import com.chatmessage.chat.service.MessageStore;
+
+@SpringBootTest(properties = {
+    "change-feed.buffer-size=4",
+    "message.search.rebuild-on-startup=false"
+})
+@ActiveProfiles("test")
+class RoomChangesIntegrationTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageStore messageStore;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String roomId = "changes-room-" + System.nanoTime();
+
+    @BeforeEach
+    void setUp() {
+        roomRepository.save(new Room(roomId, "Changes Room", Arrays.asList("poller", "writer")));
+    }
+
+    @Test
+    void getChanges_ShouldReturnNewMessages_ThenNothingWhenIdle() throws Exception {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            messageService.sendMessage("writer", roomId, "message " + i, null);
+        }
+
+        // When
+        RoomChanges first = messageService.getChanges("poller", roomId, "0", 10);
+        RoomChanges idle = messageService.getChanges("poller", roomId, first.position(), 10);
+        messageService.sendMessage("writer", roomId, "message 4", null);
+        RoomChanges next = messageService.getChanges("poller", roomId, idle.position(), 10);
+
+        // Then
+        assertThat(first.messages()).extracting(Message::getContent)
+                .containsExactly("message 1", "message 2", "message 3");
+        assertThat(first.reset()).isFalse();
+        assertThat(first.hasMore()).isFalse();
+        assertThat(idle.messages()).isEmpty();
+        assertThat(idle.position()).isEqualTo(first.position());
+        assertThat(next.messages()).extracting(Message::getContent).containsExactly("message 4");
+    }
+
+    @Test
+    void getChanges_ShouldPersistLegacySequences_WhenRoomIsFirstSeededInReadOnlyTransaction() {
+        // Given: rows written before sequences existed
+        jdbcTemplate.update("INSERT INTO messages (message_id, sender_id, room_id, content, timestamp) VALUES (?, ?, ?, ?, ?)",
+                roomId + "-legacy-1", "writer", roomId, "legacy 1", Timestamp.valueOf(LocalDateTime.now().minusDays(2)));
+        jdbcTemplate.update("INSERT INTO messages (message_id, sender_id, room_id, content, timestamp) VALUES (?, ?, ?, ?, ?)",
+                roomId + "-legacy-2", "writer", roomId, "legacy 2", Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+
+        // When
+        RoomChanges changes = messageService.getChanges("poller", roomId, "0", 10);
+
+        // Then
+        assertThat(changes.messages()).extracting(Message::getSequence).containsExactly(1L, 2L);
+        assertThat(jdbcTemplate.queryForList("SELECT sequence FROM messages WHERE room_id = ? ORDER BY sequence",
+                Long.class, roomId)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void getChanges_ShouldReadFromStore_WhenBufferDoesNotReachBack() throws Exception {
+        // Given
+        for (int i = 1; i <= 6; i++) {
+            messageService.sendMessage("writer", roomId, "message " + i, null);
+        }
+
+        // When
+        RoomChanges page = messageService.getChanges("poller", roomId, "0", 5);
+        RoomChanges rest = messageService.getChanges("poller", roomId, page.position(), 5);
+
+        // Then
+        assertThat(page.messages()).extracting(Message::getSequence).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(rest.messages()).extracting(Message::getSequence).containsExactly(6L);
+    }
+
+    @Test
+    void getChanges_ShouldIncludeMessagesStoredOutsideSendPath() {
+        // Given
+        messageStore.append(new Message(roomId + "-1", "writer", roomId, "imported", null));
+
+        // When
+        RoomChanges changes = messageService.getChanges("poller", roomId, "0", 10);
+
+        // Then
+        assertThat(changes.messages()).extracting(Message::getContent).containsExactly("imported");
+    }
+
+    @Test
+    void getChanges_ShouldRequestReset_WhenPositionIsFromAnotherRunOrAhead() throws Exception {
+        // Given
+        messageService.sendMessage("writer", roomId, "message 1", null);
+
+        // When
+        RoomChanges stale = messageService.getChanges("poller", roomId, "previous-run:1", 10);
+        RoomChanges ahead = messageService.getChanges("poller", roomId, "5", 10);
+
+        // Then
+        assertThat(stale.reset()).isTrue();
+        assertThat(stale.messages()).isEmpty();
+        assertThat(ahead.reset()).isTrue();
+        assertThat(messageService.getChanges("poller", roomId, ahead.position(), 10).messages()).isEmpty();
+    }
+}
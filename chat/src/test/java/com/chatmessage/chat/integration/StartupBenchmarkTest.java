@@ -0,0 +1,117 @@
+package com.chatmessage.chat.integration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures time-to-first-request of the packaged application: the time from
+ * launching a fresh JVM until {@code GET /api/rooms/all} returns 200.
+ *
+ * Compares the default configuration, the "prod" profile, and the "prod"
+ * profile started from the class-data sharing archive. Each run uses its own
+ * in-memory database and a scratch working directory, so runs do not share
+ * state. Build the jar and archive first with {@code mvn package -Pcds
+ * -DskipTests}, then run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = Integer.getInteger("bench.startup.runs", 5);
+    private static final Path JAR = Paths.get("target", "chat-0.0.1-SNAPSHOT.jar");
+    private static final Path CDS_DIR = Paths.get("target", "cds");
+
+    @Test
+    void compareTimeToFirstRequest() throws Exception {
+        Assumptions.assumeTrue(Files.exists(JAR), "Run mvn package first");
+
+        report("default", measure(List.of("-jar", JAR.toAbsolutePath().toString()), ""));
+        report("prod", measure(List.of("-jar", JAR.toAbsolutePath().toString()), "prod"));
+
+        Path cdsJar = CDS_DIR.resolve(JAR.getFileName());
+        Path archive = CDS_DIR.resolve("app.jsa");
+        if (Files.exists(cdsJar) && Files.exists(archive)) {
+            report("prod + CDS", measure(List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath(),
+                    "-Xshare:auto", "-jar", cdsJar.toAbsolutePath().toString()), "prod"));
+        } else {
+            System.out.println("prod + CDS: skipped, run mvn package -Pcds first");
+        }
+    }
+
+    private static List<Long> measure(List<String> launch, String profile) throws Exception {
+        List<Long> times = new ArrayList<>(RUNS);
+        for (int run = 0; run < RUNS; run++) {
+            times.add(timeToFirstRequest(launch, profile, run));
+        }
+        Collections.sort(times);
+        return times;
+    }
+
+    private static long timeToFirstRequest(List<String> launch, String profile, int run) throws Exception {
+        int port = freePort();
+        Path workDir = Files.createTempDirectory("startup-benchmark");
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(launch);
+        command.add("--server.port=" + port);
+        command.add("--spring.profiles.active=" + profile);
+        command.add("--spring.datasource.url=jdbc:h2:mem:startup-" + run);
+        command.add("--message.search.rebuild-on-startup=false");
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rooms/all")).build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(new File(workDir.toFile(), "app.log"))
+                .start();
+        try {
+            while (System.nanoTime() - start < Duration.ofSeconds(60).toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited, see " + workDir.resolve("app.log"));
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return System.nanoTime() - start;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Application did not answer within 60s");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void report(String label, List<Long> sorted) {
+        System.out.printf("%-12s time to first request over %d runs: median %6d ms  min %6d ms  max %6d ms%n",
+                label, sorted.size(), sorted.get(sorted.size() / 2) / 1_000_000,
+                sorted.get(0) / 1_000_000, sorted.get(sorted.size() - 1) / 1_000_000);
+    }
+}
@@ -0,0 +1,244 @@
+package com.chatmessage.chat.integration;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.chatmessage.chat.ChatApplication;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+
+/**
+ * Fan-out load test: {@code bench.stomp.subscribers} STOMP clients connect to
+ * {@code /ws} and subscribe to one room's {@code /topic/room/{id}}, while
+ * text messages are sent with {@code POST /api/messages} at
+ * {@code bench.stomp.rate} messages per second for
+ * {@code bench.stomp.duration-seconds}.
+ *
+ * Two latency histograms are recorded, both measured from the time a send
+ * was scheduled (not when it actually went out), so a stalled server shows
+ * up as latency instead of a lower send rate: send acknowledgment (the 201
+ * response) and delivery (each subscriber receiving the broadcast). Both are
+ * printed as percentiles and written as HdrHistogram percentile
+ * distributions to {@code target/stomp-fanout-*.hgrm}.
+ *
+ * Runs headless in one JVM; each client needs a file descriptor on both
+ * ends, so raise {@code ulimit -n} above twice the subscriber count. Run with
+ * {@code mvn test -Pbenchmark -Dtest=StompFanOutLoadBenchmarkTest}.
+ */
+@Tag("benchmark")
+class StompFanOutLoadBenchmarkTest {
+
+    private static final int SUBSCRIBERS = Integer.getInteger("bench.stomp.subscribers", 5000);
+    private static final int RATE = Integer.getInteger("bench.stomp.rate", 20);
+    private static final int DURATION_SECONDS = Integer.getInteger("bench.stomp.duration-seconds", 10);
+    private static final int CONNECT_CONCURRENCY = Integer.getInteger("bench.stomp.connect-concurrency", 100);
+    private static final String BOUNDARY = "bench-boundary";
+    private static final byte[] CONTENT_MARKER = "\"content\":\"load-".getBytes(StandardCharsets.US_ASCII);
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Histogram ackLatency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final Histogram deliveryLatency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder delivered = new LongAdder();
+    private final AtomicInteger failedSends = new AtomicInteger();
+    private final CountDownLatch warmedUp = new CountDownLatch(SUBSCRIBERS);
+
+    // Scheduled send time of message i is start + (i - 1) * interval
+    private volatile long start;
+    private final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+
+    @Test
+    void measureFanOutLatency() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ChatApplication.class)
+                .profiles("test")
+                // Passed as arguments so they override application.properties
+                .run("--server.port=0",
+                        "--server.tomcat.max-connections=" + (SUBSCRIBERS + 1000),
+                        "--spring.datasource.url=jdbc:h2:mem:stomp-benchmark;DB_CLOSE_DELAY=-1",
+                        "--message.search.rebuild-on-startup=false",
+                        "--logging.level.com.chatmessage.chat=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String roomId = "fanout-room-" + System.nanoTime();
+            context.getBean(RoomRepository.class).save(new Room(roomId, "Fan-out", Arrays.asList("load-sender")));
+
+            WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+            List<StompSession> sessions = connectSubscribers(stompClient, port, roomId);
+            HttpClient httpClient = HttpClient.newHttpClient();
+            try {
+                // Every subscriber must see a warm-up message before measuring
+                send(httpClient, port, roomId, 0).join();
+                if (!warmedUp.await(60, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException((SUBSCRIBERS - warmedUp.getCount()) + " of " + SUBSCRIBERS
+                            + " subscribers received the warm-up message");
+                }
+                runLoad(httpClient, port, roomId);
+            } finally {
+                sessions.forEach(StompSession::disconnect);
+                stompClient.stop();
+            }
+        }
+    }
+
+    private List<StompSession> connectSubscribers(WebSocketStompClient stompClient, int port, String roomId)
+            throws InterruptedException {
+        // SockJS endpoints accept plain WebSocket connections under /websocket
+        String url = "ws://localhost:" + port + "/ws/websocket";
+        Semaphore inFlight = new Semaphore(CONNECT_CONCURRENCY);
+        List<CompletableFuture<StompSession>> connects = new ArrayList<>(SUBSCRIBERS);
+        long connectStart = System.nanoTime();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            inFlight.acquire();
+            CompletableFuture<StompSession> connect = stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+            }).thenApply(session -> {
+                session.subscribe("/topic/room/" + roomId, new DeliveryHandler());
+                return session;
+            });
+            connect.whenComplete((session, error) -> inFlight.release());
+            connects.add(connect);
+        }
+        List<StompSession> sessions = connects.stream().map(CompletableFuture::join).toList();
+        System.out.printf("Connected %d subscribers in %d ms%n", sessions.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
+        return sessions;
+    }
+
+    private void runLoad(HttpClient httpClient, int port, String roomId) throws Exception {
+        int messages = RATE * DURATION_SECONDS;
+        List<CompletableFuture<Void>> sends = new ArrayList<>(messages);
+        start = System.nanoTime();
+        for (int i = 1; i <= messages; i++) {
+            long scheduled = start + (i - 1) * intervalNanos;
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            sends.add(send(httpClient, port, roomId, i).thenAccept(status -> {
+                ackLatency.recordValue(micros(System.nanoTime() - scheduled));
+                if (status != 201) {
+                    failedSends.incrementAndGet();
+                }
+            }));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        long sendElapsed = System.nanoTime() - start;
+
+        long expected = (long) messages * SUBSCRIBERS;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (delivered.sum() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        long deliverElapsed = System.nanoTime() - start;
+
+        System.out.printf("%d subscribers, %d messages at %d msg/s: sent %.0f msg/s (%d failed), "
+                + "delivered %d of %d (%.0f deliveries/s)%n",
+                SUBSCRIBERS, messages, RATE, messages / (sendElapsed / 1e9), failedSends.get(),
+                delivered.sum(), expected, delivered.sum() / (deliverElapsed / 1e9));
+        report("send ack", ackLatency);
+        report("delivery", deliveryLatency);
+    }
+
+    private static void report(String label, Histogram histogram) throws IOException {
+        System.out.printf("%-9s p50 %8.2f ms  p90 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  max %8.2f ms  (%d samples)%n",
+                label, millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()), histogram.getTotalCount());
+        Path file = Paths.get("target", "stomp-fanout-" + label.replace(' ', '-') + ".hgrm");
+        Files.createDirectories(file.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static CompletableFuture<Integer> send(HttpClient client, int port, String roomId, int index) {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"content\"\r\n\r\nload-" + index + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/api/messages?userId=load-sender&roomId=" + roomId))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    /**
+     * Records the delivery latency of each broadcast, reading the message
+     * index from the raw JSON to keep per-delivery work small
+     */
+    private final class DeliveryHandler implements StompFrameHandler {
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long received = System.nanoTime();
+            int index = messageIndex((byte[]) payload);
+            if (index == 0) {
+                warmedUp.countDown();
+            } else if (index > 0) {
+                deliveryLatency.recordValue(micros(received - (start + (index - 1) * intervalNanos)));
+                delivered.increment();
+            }
+        }
+    }
+
+    private static int messageIndex(byte[] json) {
+        outer:
+        for (int i = 0; i + CONTENT_MARKER.length <= json.length; i++) {
+            for (int j = 0; j < CONTENT_MARKER.length; j++) {
+                if (json[i + j] != CONTENT_MARKER[j]) {
+                    continue outer;
+                }
+            }
+            int index = 0;
+            for (int k = i + CONTENT_MARKER.length; k < json.length && json[k] >= '0' && json[k] <= '9'; k++) {
+                index = index * 10 + (json[k] - '0');
+            }
+            return index;
+        }
+        return -1;
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(0, Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_LATENCY_MICROS));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
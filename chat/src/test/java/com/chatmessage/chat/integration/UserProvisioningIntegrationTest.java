@@ -0,0 +1,185 @@
+package com.chatmessage.chat.integration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chatmessage.chat.model.User;
+import com.chatmessage.chat.repository.UserRepository;
+import com.chatmessage.chat.service.UserService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserProvisioningIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final String suffix = String.valueOf(System.nanoTime());
+
+    @Test
+    void createUser_ShouldRejectTakenUsername() {
+        // Given
+        userService.createUser("taken-" + suffix);
+
+        // When / Then
+        assertThatThrownBy(() -> userService.createUser("taken-" + suffix))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Username already exists");
+    }
+
+    @Test
+    void createUser_ShouldRejectUsernameInsertedBehindTheService() {
+        // Given a user the username index has never seen
+        userRepository.save(new User("direct-" + suffix, "direct-" + suffix));
+
+        // When / Then
+        assertThatThrownBy(() -> userService.createUser("direct-" + suffix))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Username already exists");
+    }
+
+    @Test
+    void createUser_ShouldLetExactlyOneConcurrentSignupWin() throws Exception {
+        // Given
+        String username = "race-" + suffix;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Boolean>> signups = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            signups.add(() -> {
+                try {
+                    userService.createUser(username);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            });
+        }
+
+        // When
+        int succeeded = 0;
+        for (Future<Boolean> result : executor.invokeAll(signups)) {
+            if (result.get()) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(userRepository.findByUsername(username)).isPresent();
+    }
+
+    @Test
+    void createUsers_ShouldCreateFreeNamesAndReportTheRest() {
+        // Given
+        userService.createUser("existing-" + suffix);
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            usernames.add("bulk-" + i + "-" + suffix);
+        }
+        usernames.add("existing-" + suffix);
+        usernames.add("bulk-0-" + suffix);
+        usernames.add(" ");
+
+        // When
+        UserService.BatchResult result = userService.createUsers(usernames);
+
+        // Then
+        assertThat(result.created()).hasSize(2500);
+        assertThat(result.rejected()).extracting("error").containsExactly(
+                "Username already exists", "Username already exists", "Username cannot be empty");
+        assertThat(userRepository.findByUsername("bulk-2499-" + suffix)).isPresent();
+    }
+
+    @Test
+    void createUsers_ShouldRetryNamesOneByOneWhenBatchHitsTakenName() {
+        // Given a taken name the username index doesn't know about
+        userRepository.save(new User("hidden-" + suffix, "hidden-" + suffix));
+
+        // When
+        UserService.BatchResult result = userService.createUsers(
+                List.of("a-" + suffix, "hidden-" + suffix, "b-" + suffix));
+
+        // Then
+        assertThat(result.created()).extracting("username").containsExactly("a-" + suffix, "b-" + suffix);
+        assertThat(result.rejected()).extracting("username").containsExactly("hidden-" + suffix);
+    }
+
+    @Test
+    void createUsersEndpoint_ShouldReturnCreatedUsers() throws Exception {
+        // When / Then
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"http-1-" + suffix + "\", \"http-2-" + suffix + "\"]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created.length()").value(2))
+                .andExpect(jsonPath("$.rejected").isEmpty());
+    }
+
+    @Test
+    void getUsersByIds_ShouldReturnKnownUsersInRequestOrder() {
+        // Given
+        User first = userService.createUser("first-" + suffix);
+        User second = userService.createUser("second-" + suffix);
+        userService.getUserById(second.getUserId());
+
+        // When
+        Map<String, User> users = userService.getUsersByIds(
+                List.of(second.getUserId(), "unknown-" + suffix, first.getUserId(), second.getUserId()));
+
+        // Then
+        assertThat(users.keySet()).containsExactly(second.getUserId(), first.getUserId());
+    }
+
+    @Test
+    void saveUser_ShouldEvictCachedUser() {
+        // Given
+        User user = userService.createUser("before-" + suffix);
+        userService.getUserById(user.getUserId());
+
+        // When
+        userService.saveUser(new User(user.getUserId(), "after-" + suffix));
+
+        // Then
+        assertThat(userService.getUserById(user.getUserId()).getUsername()).isEqualTo("after-" + suffix);
+    }
+
+    @Test
+    void getUsersEndpoint_ShouldRejectTooManyIds() throws Exception {
+        // Given
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            ids.add("id-" + i);
+        }
+
+        // When / Then
+        mockMvc.perform(get("/api/users/batch").param("ids", String.join(",", ids)))
+                .andExpect(status().isBadRequest());
+    }
+}
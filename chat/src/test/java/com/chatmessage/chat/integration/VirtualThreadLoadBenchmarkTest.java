@@ -0,0 +1,148 @@
+package com.chatmessage.chat.integration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.chatmessage.chat.ChatApplication;
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+
+/**
+ * Compares text-message latency while slow image uploads are in flight,
+ * with Tomcat on its platform thread pool and in the "virtual" profile.
+ *
+ * Each uploader trickles a multipart image to {@code POST /api/messages},
+ * holding its request thread for the whole upload; meanwhile one client
+ * sends text messages back to back. The platform pool is capped at
+ * {@code bench.load.threads} threads so the saturation point is reached
+ * with a modest number of uploaders. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmarkTest {
+
+    private static final int TOMCAT_THREADS = Integer.getInteger("bench.load.threads", 20);
+    private static final int UPLOADERS = Integer.getInteger("bench.load.uploaders", 40);
+    private static final int UPLOAD_SECONDS = Integer.getInteger("bench.load.upload-seconds", 3);
+    private static final int TEXT_MESSAGES = Integer.getInteger("bench.load.text-messages", 200);
+    private static final String BOUNDARY = "bench-boundary";
+
+    @Test
+    void compareTextLatencyUnderUploadLoad() throws Exception {
+        run("platform threads", false);
+        run("virtual threads", true);
+    }
+
+    private static void run(String label, boolean virtual) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ChatApplication.class)
+                .profiles(virtual ? new String[]{"test", "virtual"} : new String[]{"test"});
+        // Passed as arguments so they override application.properties
+        try (ConfigurableApplicationContext context = builder.run("--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--spring.datasource.url=jdbc:h2:mem:load-benchmark-" + virtual + ";DB_CLOSE_DELAY=-1",
+                "--file.upload-dir=./target/load-benchmark-uploads",
+                "--message.search.rebuild-on-startup=false",
+                "--logging.level.com.chatmessage.chat=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String roomId = "load-room-" + System.nanoTime();
+            context.getBean(RoomRepository.class).save(new Room(roomId, "Load", Arrays.asList("load-user")));
+
+            ExecutorService uploaders = Executors.newVirtualThreadPerTaskExecutor();
+            for (int i = 0; i < UPLOADERS; i++) {
+                uploaders.submit(() -> slowUpload(port, roomId));
+            }
+            // Let the uploads occupy their request threads
+            Thread.sleep(200);
+
+            HttpClient client = HttpClient.newHttpClient();
+            List<Long> latencies = new ArrayList<>(TEXT_MESSAGES);
+            long start = System.nanoTime();
+            for (int i = 0; i < TEXT_MESSAGES; i++) {
+                long sent = System.nanoTime();
+                HttpResponse<Void> response = client.send(textMessage(port, roomId, "text " + i),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 201) {
+                    throw new IllegalStateException("Text send failed with status " + response.statusCode());
+                }
+                latencies.add(System.nanoTime() - sent);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            uploaders.shutdown();
+            uploaders.awaitTermination(UPLOAD_SECONDS * 4L, TimeUnit.SECONDS);
+
+            Collections.sort(latencies);
+            System.out.printf("%-18s %4d uploaders %6.0f text msg/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n",
+                    label, UPLOADERS, TEXT_MESSAGES / (elapsed / 1e9),
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), latencies.get(latencies.size() - 1) / 1e6);
+        }
+    }
+
+    private static HttpRequest textMessage(int port, String roomId, String content) {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"content\"\r\n\r\n" + content + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/api/messages?userId=load-user&roomId=" + roomId))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Send a 64 KB image in small chunks spread over {@code UPLOAD_SECONDS}
+     */
+    private static Void slowUpload(int port, String roomId) throws IOException, InterruptedException {
+        byte[] image = new byte[64 * 1024];
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"image\"; filename=\"load.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        String request = "POST /api/messages?userId=load-user&roomId=" + roomId + " HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Type: multipart/form-data; boundary=" + BOUNDARY + "\r\n"
+                + "Content-Length: " + (head.length + image.length + tail.length) + "\r\n"
+                + "Connection: close\r\n\r\n";
+
+        int chunks = 32;
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            out.write(head);
+            out.flush();
+            int chunkSize = image.length / chunks;
+            for (int i = 0; i < chunks; i++) {
+                out.write(image, i * chunkSize, chunkSize);
+                out.flush();
+                Thread.sleep(UPLOAD_SECONDS * 1000L / chunks);
+            }
+            out.write(tail);
+            out.flush();
+            socket.getInputStream().readAllBytes();
+        }
+        return null;
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1e6;
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.chatmessage.chat.model.Message;
@@ -39,6 +40,7 @@ class MessageRepositoryTest {
         message1.setSenderId("user-1");
         message1.setRoomId("room-1");
         message1.setContent("First message in room 1");
+        message1.setSequence(1L);
         message1.setTimestamp(now.minusMinutes(10));
 
         message2 = new Message();
@@ -47,6 +49,7 @@ class MessageRepositoryTest {
         message2.setRoomId("room-1");
         message2.setContent("Second message in room 1");
         message2.setImageUrl("http://example.com/image1.jpg");
+        message2.setSequence(2L);
         message2.setTimestamp(now.minusMinutes(5));
 
         message3 = new Message();
@@ -54,6 +57,7 @@ class MessageRepositoryTest {
         message3.setSenderId("user-1");
         message3.setRoomId("room-2");
         message3.setContent("First message in room 2");
+        message3.setSequence(1L);
         message3.setTimestamp(now.minusMinutes(3));
 
         message4 = new Message();
@@ -61,6 +65,7 @@ class MessageRepositoryTest {
         message4.setSenderId("user-3");
         message4.setRoomId("room-1");
         message4.setContent("Third message in room 1");
+        message4.setSequence(3L);
         message4.setTimestamp(now);
 
         // Persist test data
@@ -210,4 +215,20 @@ class MessageRepositoryTest {
         assertThat(messageRepository.findById("msg-1")).isEmpty();
         assertThat(messageRepository.findAll()).hasSize(3);
     }
+
+    @Test
+    void findByRoomIdAndSequenceGreaterThan_ShouldReturnPageInSequenceOrder() {
+        // When
+        List<Message> messages = messageRepository.findByRoomIdAndSequenceGreaterThanOrderBySequenceAsc(
+                "room-1", 1L, PageRequest.of(0, 1));
+
+        // Then
+        assertThat(messages).extracting("messageId").containsExactly("msg-2");
+    }
+
+    @Test
+    void findMaxSequenceByRoomId_ShouldReturnHighestSequence() {
+        assertThat(messageRepository.findMaxSequenceByRoomId("room-1")).isEqualTo(3L);
+        assertThat(messageRepository.findMaxSequenceByRoomId("non-existent-room")).isNull();
+    }
 }
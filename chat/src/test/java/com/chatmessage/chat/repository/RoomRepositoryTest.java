@@ -10,17 +10,27 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
+import com.chatmessage.chat.config.QueryStatsConfig;
 import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.model.RoomSummary;
+import com.chatmessage.chat.service.QueryCapture;
+import com.chatmessage.chat.service.QueryStats;
 
 @DataJpaTest
+@Import({QueryStatsConfig.class, QueryStats.class})
 @ActiveProfiles("test")
 class RoomRepositoryTest {
 
     @Autowired
     private TestEntityManager entityManager;
 
+    @Autowired
+    private QueryStats queryStats;
+
     @Autowired
     private RoomRepository roomRepository;
 
@@ -169,4 +179,78 @@ class RoomRepositoryTest {
         assertThat(room.get().isMember("user-4")).isFalse();
         assertThat(room.get().isMember("non-existent")).isFalse();
     }
+
+    @Test
+    void findSummariesByMember_ShouldReturnMemberCountsWithoutMembers() {
+        // When
+        List<RoomSummary> summaries = roomRepository.findSummariesByMember("user-4");
+
+        // Then
+        assertThat(summaries).containsExactly(
+                new RoomSummary("room-2", "Test Room 2", 2),
+                new RoomSummary("room-3", "Test Room 3", 3));
+    }
+
+    @Test
+    void findAllSummaries_ShouldReturnEveryRoom() {
+        assertThat(roomRepository.findAllSummaries()).extracting(RoomSummary::memberCount).containsExactly(3, 2, 3);
+    }
+
+    @Test
+    void findMemberIds_ShouldPageThroughMembersInOrder() {
+        assertThat(roomRepository.findMemberIds("room-1", PageRequest.of(0, 2))).containsExactly("user-1", "user-2");
+        assertThat(roomRepository.findMemberIds("room-1", PageRequest.of(1, 2))).containsExactly("user-3");
+    }
+
+    @Test
+    void isMember_ShouldQueryMembershipWithoutLoadingTheRoom() {
+        assertThat(roomRepository.isMember("room-3", "user-5")).isTrue();
+        assertThat(roomRepository.isMember("room-3", "user-1")).isFalse();
+        assertThat(roomRepository.findRoomIdsByMember("user-2")).containsExactlyInAnyOrder("room-1", "room-3");
+    }
+
+    @Test
+    void isMember_ShouldIssueOneStatement() {
+        // Given
+        entityManager.clear();
+
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            roomRepository.isMember("room-1", "user-1");
+
+            // Then
+            capture.assertStatementCount(1);
+        }
+    }
+
+    @Test
+    void findSummariesByMember_ShouldIssueOneStatement() {
+        // Given
+        entityManager.clear();
+
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            roomRepository.findSummariesByMember("user-1");
+
+            // Then
+            capture.assertStatementCount(1);
+        }
+    }
+
+    @Test
+    void findById_ShouldLoadMembersWithSecondStatement() {
+        // Given
+        entityManager.clear();
+
+        try (QueryCapture capture = queryStats.capture()) {
+            // When
+            Room room = roomRepository.findById("room-1").orElseThrow();
+            capture.assertStatementCount(1);
+            room.isMember("user-1");
+
+            // Then: the member collection is fetched lazily on first access
+            capture.assertStatementCount(2);
+            assertThat(capture.getRowCount()).isEqualTo(4);
+        }
+    }
 }
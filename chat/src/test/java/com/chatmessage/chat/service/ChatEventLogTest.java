@@ -0,0 +1,72 @@
+package com.chatmessage.chat.service;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChatEventLogTest {
+
+    @Test
+    void parseSampleRates_ShouldReadTypeRatePairs() {
+        // When
+        Map<String, Double> rates = ChatEventLog.parseSampleRates("message.sent:0.5, history.read:0.01,");
+
+        // Then
+        assertThat(rates).containsOnly(Map.entry("message.sent", 0.5), Map.entry("history.read", 0.01));
+        assertThat(ChatEventLog.parseSampleRates("")).isEmpty();
+    }
+
+    @Test
+    void parseSampleRates_ShouldThrowException_WhenRateOutOfRange() {
+        assertThatThrownBy(() -> ChatEventLog.parseSampleRates("message.sent:2"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("between 0 and 1");
+    }
+
+    @Test
+    void formatValue_ShouldQuoteAndEscape_WhenValueWouldBreakTheLine() {
+        assertThat(ChatEventLog.formatValue("plain")).isEqualTo("plain");
+        assertThat(ChatEventLog.formatValue("")).isEqualTo("\"\"");
+        assertThat(ChatEventLog.formatValue("two words")).isEqualTo("\"two words\"");
+        assertThat(ChatEventLog.formatValue("a=b")).isEqualTo("\"a=b\"");
+        assertThat(ChatEventLog.formatValue("say \"hi\"")).isEqualTo("\"say \\\"hi\\\"\"");
+        assertThat(ChatEventLog.formatValue("line\nuserId=admin\r")).isEqualTo("\"line\\nuserId=admin\\r\"");
+        assertThat(ChatEventLog.formatValue("c:\\tmp\u0007")).isEqualTo("\"c:\\\\tmp\\u0007\"");
+    }
+
+    @Test
+    void log_ShouldDropAndCount_WhenQueueFull() throws InterruptedException {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChatEventLog eventLog = new ChatEventLog(registry, 1, 1.0, "", 0);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            eventLog.log("message.sent", "sequence", i, "content", "Hello");
+        }
+        eventLog.close();
+
+        // Then
+        assertThat(eventLog.getDroppedCount()).isPositive();
+        assertThat(registry.get("chat.log.dropped").counter().count()).isEqualTo(eventLog.getDroppedCount());
+    }
+
+    @Test
+    void log_ShouldSkipEvents_WhenSampleRateIsZero() throws InterruptedException {
+        // Given
+        ChatEventLog eventLog = new ChatEventLog(new SimpleMeterRegistry(), 1, 1.0, "history.read:0", 0);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            eventLog.log("history.read", "rows", i);
+        }
+        eventLog.close();
+
+        // Then
+        assertThat(eventLog.getDroppedCount()).isZero();
+    }
+}
@@ -0,0 +1,158 @@
+package com.chatmessage.chat.service;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.chatmessage.chat.model.Message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    private Path dumpDir;
+
+    private FlightRecorderService flightRecorder;
+
+    @AfterEach
+    void tearDown() {
+        if (flightRecorder != null) {
+            flightRecorder.close();
+        }
+    }
+
+    @Test
+    void dump_ShouldContainChatEvents_WhenMessageTraced() throws Exception {
+        // Given
+        flightRecorder = create(true, 10, 500, 10);
+        MessageTracer tracer = new MessageTracer(new ChatMetrics(new SimpleMeterRegistry(), 10, "filesystem"),
+                flightRecorder, 500, false);
+        MessageTrace trace = new MessageTrace();
+        trace.markValidated();
+        trace.markPersisted();
+        trace.markBroadcast();
+        tracer.complete(new Message("jfr-message-1", "user-1", "jfr-room", "Hello", null), trace);
+
+        // When
+        FlightRecorderService.Dump dump = flightRecorder.dump(1, "manual");
+
+        // Then
+        assertThat(dump.name()).startsWith("chat-manual-").endsWith(".jfr");
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dumpDir.resolve(dump.name()));
+        RecordedEvent send = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.chatmessage.chat.MessageSend"))
+                .filter(event -> "jfr-message-1".equals(event.getString("messageId")))
+                .findFirst()
+                .orElseThrow();
+        assertThat(send.getString("roomId")).isEqualTo("jfr-room");
+        assertThat(send.getDuration().toNanos()).isGreaterThanOrEqualTo(trace.broadcastNanos());
+        assertThat(events).anyMatch(event -> event.getEventType().getName().equals("com.chatmessage.chat.MessageBroadcast"));
+        assertThat(flightRecorder.listDumps()).extracting(FlightRecorderService.Dump::name).containsExactly(dump.name());
+    }
+
+    @Test
+    void dump_ShouldLeaveOutEventsThatMayHoldSecrets() throws Exception {
+        // Given: another recording in the JVM enables them
+        flightRecorder = create(true, 10, 500, 10);
+        try (Recording other = new Recording()) {
+            FlightRecorderService.SENSITIVE_EVENTS.forEach(other::enable);
+            other.start();
+
+            // When
+            FlightRecorderService.Dump dump = flightRecorder.dump(1, "manual");
+
+            // Then
+            assertThat(RecordingFile.readAllEvents(dumpDir.resolve(dump.name())))
+                    .noneMatch(event -> FlightRecorderService.SENSITIVE_EVENTS.contains(event.getEventType().getName()));
+        }
+    }
+
+    @Test
+    void dump_ShouldThrowException_WhenMinutesOutOfRange() {
+        // Given
+        flightRecorder = create(true, 10, 500, 10);
+
+        // When & Then
+        assertThatThrownBy(() -> flightRecorder.dump(31, "manual"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("minutes must be between 1 and 30");
+    }
+
+    @Test
+    void dump_ShouldThrowException_WhenRecordingDisabled() {
+        // Given
+        flightRecorder = create(false, 10, 500, 10);
+
+        // When & Then
+        assertThat(flightRecorder.isRecording()).isFalse();
+        assertThatThrownBy(() -> flightRecorder.dump(1, "manual"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Flight recording is not running");
+    }
+
+    @Test
+    void dump_ShouldKeepNewestDumps_WhenLimitExceeded() throws Exception {
+        // Given
+        flightRecorder = create(true, 2, 500, 10);
+
+        // When
+        flightRecorder.dump(1, "first");
+        flightRecorder.dump(1, "second");
+        flightRecorder.dump(1, "third");
+
+        // Then
+        assertThat(flightRecorder.listDumps()).extracting(FlightRecorderService.Dump::name)
+                .hasSize(2)
+                .noneMatch(name -> name.startsWith("chat-first-"));
+    }
+
+    @Test
+    void getDumpFile_ShouldThrowException_WhenNameNotListed() {
+        // Given
+        flightRecorder = create(true, 10, 500, 10);
+
+        // When & Then
+        assertThatThrownBy(() -> flightRecorder.getDumpFile("../chatdb.mv.db"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Flight recording dump not found");
+    }
+
+    @Test
+    void recordSendLatency_ShouldSaveOneDump_WhenSloBreachedRepeatedly() throws Exception {
+        // Given
+        flightRecorder = create(true, 10, 100, 3);
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            flightRecorder.recordSendLatency(200_000_000L);
+        }
+        flightRecorder.recordSendLatency(50_000_000L);
+        assertThat(flightRecorder.listDumps()).isEmpty();
+        for (int i = 0; i < 10; i++) {
+            flightRecorder.recordSendLatency(200_000_000L);
+        }
+
+        // Then
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (flightRecorder.listDumps().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Thread.sleep(200);
+        assertThat(flightRecorder.listDumps()).singleElement()
+                .satisfies(dump -> assertThat(dump.name()).startsWith("chat-slo-"));
+    }
+
+    private FlightRecorderService create(boolean enabled, int maxDumps, long sloMs, int breaches) {
+        return new FlightRecorderService(enabled, "default", 30, 64, dumpDir.toString(), maxDumps, sloMs, breaches,
+                5, 15);
+    }
+}
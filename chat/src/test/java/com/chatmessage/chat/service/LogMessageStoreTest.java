@@ -0,0 +1,283 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.chatmessage.chat.model.Message;
+
+/**
+ * Runs the {@code MessageRepositoryTest} scenarios against the log store,
+ * plus recovery behaviour specific to it
+ */
+class LogMessageStoreTest {
+
+    @TempDir
+    Path logDir;
+
+    private LogMessageStore messageStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        messageStore = open(4096);
+        LocalDateTime now = LocalDateTime.now();
+
+        messageStore.append(message("msg-1", "user-1", "room-1", "First message in room 1", null, now.minusMinutes(10)));
+        messageStore.append(message("msg-2", "user-2", "room-1", "Second message in room 1",
+                "http://example.com/image1.jpg", now.minusMinutes(5)));
+        messageStore.append(message("msg-3", "user-1", "room-2", "First message in room 2", null, now.minusMinutes(3)));
+        messageStore.append(message("msg-4", "user-3", "room-1", "Third message in room 1", null, now));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        messageStore.close();
+    }
+
+    @Test
+    void findByRoomId_ShouldReturnMessagesInChronologicalOrder() {
+        // When
+        List<Message> messages = messageStore.findByRoomId("room-1");
+
+        // Then
+        assertThat(messages).extracting("content")
+                .containsExactly("First message in room 1", "Second message in room 1", "Third message in room 1");
+        assertThat(messages).extracting("messageId").containsExactly("msg-1", "msg-2", "msg-4");
+        assertThat(messages).extracting("sequence").containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void findByRoomId_ShouldReturnEmptyListForNonExistentRoom() {
+        assertThat(messageStore.findByRoomId("non-existent-room")).isEmpty();
+    }
+
+    @Test
+    void findByRoomId_ShouldReturnSingleMessageForRoom2() {
+        // When
+        List<Message> messages = messageStore.findByRoomId("room-2");
+
+        // Then
+        assertThat(messages).hasSize(1);
+        assertThat(messages.get(0).getContent()).isEqualTo("First message in room 2");
+        assertThat(messages.get(0).getSenderId()).isEqualTo("user-1");
+    }
+
+    @Test
+    void findById_ShouldReturnMessage_WhenMessageExists() {
+        // When
+        Optional<Message> found = messageStore.findById("msg-2");
+
+        // Then
+        assertThat(found).isPresent();
+        assertThat(found.get().getContent()).isEqualTo("Second message in room 1");
+        assertThat(found.get().getImageUrl()).isEqualTo("http://example.com/image1.jpg");
+        assertThat(found.get().getRoomId()).isEqualTo("room-1");
+    }
+
+    @Test
+    void findById_ShouldReturnEmpty_WhenMessageDoesNotExist() {
+        assertThat(messageStore.findById("non-existent")).isEmpty();
+    }
+
+    @Test
+    void append_ShouldPersistMessageAndAssignNextSequence() {
+        // When
+        Message saved = messageStore.append(message("new-msg", "user-4", "room-1", "New test message", null, LocalDateTime.now()));
+
+        // Then
+        assertThat(saved.getSequence()).isEqualTo(4L);
+        assertThat(messageStore.getLastSequence("room-1")).isEqualTo(4L);
+        assertThat(messageStore.findById("new-msg")).isPresent();
+    }
+
+    @Test
+    void findAll_ShouldReturnAllMessages() {
+        assertThat(messageStore.findAll()).extracting("messageId")
+                .containsExactlyInAnyOrder("msg-1", "msg-2", "msg-3", "msg-4");
+    }
+
+    @Test
+    void deleteById_ShouldRemoveMessage() {
+        // When
+        messageStore.deleteById("msg-1");
+
+        // Then
+        assertThat(messageStore.findById("msg-1")).isEmpty();
+        assertThat(messageStore.findAll()).hasSize(3);
+    }
+
+    @Test
+    void findByRoomIdAfterSequence_ShouldUseSparseIndexAcrossSegments() throws IOException {
+        // Given
+        for (int i = 0; i < 200; i++) {
+            messageStore.append(message("bulk-" + i, "user-1", "room-3", "bulk message " + i, null, LocalDateTime.now()));
+        }
+
+        // When
+        List<Message> page = messageStore.findByRoomIdAfterSequence("room-3", 150, 5);
+
+        // Then
+        assertThat(page).extracting("sequence").containsExactly(151L, 152L, 153L, 154L, 155L);
+        assertThat(segmentFiles("room-3")).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void open_ShouldRecoverMessagesAndDeletesAfterRestart() throws IOException {
+        // Given
+        messageStore.deleteById("msg-2");
+        messageStore.close();
+
+        // When
+        messageStore = open(4096);
+
+        // Then
+        assertThat(messageStore.findByRoomId("room-1")).extracting("messageId").containsExactly("msg-1", "msg-4");
+        assertThat(messageStore.findById("msg-2")).isEmpty();
+        assertThat(messageStore.append(message("after-restart", "user-1", "room-1", "again", null, LocalDateTime.now()))
+                .getSequence()).isEqualTo(4L);
+    }
+
+    @Test
+    void open_ShouldTruncateTornTail() throws IOException {
+        // Given
+        messageStore.close();
+        Path segment = segmentFiles("room-2").get(0);
+        long validSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 42, 1, 2, 3}));
+        }
+
+        // When
+        messageStore = open(4096);
+
+        // Then
+        assertThat(Files.size(segment)).isEqualTo(validSize);
+        assertThat(messageStore.findByRoomId("room-2")).extracting("messageId").containsExactly("msg-3");
+        assertThat(messageStore.append(message("msg-5", "user-1", "room-2", "after recovery", null, LocalDateTime.now()))
+                .getSequence()).isEqualTo(2L);
+        assertThat(messageStore.findByRoomId("room-2")).extracting("messageId").containsExactly("msg-3", "msg-5");
+    }
+
+    @Test
+    void archiveRoom_ShouldMoveOldMessagesOutOfTheLog(@TempDir Path archiveDir) throws IOException {
+        // Given
+        MessageArchive archive = new MessageArchive(archiveDir.toString(), 4);
+        MessageArchivalJob job = new MessageArchivalJob(messageStore, archive, new RoomMaintenanceLocks(), 30, 100);
+
+        // When
+        int archived = job.archiveRoom("room-1", LocalDateTime.now().minusMinutes(1));
+
+        // Then
+        assertThat(archived).isEqualTo(2);
+        assertThat(archive.readRoom("room-1")).extracting("messageId").containsExactly("msg-1", "msg-2");
+        assertThat(messageStore.findByRoomId("room-1")).extracting("messageId").containsExactly("msg-4");
+    }
+
+    @Test
+    void deleteRange_ShouldRemoveCoveredSegmentsAndKeepWatermarkAfterRestart() throws IOException {
+        // Given
+        for (int i = 0; i < 200; i++) {
+            messageStore.append(message("bulk-" + i, "user-1", "room-3", "bulk message " + i, null, LocalDateTime.now()));
+        }
+        messageStore.deleteById("bulk-179");
+        int segmentsBefore = segmentFiles("room-3").size();
+
+        // When
+        int deleted = messageStore.deleteRange("room-3", 0, 150);
+        messageStore.close();
+        messageStore = open(4096);
+
+        // Then
+        assertThat(deleted).isEqualTo(150);
+        assertThat(segmentFiles("room-3")).hasSizeLessThan(segmentsBefore);
+        List<Message> remaining = messageStore.findByRoomId("room-3");
+        assertThat(remaining).hasSize(49);
+        assertThat(remaining.get(0).getSequence()).isEqualTo(151L);
+        assertThat(remaining).extracting("messageId").doesNotContain("bulk-179");
+        assertThat(messageStore.findById("bulk-0")).isEmpty();
+        assertThat(messageStore.findById("bulk-150")).isPresent();
+        assertThat(messageStore.getLastSequence("room-3")).isEqualTo(200L);
+    }
+
+    @Test
+    void deleteRange_ShouldDeleteOnlyTheRange_WhenItDoesNotStartAtTheWatermark() {
+        // When
+        int deleted = messageStore.deleteRange("room-1", 1, 2);
+
+        // Then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(messageStore.findByRoomId("room-1")).extracting("messageId").containsExactly("msg-1", "msg-4");
+        assertThat(messageStore.findById("msg-2")).isEmpty();
+    }
+
+    @Test
+    void findNthNewestSequence_ShouldSkipDeletedMessages() {
+        // Given: room-1 holds sequences 1, 2 and 3
+        messageStore.append(message("msg-5", "user-1", "room-1", "Fourth message in room 1", null, LocalDateTime.now()));
+        messageStore.deleteRange("room-1", 0, 1);
+        messageStore.deleteById("msg-4");
+
+        // Then: 2 and 4 are left
+        assertThat(messageStore.countByRoomIdAfterSequence("room-1", 0)).isEqualTo(2);
+        assertThat(messageStore.countByRoomIdAfterSequence("room-1", 2)).isEqualTo(1);
+        assertThat(messageStore.findNthNewestSequence("room-1", 1)).isEqualTo(4L);
+        assertThat(messageStore.findNthNewestSequence("room-1", 2)).isEqualTo(2L);
+        assertThat(messageStore.findNthNewestSequence("room-1", 3)).isZero();
+        assertThat(messageStore.findNthNewestSequence("non-existent-room", 1)).isZero();
+    }
+
+    @Test
+    void appendAll_ShouldAppendNothing_WhenAnyMessageIdExists() {
+        // Given
+        List<Message> batch = List.of(
+                message("batch-1", "user-1", "room-1", "new", null, LocalDateTime.now()),
+                message("msg-2", "user-2", "room-1", "duplicate", null, LocalDateTime.now()));
+
+        // When
+        Throwable thrown = catchThrowable(() -> messageStore.appendAll(batch));
+
+        // Then
+        assertThat(thrown).isInstanceOf(DuplicateKeyException.class);
+        assertThat(messageStore.findById("batch-1")).isEmpty();
+        assertThat(messageStore.getLastSequence("room-1")).isEqualTo(3L);
+
+        // A retry without the duplicate appends the new message once
+        messageStore.appendAll(List.of(batch.get(0)));
+        assertThat(messageStore.findByRoomId("room-1")).extracting("messageId")
+                .containsExactly("msg-1", "msg-2", "msg-4", "batch-1");
+    }
+
+    private LogMessageStore open(long segmentSize) throws IOException {
+        LogMessageStore store = new LogMessageStore(logDir.toString(), segmentSize, 16, "always");
+        store.open();
+        return store;
+    }
+
+    private List<Path> segmentFiles(String roomId) throws IOException {
+        try (Stream<Path> files = Files.list(logDir.resolve(roomId))) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static Message message(String messageId, String senderId, String roomId, String content, String imageUrl,
+            LocalDateTime timestamp) {
+        Message message = new Message(messageId, senderId, roomId, content, imageUrl);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+}
@@ -0,0 +1,114 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.chatmessage.chat.model.Message;
+
+class MessageArchiveTest {
+
+    @TempDir
+    Path archiveDir;
+
+    private MessageArchive archive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        archive = new MessageArchive(archiveDir.toString(), 4);
+        archive.loadCatalog();
+    }
+
+    @Test
+    void readRoom_ShouldReturnArchivedMessagesInOrder() throws IOException {
+        // Given
+        archive.writeSegment("room-1", messages("room-1", 1, 10));
+
+        // When
+        List<Message> messages = archive.readRoom("room-1");
+
+        // Then
+        assertThat(messages).hasSize(10);
+        assertThat(messages).extracting("sequence").containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(messages.get(0).getContent()).isEqualTo("message 1");
+        assertThat(messages.get(0).getRoomId()).isEqualTo("room-1");
+        assertThat(messages.get(1).getImageUrl()).isNull();
+    }
+
+    @Test
+    void readRoom_ShouldStartAfterSequenceAcrossSegments() throws IOException {
+        // Given
+        archive.writeSegment("room-1", messages("room-1", 1, 10));
+        archive.writeSegment("room-1", messages("room-1", 11, 20));
+
+        // When
+        List<Message> messages = archive.readRoom("room-1", 6, 7);
+
+        // Then
+        assertThat(messages).extracting("sequence").containsExactly(7L, 8L, 9L, 10L, 11L, 12L, 13L);
+        assertThat(archive.getMaxSequence("room-1")).isEqualTo(20);
+    }
+
+    @Test
+    void findNthNewestSequence_ShouldCountBackAcrossBlocksAndSegments() throws IOException {
+        // Given: sequence 13 was deleted before archival
+        List<Message> second = new ArrayList<>(messages("room-1", 11, 20));
+        second.removeIf(message -> message.getSequence() == 13);
+        archive.writeSegment("room-1", messages("room-1", 1, 10));
+        archive.writeSegment("room-1", second);
+
+        // Then
+        assertThat(archive.findNthNewestSequence("room-1", 1)).isEqualTo(20);
+        assertThat(archive.findNthNewestSequence("room-1", 8)).isEqualTo(12);
+        assertThat(archive.findNthNewestSequence("room-1", 10)).isEqualTo(10);
+        assertThat(archive.findNthNewestSequence("room-1", 19)).isEqualTo(1);
+        assertThat(archive.findNthNewestSequence("room-1", 20)).isZero();
+        assertThat(archive.findNthNewestSequence("room-2", 1)).isZero();
+    }
+
+    @Test
+    void loadCatalog_ShouldRestoreSegmentsFromDisk() throws IOException {
+        // Given
+        archive.writeSegment("room/with:odd chars", messages("room/with:odd chars", 1, 5));
+
+        // When
+        MessageArchive reopened = new MessageArchive(archiveDir.toString(), 4);
+        reopened.loadCatalog();
+
+        // Then
+        assertThat(reopened.getMaxSequence("room/with:odd chars")).isEqualTo(5);
+        assertThat(reopened.readRoom("room/with:odd chars")).hasSize(5);
+        assertThat(reopened.hasMessages("room-2")).isFalse();
+    }
+
+    @Test
+    void writeSegment_ShouldRejectOverlappingRange() throws IOException {
+        // Given
+        archive.writeSegment("room-1", messages("room-1", 1, 10));
+
+        // When & Then
+        assertThatThrownBy(() -> archive.writeSegment("room-1", messages("room-1", 5, 12)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Message> messages(String roomId, long from, long to) {
+        LocalDateTime start = LocalDateTime.now().minusDays(60);
+        List<Message> messages = new ArrayList<>();
+        for (long sequence = from; sequence <= to; sequence++) {
+            Message message = new Message("msg-" + sequence, "user-1", roomId, "message " + sequence,
+                    sequence % 2 == 1 ? "/uploads/" + sequence + ".jpg" : null);
+            message.setSequence(sequence);
+            message.setTimestamp(start.plusMinutes(sequence));
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,57 @@
+package com.chatmessage.chat.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.chatmessage.chat.model.Room;
+import com.chatmessage.chat.repository.RoomRepository;
+import com.chatmessage.chat.service.MessageImportService.ImportResult;
+
+/**
+ * Measures bulk NDJSON import throughput into H2. The target is 50k messages
+ * per second. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:import-benchmark;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class MessageImportBenchmarkTest {
+
+    private static final int MESSAGES = Integer.getInteger("bench.import.messages", 500_000);
+    private static final int ROOMS = 16;
+
+    @Autowired
+    private MessageImportService importService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Test
+    void measureImportThroughput() throws IOException {
+        for (int room = 0; room < ROOMS; room++) {
+            roomRepository.save(new Room("import-bench-" + room, "Import bench " + room, List.of("bench-user")));
+        }
+        StringBuilder body = new StringBuilder(MESSAGES * 96);
+        for (int i = 0; i < MESSAGES; i++) {
+            body.append("{\"senderId\":\"bench-user\",\"roomId\":\"import-bench-").append(i % ROOMS)
+                    .append("\",\"content\":\"imported message number ").append(i).append("\"}\n");
+        }
+        byte[] ndjson = body.toString().getBytes(StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        ImportResult result = importService.importMessages(new ByteArrayInputStream(ndjson));
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(result.getImported()).isEqualTo(MESSAGES);
+        System.out.printf("bulk import %8d messages %10.0f msg/s %8.2f us/msg%n",
+                MESSAGES, MESSAGES / (elapsed / 1e9), elapsed / 1e3 / MESSAGES);
+    }
+}
@@ -0,0 +1,156 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.chatmessage.chat.model.Message;
+import com.chatmessage.chat.service.MessageSearchIndex.Hit;
+
+class MessageSearchIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private LogMessageStore messageStore;
+    private MessageSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        messageStore = new LogMessageStore(dir.resolve("log").toString(), 1 << 20, 16, "never");
+        messageStore.open();
+        searchIndex = new MessageSearchIndex(messageStore, new MessageArchive(dir.resolve("archive").toString(), 256), false);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        messageStore.close();
+    }
+
+    @Test
+    void tokenize_ShouldLowerCaseAndSplitOnNonWordCharacters() {
+        assertThat(MessageSearchIndex.tokenize("Deploy the API, then re-deploy! deploy")).containsExactly(
+                "deploy", "the", "api", "then", "re");
+        assertThat(MessageSearchIndex.tokenize("  ... ")).isEmpty();
+        assertThat(MessageSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void search_ShouldRequireEveryTerm() {
+        // Given
+        send("m1", "alice", "room-1", "Release notes for the API");
+        send("m2", "bob", "room-1", "The API is down");
+        send("m3", "alice", "room-1", "Release party tonight");
+
+        // When
+        List<Hit> hits = searchIndex.search("api RELEASE", List.of("room-1"), null, 10);
+
+        // Then
+        assertThat(hits).containsExactly(new Hit("room-1", 1));
+    }
+
+    @Test
+    void search_ShouldFilterByRoomAndSender() {
+        // Given
+        send("m1", "alice", "room-1", "standup at ten");
+        send("m2", "bob", "room-2", "standup moved");
+        send("m3", "bob", "room-1", "standup notes");
+
+        // Then
+        assertThat(searchIndex.search("standup", List.of("room-2"), null, 10)).containsExactly(new Hit("room-2", 1));
+        assertThat(searchIndex.search("standup", List.of("room-1", "room-2"), "bob", 10))
+                .containsExactly(new Hit("room-1", 2), new Hit("room-2", 1));
+        assertThat(searchIndex.search("standup", List.of("room-1"), "carol", 10)).isEmpty();
+        assertThat(searchIndex.search("standup", List.of("room-3"), null, 10)).isEmpty();
+    }
+
+    @Test
+    void search_ShouldReturnNewestFirstUpToLimit() {
+        // Given: enough messages between matches that gaps need multi-byte varints
+        for (int i = 1; i <= 50_000; i++) {
+            send("m" + i, "alice", "room-1", i % 10_000 == 0 ? "needle " + i : "hay " + i);
+        }
+
+        // When
+        List<Hit> hits = searchIndex.search("needle", List.of("room-1"), null, 3);
+
+        // Then
+        assertThat(hits).extracting(Hit::sequence).containsExactly(50_000L, 40_000L, 30_000L);
+        assertThat(searchIndex.search("hay needle", List.of("room-1"), null, 3)).isEmpty();
+        assertThat(searchIndex.getDocumentCount()).isEqualTo(50_000);
+    }
+
+    @Test
+    void rebuild_ShouldIndexStoredMessages() {
+        // Given: stored but never added to the index
+        messageStore.append(new Message("m1", "alice", "room-1", "rebuilt from the store", null));
+        messageStore.append(new Message("m2", "bob", "room-2", "also rebuilt", null));
+        assertThat(searchIndex.search("rebuilt", List.of("room-1", "room-2"), null, 10)).isEmpty();
+
+        // When
+        searchIndex.rebuild();
+
+        // Then
+        assertThat(searchIndex.search("rebuilt", List.of("room-1", "room-2"), null, 10))
+                .containsExactlyInAnyOrder(new Hit("room-1", 1), new Hit("room-2", 1));
+        assertThat(searchIndex.getDocumentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuild_ShouldRankNewestFirstAcrossRooms() {
+        // Given: rooms are rebuilt in name order, while their messages interleave in time
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        store("m1", "room-c", "deploy one", start);
+        store("m2", "room-a", "deploy two", start.plusMinutes(1));
+        store("m3", "room-b", "deploy three", start.plusMinutes(2));
+        store("m4", "room-c", "deploy four", start.plusMinutes(3));
+        store("m5", "room-a", "deploy five", start.plusMinutes(4));
+
+        // When
+        searchIndex.rebuild();
+
+        // Then
+        assertThat(searchIndex.search("deploy", List.of("room-a", "room-b", "room-c"), null, 10)).containsExactly(
+                new Hit("room-a", 2), new Hit("room-c", 2), new Hit("room-b", 1), new Hit("room-a", 1), new Hit("room-c", 1));
+        assertThat(searchIndex.search("deploy", List.of("room-a", "room-b", "room-c"), null, 2))
+                .containsExactly(new Hit("room-a", 2), new Hit("room-c", 2));
+    }
+
+    @Test
+    void deleteThrough_ShouldHideDeletedMessages_AlsoAfterRebuild() {
+        // Given
+        send("m1", "alice", "room-1", "deploy one");
+        send("m2", "alice", "room-1", "deploy two");
+        send("m3", "alice", "room-1", "deploy three");
+        send("m4", "bob", "room-2", "deploy four");
+
+        // When
+        searchIndex.deleteThrough("room-1", 2);
+
+        // Then
+        assertThat(searchIndex.search("deploy", List.of("room-1", "room-2"), null, 10))
+                .containsExactly(new Hit("room-2", 1), new Hit("room-1", 3));
+
+        // A rebuild that still reads the deleted messages does not bring them back
+        searchIndex.rebuild();
+        assertThat(searchIndex.search("deploy", List.of("room-1", "room-2"), null, 10))
+                .containsExactly(new Hit("room-2", 1), new Hit("room-1", 3));
+    }
+
+    private void store(String messageId, String roomId, String content, LocalDateTime timestamp) {
+        Message message = new Message(messageId, "alice", roomId, content, null);
+        message.setTimestamp(timestamp);
+        messageStore.append(message);
+    }
+
+    private void send(String messageId, String senderId, String roomId, String content) {
+        searchIndex.add(messageStore.append(new Message(messageId, senderId, roomId, content, null)));
+    }
+}
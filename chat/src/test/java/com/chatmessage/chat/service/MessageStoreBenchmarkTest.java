@@ -0,0 +1,57 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.chatmessage.chat.model.Message;
+
+/**
+ * Compares append throughput of the JPA store with the log store under each
+ * fsync policy. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:store-benchmark;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class MessageStoreBenchmarkTest {
+
+    private static final int MESSAGES = Integer.getInteger("bench.store.messages", 20_000);
+    private static final int ROOMS = 16;
+
+    @Autowired
+    private JpaMessageStore jpaMessageStore;
+
+    @TempDir
+    Path logDir;
+
+    @Test
+    void compareAppendThroughput() throws IOException {
+        run("jpa", jpaMessageStore);
+
+        for (String fsync : new String[]{"never", "interval", "always"}) {
+            LogMessageStore logStore = new LogMessageStore(logDir.resolve(fsync).toString(), 64L * 1024 * 1024, 64, fsync);
+            logStore.open();
+            run("log (fsync " + fsync + ")", logStore);
+            logStore.close();
+        }
+    }
+
+    private static void run(String label, MessageStore store) {
+        int messages = label.endsWith("always)") ? MESSAGES / 10 : MESSAGES;
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            store.append(new Message(UUID.randomUUID().toString(), "bench-user", "bench-room-" + (i % ROOMS),
+                    "benchmark message number " + i, null));
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-24s %8d messages %10.0f msg/s %8.2f us/msg%n",
+                label, messages, messages / (elapsed / 1e9), elapsed / 1e3 / messages);
+    }
+}
@@ -0,0 +1,105 @@
+package com.chatmessage.chat.service;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.chatmessage.chat.model.Message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MessageTracerTest {
+
+    private SimpleMeterRegistry registry;
+    private ChatMetrics metrics;
+    private FlightRecorderService flightRecorder;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new ChatMetrics(registry, 10, "filesystem");
+        flightRecorder = mock(FlightRecorderService.class);
+    }
+
+    @Test
+    void trace_ShouldSplitTotalIntoStages_WhenImageUploaded() {
+        // Given
+        MessageTrace trace = new MessageTrace();
+
+        // When
+        trace.markValidated();
+        trace.markUploaded();
+        trace.markPersisted();
+        trace.markBroadcast();
+
+        // Then
+        assertThat(trace.validateNanos() + trace.uploadNanos() + trace.saveNanos() + trace.broadcastNanos())
+                .isEqualTo(trace.totalNanos());
+        assertThat(trace.getUploadedAt()).isGreaterThanOrEqualTo(trace.getValidatedAt());
+    }
+
+    @Test
+    void trace_ShouldReportNoUploadTime_WhenTextOnly() {
+        // Given
+        MessageTrace trace = new MessageTrace();
+
+        // When
+        trace.markValidated();
+        trace.markPersisted();
+        trace.markBroadcast();
+
+        // Then
+        assertThat(trace.uploadNanos()).isZero();
+        assertThat(trace.validateNanos() + trace.saveNanos() + trace.broadcastNanos()).isEqualTo(trace.totalNanos());
+    }
+
+    @Test
+    void complete_ShouldRecordBroadcastAndTotal() {
+        // Given
+        MessageTracer tracer = new MessageTracer(metrics, flightRecorder, 0, false);
+        MessageTrace trace = completedTrace();
+
+        // When
+        tracer.complete(new Message("m-1", "user-1", "room-1", "Hello", null), trace);
+
+        // Then
+        assertThat(registry.get("chat.message.send").timer().count()).isEqualTo(1);
+        assertThat(registry.get("chat.message.send.phase").tag("phase", "broadcast").timer().count()).isEqualTo(1);
+        verify(flightRecorder).recordSendLatency(trace.totalNanos());
+    }
+
+    @Test
+    void stompHeaders_ShouldBeEmpty_WhenDisabled() {
+        // Given
+        MessageTracer tracer = new MessageTracer(metrics, flightRecorder, 500, false);
+
+        // When & Then
+        assertThat(tracer.stompHeaders(completedTrace())).isEmpty();
+    }
+
+    @Test
+    void stompHeaders_ShouldCarryStageTimes_WhenEnabled() {
+        // Given
+        MessageTracer tracer = new MessageTracer(metrics, flightRecorder, 500, true);
+
+        // When
+        Map<String, Object> headers = tracer.stompHeaders(completedTrace());
+
+        // Then
+        assertThat(headers).containsOnlyKeys("x-latency-validate-us", "x-latency-upload-us", "x-latency-save-us",
+                "x-broadcast-at-ms");
+        assertThat(headers.get("x-latency-upload-us")).isEqualTo(0L);
+    }
+
+    private static MessageTrace completedTrace() {
+        MessageTrace trace = new MessageTrace();
+        trace.markValidated();
+        trace.markPersisted();
+        trace.markBroadcast();
+        return trace;
+    }
+}
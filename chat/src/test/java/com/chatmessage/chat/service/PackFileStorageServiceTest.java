@@ -0,0 +1,201 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+class PackFileStorageServiceTest {
+
+    @TempDir
+    Path packDir;
+
+    private PackFileStorageService storageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageService = open(1024);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        storageService.close();
+    }
+
+    @Test
+    void uploadImage_ShouldBeReadableFromMappedSegment() throws IOException {
+        // When
+        String url = storageService.uploadImage(image("cat.jpg", "meow"));
+
+        // Then
+        assertThat(url).startsWith("/blobs/").endsWith("-cat.jpg");
+        assertThat(contentOf(storageService.readBlob(url))).isEqualTo("meow");
+    }
+
+    @Test
+    void readBlob_ShouldReturnNull_WhenBlobDoesNotExist() throws IOException {
+        assertThat(storageService.readBlob("/blobs/missing.jpg")).isNull();
+    }
+
+    @Test
+    void deleteImage_ShouldRemoveBlob() throws IOException {
+        // Given
+        String url = storageService.uploadImage(image("dog.jpg", "woof"));
+
+        // When
+        storageService.deleteImage(url);
+
+        // Then
+        assertThat(storageService.readBlob(url)).isNull();
+        assertThat(storageService.getBlobCount()).isZero();
+    }
+
+    @Test
+    void uploadImage_ShouldRollOverToNewSegment_WhenSegmentIsFull() throws IOException {
+        // When
+        for (int i = 0; i < 10; i++) {
+            storageService.uploadImage(image("img-" + i + ".png", "x".repeat(200)));
+        }
+
+        // Then
+        assertThat(storageService.getSegmentCount()).isGreaterThan(1);
+        assertThat(storageService.getBlobCount()).isEqualTo(10);
+    }
+
+    @Test
+    void open_ShouldRebuildIndexFromSegments() throws IOException {
+        // Given
+        String kept = storageService.uploadImage(image("kept.jpg", "kept"));
+        String deleted = storageService.uploadImage(image("deleted.jpg", "deleted"));
+        storageService.deleteImage(deleted);
+        storageService.close();
+
+        // When
+        storageService = open(1024);
+
+        // Then
+        assertThat(contentOf(storageService.readBlob(kept))).isEqualTo("kept");
+        assertThat(storageService.readBlob(deleted)).isNull();
+    }
+
+    @Test
+    void open_ShouldTruncateTornTail() throws IOException {
+        // Given
+        String url = storageService.uploadImage(image("whole.jpg", "whole"));
+        storageService.close();
+        Path segment = packDir.resolve("segment-000001.pack");
+        long validSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x50, 0x41, 0x4B}));
+        }
+
+        // When
+        storageService = open(1024);
+
+        // Then
+        assertThat(Files.size(segment)).isEqualTo(validSize);
+        assertThat(contentOf(storageService.readBlob(url))).isEqualTo("whole");
+    }
+
+    @Test
+    void compact_ShouldRewriteMostlyDeadSegmentsAndKeepLiveBlobs() throws IOException {
+        // Given
+        String live = storageService.uploadImage(image("live.png", "a".repeat(100)));
+        for (int i = 0; i < 6; i++) {
+            storageService.deleteImage(storageService.uploadImage(image("dead-" + i + ".png", "b".repeat(100))));
+        }
+        int segmentsBefore = storageService.getSegmentCount();
+
+        // When
+        storageService.compact();
+
+        // Then
+        assertThat(storageService.getSegmentCount()).isLessThan(segmentsBefore);
+        assertThat(contentOf(storageService.readBlob(live))).isEqualTo("a".repeat(100));
+
+        // Compacted state must survive a restart
+        storageService.close();
+        storageService = open(1024);
+        assertThat(storageService.getBlobCount()).isEqualTo(1);
+        assertThat(contentOf(storageService.readBlob(live))).isEqualTo("a".repeat(100));
+    }
+
+    @Test
+    void readBlob_ShouldNotFail_WhileSegmentsAreCompacted() throws Exception {
+        // Given
+        List<String> live = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            live.add(storageService.uploadImage(image("live-" + i + ".png", "live " + i)));
+        }
+        AtomicBoolean compacting = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> reads = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            reads.add(readers.submit(() -> {
+                int count = 0;
+                while (compacting.get()) {
+                    for (int i = 0; i < live.size(); i++) {
+                        assertThat(contentOf(storageService.readBlob(live.get(i)))).isEqualTo("live " + i);
+                        count++;
+                    }
+                }
+                return count;
+            }));
+        }
+
+        // When: every round leaves the segments holding live blobs mostly dead
+        try {
+            for (int round = 0; round < 200; round++) {
+                for (int i = 0; i < 6; i++) {
+                    storageService.deleteImage(storageService.uploadImage(image("dead-" + i + ".png", "b".repeat(100))));
+                }
+                storageService.compact();
+            }
+        } finally {
+            compacting.set(false);
+            readers.shutdown();
+        }
+
+        // Then
+        for (Future<Integer> read : reads) {
+            assertThat(read.get(10, TimeUnit.SECONDS)).isPositive();
+        }
+        try (Stream<Path> files = Files.list(packDir)) {
+            assertThat(files.count()).isEqualTo(storageService.getSegmentCount());
+        }
+    }
+
+    private PackFileStorageService open(long segmentSize) throws IOException {
+        PackFileStorageService service = new PackFileStorageService(packDir.toString(), segmentSize, 0.5);
+        service.open();
+        return service;
+    }
+
+    private static MockMultipartFile image(String filename, String content) {
+        return new MockMultipartFile("image", filename, "image/jpeg", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String contentOf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
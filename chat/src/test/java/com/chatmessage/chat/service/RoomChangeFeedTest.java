@@ -0,0 +1,113 @@
+package com.chatmessage.chat.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+import com.chatmessage.chat.model.Message;
+
+class RoomChangeFeedTest {
+
+    private final RoomChangeFeed feed = new RoomChangeFeed(8, 2, 5_000);
+
+    @Test
+    void read_ShouldReturnBufferedMessagesAfterSequence() {
+        // Given
+        for (long sequence = 1; sequence <= 5; sequence++) {
+            feed.append(message("room-1", sequence, LocalDateTime.now()));
+        }
+
+        // When
+        List<Message> messages = feed.read("room-1", 2, 10);
+
+        // Then
+        assertThat(messages).extracting(Message::getSequence).containsExactly(3L, 4L, 5L);
+        assertThat(feed.read("room-1", 2, 2)).extracting(Message::getSequence).containsExactly(3L, 4L);
+        assertThat(feed.read("room-1", 5, 10)).isEmpty();
+    }
+
+    @Test
+    void read_ShouldReturnNull_WhenBufferDoesNotReachBack() {
+        // Given
+        for (long sequence = 5; sequence <= 20; sequence++) {
+            feed.append(message("room-1", sequence, LocalDateTime.now()));
+        }
+
+        // When & Then
+        assertThat(feed.read("room-1", 11, 10)).isNull();
+        assertThat(feed.read("room-1", 12, 10)).extracting(Message::getSequence).startsWith(13L).endsWith(20L);
+        assertThat(feed.read("room-2", 0, 10)).isNull();
+    }
+
+    @Test
+    void read_ShouldStopAtRecentGap_AndSkipOldGap() {
+        // Given
+        feed.append(message("room-1", 1, LocalDateTime.now()));
+        feed.append(message("room-1", 3, LocalDateTime.now()));
+        feed.append(message("room-2", 1, LocalDateTime.now().minusMinutes(1)));
+        feed.append(message("room-2", 3, LocalDateTime.now().minusMinutes(1)));
+
+        // When & Then
+        assertThat(feed.read("room-1", 0, 10)).extracting(Message::getSequence).containsExactly(1L);
+        assertThat(feed.read("room-2", 0, 10)).extracting(Message::getSequence).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void append_ShouldEvictLeastRecentlyWrittenRoom() {
+        // Given
+        feed.append(message("room-1", 1, LocalDateTime.now()));
+        feed.append(message("room-2", 1, LocalDateTime.now()));
+
+        // When
+        feed.append(message("room-3", 1, LocalDateTime.now()));
+
+        // Then
+        assertThat(feed.read("room-1", 0, 10)).isNull();
+        assertThat(feed.read("room-3", 0, 10)).hasSize(1);
+    }
+
+    @Test
+    void untilGap_ShouldCutStoreResultsAtRecentGap() {
+        // Given
+        List<Message> messages = List.of(message("room-1", 4, LocalDateTime.now()),
+                message("room-1", 6, LocalDateTime.now()));
+
+        // When & Then
+        assertThat(feed.untilGap(messages, 3)).extracting(Message::getSequence).containsExactly(4L);
+        assertThat(feed.untilGap(messages, 2)).isEmpty();
+    }
+
+    @Test
+    void recordDeleted_ShouldOnlyMoveForward() {
+        feed.recordDeleted("room-1", 10);
+        feed.recordDeleted("room-1", 4);
+
+        assertThat(feed.getDeletedThrough("room-1")).isEqualTo(10);
+        assertThat(feed.getDeletedThrough("room-2")).isZero();
+    }
+
+    @Test
+    void parse_ShouldAcceptTokensAndBareSequences() {
+        // Given
+        RoomChangeFeed.Position position = feed.parse(feed.token(42));
+
+        // When & Then
+        assertThat(feed.isCurrent(position)).isTrue();
+        assertThat(position.sequence()).isEqualTo(42);
+        assertThat(feed.parse("7")).isEqualTo(new RoomChangeFeed.Position(position.epoch(), 7));
+        assertThat(feed.isCurrent(feed.parse("old:7"))).isFalse();
+        assertThatThrownBy(() -> feed.parse("abc"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid position: abc");
+    }
+
+    private static Message message(String roomId, long sequence, LocalDateTime timestamp) {
+        Message message = new Message(roomId + "-" + sequence, "user-1", roomId, "message " + sequence, null);
+        message.setSequence(sequence);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+}
@@ -0,0 +1,116 @@
+package com.chatmessage.chat.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares {@link PackFileStorageService} with {@link FileSystemStorageService}
+ * for write throughput and cold/warm read latency on small images.
+ *
+ * Run with {@code mvn test -Pbenchmark}. "Cold" here means the first read after
+ * reopening the store (fresh mappings / file handles); the OS page cache is not
+ * dropped, so drop it manually for a true cold-disk number.
+ */
+@Tag("benchmark")
+class StorageBenchmarkTest {
+
+    private static final int BLOB_COUNT = Integer.getInteger("bench.storage.blobs", 20_000);
+    private static final int BLOB_SIZE = Integer.getInteger("bench.storage.blob-size", 8 * 1024);
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void compareWriteThroughputAndReadLatency() throws IOException {
+        List<MockMultipartFile> images = generateImages();
+
+        Path uploadDir = workDir.resolve("files");
+        FileSystemStorageService fileStorage = new FileSystemStorageService();
+        ReflectionTestUtils.setField(fileStorage, "uploadDir", uploadDir.toString());
+
+        long start = System.nanoTime();
+        List<String> fileUrls = new ArrayList<>();
+        for (MockMultipartFile image : images) {
+            fileUrls.add(fileStorage.uploadImage(image));
+        }
+        report("filesystem write", start, BLOB_COUNT);
+
+        start = System.nanoTime();
+        readFiles(uploadDir, fileUrls);
+        report("filesystem cold read", start, BLOB_COUNT);
+        start = System.nanoTime();
+        readFiles(uploadDir, fileUrls);
+        report("filesystem warm read", start, BLOB_COUNT);
+
+        Path packDir = workDir.resolve("packs");
+        PackFileStorageService packStorage = new PackFileStorageService(packDir.toString(), 256L * 1024 * 1024, 0.5);
+        packStorage.open();
+
+        start = System.nanoTime();
+        List<String> packUrls = new ArrayList<>();
+        for (MockMultipartFile image : images) {
+            packUrls.add(packStorage.uploadImage(image));
+        }
+        report("pack write", start, BLOB_COUNT);
+        packStorage.close();
+
+        start = System.nanoTime();
+        packStorage = new PackFileStorageService(packDir.toString(), 256L * 1024 * 1024, 0.5);
+        packStorage.open();
+        report("pack reopen (index rebuild)", start, BLOB_COUNT);
+
+        start = System.nanoTime();
+        readPack(packStorage, packUrls);
+        report("pack cold read", start, BLOB_COUNT);
+        start = System.nanoTime();
+        readPack(packStorage, packUrls);
+        report("pack warm read", start, BLOB_COUNT);
+        packStorage.close();
+    }
+
+    private static List<MockMultipartFile> generateImages() {
+        Random random = new Random(42);
+        List<MockMultipartFile> images = new ArrayList<>(BLOB_COUNT);
+        for (int i = 0; i < BLOB_COUNT; i++) {
+            byte[] data = new byte[BLOB_SIZE];
+            random.nextBytes(data);
+            images.add(new MockMultipartFile("image", "img-" + i + ".jpg", "image/jpeg", data));
+        }
+        return images;
+    }
+
+    private static long readFiles(Path uploadDir, List<String> urls) throws IOException {
+        long checksum = 0;
+        for (String url : urls) {
+            byte[] data = Files.readAllBytes(uploadDir.resolve(url.substring(url.lastIndexOf('/') + 1)));
+            checksum += data[data.length - 1];
+        }
+        return checksum;
+    }
+
+    private static long readPack(PackFileStorageService storage, List<String> urls) throws IOException {
+        long checksum = 0;
+        for (String url : urls) {
+            ByteBuffer data = storage.readBlob(url);
+            checksum += data.get(data.limit() - 1);
+        }
+        return checksum;
+    }
+
+    private static void report(String label, long startNanos, int operations) {
+        long elapsed = System.nanoTime() - startNanos;
+        System.out.printf("%-30s %8.1f ms total, %8.2f us/op, %10.0f ops/s%n",
+                label, elapsed / 1e6, elapsed / 1e3 / operations, operations / (elapsed / 1e9));
+    }
+}
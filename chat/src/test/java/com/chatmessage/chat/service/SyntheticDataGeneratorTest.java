@@ -0,0 +1,167 @@
+package com.chatmessage.chat.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class SyntheticDataGeneratorTest {
+
+    @TempDir
+    private Path uploadDir;
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void generate_ShouldProduceSameData_WhenSameSeed() throws Exception {
+        // Given
+        SyntheticDataGenerator.Settings settings = settings(7, 5_000);
+        JdbcTemplate first = database();
+        JdbcTemplate second = database();
+
+        // When
+        generator(first, settings).generate();
+        generator(second, settings).generate();
+
+        // Then
+        String messages = "SELECT message_id, sender_id, room_id, content, image_url, timestamp, sequence FROM messages ORDER BY message_id";
+        String members = "SELECT room_id, user_id FROM room_members ORDER BY room_id, user_id";
+        assertThat(first.queryForList(messages)).hasSize(5_000).isEqualTo(second.queryForList(messages));
+        assertThat(first.queryForList(members)).isEqualTo(second.queryForList(members));
+        assertThat(first.queryForList("SELECT * FROM users ORDER BY user_id"))
+                .isEqualTo(second.queryForList("SELECT * FROM users ORDER BY user_id"));
+    }
+
+    @Test
+    void generate_ShouldSkewMembershipAndActivityTowardsTopRooms() throws Exception {
+        // Given
+        JdbcTemplate jdbcTemplate = database();
+
+        // When
+        SyntheticDataGenerator.Result result = generator(jdbcTemplate, settings(7, 20_000)).generate();
+
+        // Then
+        assertThat(result.users()).isEqualTo(2_000);
+        assertThat(result.memberships()).isGreaterThanOrEqualTo(2_000);
+        List<Integer> roomSizes = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM room_members GROUP BY room_id ORDER BY COUNT(*) DESC", Integer.class);
+        assertThat(roomSizes).hasSize(100).allMatch(size -> size >= 1);
+        assertThat(roomSizes.get(0)).isGreaterThan(10 * roomSizes.get(50));
+        List<Integer> roomMessages = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM messages GROUP BY room_id ORDER BY COUNT(*) DESC", Integer.class);
+        assertThat(roomMessages.get(0)).isGreaterThan(10 * roomMessages.get(roomMessages.size() / 2));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages WHERE image_url IS NOT NULL", Integer.class))
+                .isBetween(1_200, 2_000);
+    }
+
+    @Test
+    void generate_ShouldNumberMessagesInTimestampOrder_AndSummarizeRooms() throws Exception {
+        // Given
+        JdbcTemplate jdbcTemplate = database();
+
+        // When
+        generator(jdbcTemplate, settings(7, 5_000)).generate();
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages m JOIN messages n"
+                + " ON m.room_id = n.room_id AND m.sequence < n.sequence AND m.timestamp > n.timestamp", Integer.class))
+                .isZero();
+        List<Map<String, Object>> mismatched = jdbcTemplate.queryForList("SELECT a.room_id FROM room_activity a"
+                + " WHERE a.last_sequence <> (SELECT COUNT(*) FROM messages m WHERE m.room_id = a.room_id)");
+        assertThat(mismatched).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM room_activity", Integer.class))
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT room_id) FROM messages", Integer.class));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages m WHERE NOT EXISTS (SELECT 1 FROM room_members r"
+                + " WHERE r.room_id = m.room_id AND r.user_id = m.sender_id)", Integer.class)).isZero();
+    }
+
+    @Test
+    void isGenerated_ShouldBeTrue_OnlyAfterGeneratingSeed() throws Exception {
+        // Given
+        JdbcTemplate jdbcTemplate = database();
+        SyntheticDataGenerator generator = generator(jdbcTemplate, settings(7, 100));
+
+        // When & Then
+        assertThat(generator.isGenerated()).isFalse();
+        generator.generate();
+        assertThat(generator.isGenerated()).isTrue();
+        assertThat(generator(jdbcTemplate, settings(8, 100)).isGenerated()).isFalse();
+    }
+
+    @Test
+    void isGenerated_ShouldBeFalse_WhenRunDidNotComplete() throws Exception {
+        // Given: a run that stopped before writing its completion marker
+        JdbcTemplate jdbcTemplate = database();
+        SyntheticDataGenerator generator = generator(jdbcTemplate, settings(7, 100));
+        assertThat(generator.hasPartialData()).isFalse();
+        generator.generate();
+        jdbcTemplate.update("DELETE FROM users WHERE username = 'gen7-user-0'");
+
+        // When & Then
+        assertThat(generator.isGenerated()).isFalse();
+        assertThat(generator.hasPartialData()).isTrue();
+        assertThat(generator(jdbcTemplate, settings(8, 100)).hasPartialData()).isFalse();
+    }
+
+    @Test
+    void zipf_ShouldFavourLowRanks_AndStayInRange() {
+        // Given
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[100];
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            counts[SyntheticDataGenerator.zipf(random, counts.length, 1.1)]++;
+        }
+
+        // Then
+        assertThat(counts[0]).isGreaterThan(counts[1]).isGreaterThan(20 * counts[99]);
+        assertThat(counts[99]).isPositive();
+    }
+
+    @Test
+    void settings_ShouldThrowException_WhenRatioOutOfRange() {
+        assertThatThrownBy(() -> new SyntheticDataGenerator.Settings(1, 10, 10, 10, 2, 1.1, 0.8, 1.5, 0.5, 4, 40,
+                100, 2, LocalDateTime.of(2026, 1, 1, 0, 0), 30))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Image ratios must be between 0 and 1");
+    }
+
+    private JdbcTemplate database() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:db/schema.sql")
+                .build();
+        databases.add(database);
+        return new JdbcTemplate(database);
+    }
+
+    private SyntheticDataGenerator generator(JdbcTemplate jdbcTemplate, SyntheticDataGenerator.Settings settings) {
+        return new SyntheticDataGenerator(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                uploadDir, settings);
+    }
+
+    private static SyntheticDataGenerator.Settings settings(long seed, long messages) {
+        return new SyntheticDataGenerator.Settings(seed, 2_000, 100, messages, 3, 1.1, 0.8, 0.08, 0.5, 4, 40,
+                500, 3, LocalDateTime.of(2026, 1, 1, 0, 0), 30);
+    }
+}